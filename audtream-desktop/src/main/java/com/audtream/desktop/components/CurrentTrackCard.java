@@ -63,7 +63,7 @@ public class CurrentTrackCard extends GridPane {
 
         if (track.getCoverUrl() != null && !track.getCoverUrl().isEmpty()) {
             try {
-                imageView.setImage(new Image(track.getCoverUrl(), true));
+                imageView.setImage(new Image(track.getCoverUrl(64), true));
             } catch (Exception e) {
                 imageView.setImage(null);
             }
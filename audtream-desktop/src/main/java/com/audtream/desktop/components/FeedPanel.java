@@ -64,7 +64,7 @@ public class FeedPanel extends ScrollPane {
                                     track.getId(),
                                     track.getTitle(),
                                     track.getArtist(),
-                                    track.getCoverUrl()
+                                    track.getCoverUrl(TrackCard.COVER_SIZE)
                             );
 
                             trackCard.setOnMouseClicked(event -> handleTrackClick(track));
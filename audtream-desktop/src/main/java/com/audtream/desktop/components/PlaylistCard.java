@@ -8,6 +8,8 @@ import javafx.scene.layout.GridPane;
 import java.util.Objects;
 
 public class PlaylistCard extends GridPane {
+    public static final int COVER_SIZE = 150;
+
     private final Long id;
 
     public PlaylistCard(Long id, String name, String author, String coverUrl) {
@@ -17,6 +19,9 @@ public class PlaylistCard extends GridPane {
         getStyleClass().add("playlist-card");
 
         ImageView imageView = new ImageView();
+        imageView.setFitWidth(COVER_SIZE);
+        imageView.setPreserveRatio(true);
+        imageView.setSmooth(true);
         if (coverUrl != null && !coverUrl.isEmpty()) {
             try {
                 imageView.setImage(new Image(coverUrl, true));
@@ -75,7 +75,7 @@ public class PlaylistsBox extends VBox {
                                     playlist.getId(),
                                     playlist.getName(),
                                     playlist.getUsername(),
-                                    playlist.getCoverImageUrl()
+                                    playlist.getCoverImageUrl(PlaylistCard.COVER_SIZE)
                             );
 
                             card.setOnMouseClicked(event -> handlePlaylistClick(playlist));
@@ -1,11 +1,11 @@
 package com.audtream.desktop.components;
 
 import com.audtream.desktop.manager.AppStateManager;
-import com.audtream.desktop.model.dto.PlaylistDTO;
+import com.audtream.desktop.model.event.EventBus;
+import com.audtream.desktop.model.event.SearchResultsEvent;
+import javafx.application.Platform;
 import javafx.scene.control.TextField;
 
-import java.util.List;
-
 public class SearchBar extends TextField {
     private final AppStateManager app = AppStateManager.getInstance();
 
@@ -24,9 +24,10 @@ public class SearchBar extends TextField {
 
         new Thread(() -> {
             try {
-                List<PlaylistDTO> results = app.searchPlaylists(query);
+                SearchResultsEvent results = app.search(query.trim());
+                Platform.runLater(() -> EventBus.getInstance().publish(results));
             } catch (Exception e) {
             }
         }).start();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,107 @@
+package com.audtream.desktop.components;
+
+import com.audtream.desktop.manager.AppStateManager;
+import com.audtream.desktop.model.dto.PlaylistDTO;
+import com.audtream.desktop.model.dto.TrackDTO;
+import com.audtream.desktop.model.event.SearchResultsEvent;
+import javafx.scene.control.Label;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.layout.FlowPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+
+import java.util.Objects;
+
+public class SearchPanel extends ScrollPane {
+    private final Label header = new Label();
+    private final VBox contentBox = new VBox();
+    private final AppStateManager app = AppStateManager.getInstance();
+
+    public SearchPanel() {
+        getStylesheets().add(Objects.requireNonNull(getClass().getResource("/com/audtream/desktop/styles/components/feed.css")).toExternalForm());
+        getStyleClass().add("feed-panel");
+
+        contentBox.getStyleClass().add("feed-content");
+        contentBox.setSpacing(20);
+
+        setContent(contentBox);
+        setFitToWidth(true);
+        setHbarPolicy(ScrollPane.ScrollBarPolicy.NEVER);
+
+        header.getStyleClass().add("feed-header");
+    }
+
+    public void showResults(SearchResultsEvent results) {
+        contentBox.getChildren().clear();
+        header.setText("Results for \"" + results.getQuery() + "\"");
+        contentBox.getChildren().add(new HBox(header));
+
+        if (results.getTracks().isEmpty() && results.getPlaylists().isEmpty()) {
+            Label emptyLabel = new Label("Nothing found");
+            emptyLabel.getStyleClass().add("feed-trending-label");
+            contentBox.getChildren().add(new HBox(emptyLabel));
+            return;
+        }
+
+        if (!results.getTracks().isEmpty()) {
+            Label tracksLabel = new Label("Tracks");
+            tracksLabel.getStyleClass().add("feed-trending-label");
+            contentBox.getChildren().add(new HBox(tracksLabel));
+
+            FlowPane tracksRow = new FlowPane();
+            tracksRow.setHgap(10);
+            tracksRow.setVgap(10);
+            for (TrackDTO track : results.getTracks()) {
+                TrackCard trackCard = new TrackCard(
+                        track.getId(),
+                        track.getTitle(),
+                        track.getArtist(),
+                        track.getCoverUrl(TrackCard.COVER_SIZE)
+                );
+                trackCard.setOnMouseClicked(event -> handleTrackClick(track));
+                tracksRow.getChildren().add(trackCard);
+            }
+            contentBox.getChildren().add(tracksRow);
+        }
+
+        if (!results.getPlaylists().isEmpty()) {
+            Label playlistsLabel = new Label("Playlists");
+            playlistsLabel.getStyleClass().add("feed-trending-label");
+            contentBox.getChildren().add(new HBox(playlistsLabel));
+
+            FlowPane playlistsRow = new FlowPane();
+            playlistsRow.setHgap(10);
+            playlistsRow.setVgap(10);
+            for (PlaylistDTO playlist : results.getPlaylists()) {
+                PlaylistCard card = new PlaylistCard(
+                        playlist.getId(),
+                        playlist.getName(),
+                        playlist.getUsername(),
+                        playlist.getCoverImageUrl(PlaylistCard.COVER_SIZE)
+                );
+                card.setOnMouseClicked(event -> handlePlaylistClick(playlist));
+                playlistsRow.getChildren().add(card);
+            }
+            contentBox.getChildren().add(playlistsRow);
+        }
+    }
+
+    private void handleTrackClick(TrackDTO track) {
+        new Thread(() -> {
+            try {
+                app.playTrack(track);
+            } catch (Exception e) {
+            }
+        }).start();
+    }
+
+    private void handlePlaylistClick(PlaylistDTO playlist) {
+        // Wyniki wyszukiwania nie zawierają listy utworów - pobieramy pełną playlistę
+        new Thread(() -> {
+            try {
+                app.playPlaylist(app.loadPlaylist(playlist.getId()), 0);
+            } catch (Exception e) {
+            }
+        }).start();
+    }
+}
@@ -8,6 +8,8 @@ import javafx.scene.layout.VBox;
 import java.util.Objects;
 
 public class TrackCard extends VBox {
+    public static final int COVER_SIZE = 150;
+
     private final Long id;
 
     public TrackCard(Long id, String title, String author, String coverUrl) {
@@ -26,7 +28,7 @@ public class TrackCard extends VBox {
         authorLabel.getStyleClass().add("track-author-label");
 
         ImageView imageView = new ImageView();
-        imageView.setFitWidth(150);
+        imageView.setFitWidth(COVER_SIZE);
         imageView.setPreserveRatio(true);
         imageView.setSmooth(true);
 
@@ -25,6 +25,7 @@ public class MainController implements Initializable {
     private final PlayerBox playerBox = new PlayerBox();
     private final FeedPanel feedPanel = new FeedPanel();
     private final ProfilePanel profilePanel = new ProfilePanel();
+    private final SearchPanel searchPanel = new SearchPanel();
 
     private final HBox navContainer = new HBox();
     private final HBox playerContainer = new HBox();
@@ -42,6 +43,7 @@ public class MainController implements Initializable {
         switch (contentView) {
             case "feed" -> contentContainer.getChildren().add(feedPanel);
             case "profile" -> contentContainer.getChildren().add(profilePanel);
+            case "search" -> contentContainer.getChildren().add(searchPanel);
         }
     }
 
@@ -72,6 +74,10 @@ public class MainController implements Initializable {
             changeContent("profile");
         });
         EventBus.getInstance().subscribe(EnterFeedEvent.class, event -> changeContent("feed"));
+        EventBus.getInstance().subscribe(SearchResultsEvent.class, event -> {
+            searchPanel.showResults(event);
+            changeContent("search");
+        });
     }
 
     private void close() {
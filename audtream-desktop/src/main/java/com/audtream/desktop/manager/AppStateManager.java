@@ -14,12 +14,14 @@ public class AppStateManager {
     private final PlaylistDataManager playlistManager;
     private final UserDataManager userManager;
     private final PlayerStateManager playerManager;
+    private final SearchDataManager searchManager;
 
     private AppStateManager() {
         this.trackManager = TrackDataManager.getInstance();
         this.playlistManager = PlaylistDataManager.getInstance();
         this.userManager = UserDataManager.getInstance();
         this.playerManager = PlayerStateManager.getInstance();
+        this.searchManager = SearchDataManager.getInstance();
         setupEventListeners();
     }
 
@@ -53,6 +55,14 @@ public class AppStateManager {
         return trackManager.getAllTracks(genre, sort, forceRefresh);
     }
 
+    public List<TrackDTO> loadMoreTracks() throws IOException {
+        return trackManager.loadMoreTracks();
+    }
+
+    public boolean hasMoreTracks() {
+        return trackManager.hasMoreTracks();
+    }
+
     public List<TrackDTO> loadRecommendedTracks(boolean forceRefresh) throws IOException {
         return trackManager.getRecommendedTracks(20, forceRefresh);
     }
@@ -113,6 +123,10 @@ public class AppStateManager {
         return playlistManager.searchPlaylists(query, 20);
     }
 
+    public SearchResultsEvent search(String query) throws IOException {
+        return searchManager.search(query, 20);
+    }
+
     public PlaylistDTO loadPlaylist(Long playlistId) throws IOException {
         return playlistManager.getPlaylist(playlistId, true);
     }
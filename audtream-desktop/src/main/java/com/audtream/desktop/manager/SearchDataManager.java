@@ -0,0 +1,31 @@
+package com.audtream.desktop.manager;
+
+import com.audtream.desktop.model.dto.SearchResponse;
+import com.audtream.desktop.model.dto.TrackDTO;
+import com.audtream.desktop.model.event.SearchResultsEvent;
+import com.audtream.desktop.service.SearchService;
+import java.io.IOException;
+import java.util.List;
+
+public class SearchDataManager {
+    private static SearchDataManager instance;
+    private final SearchService searchService;
+
+    private SearchDataManager() {
+        this.searchService = new SearchService();
+    }
+
+    public static SearchDataManager getInstance() {
+        if (instance == null) {
+            instance = new SearchDataManager();
+        }
+        return instance;
+    }
+
+    public SearchResultsEvent search(String query, int limit) throws IOException {
+        SearchResponse response = searchService.search(query, 0, limit);
+        // Utwory z wyników trafiają do wspólnego cache, żeby odtwarzanie nie pytało API drugi raz
+        List<TrackDTO> tracks = TrackDataManager.getInstance().cacheTracks(response.getTracks());
+        return new SearchResultsEvent(query, tracks, response.getPlaylists());
+    }
+}
@@ -1,6 +1,7 @@
 package com.audtream.desktop.manager;
 
 import com.audtream.desktop.model.dto.TrackDTO;
+import com.audtream.desktop.model.dto.TrackPageResponse;
 import com.audtream.desktop.model.event.*;
 import com.audtream.desktop.service.TrackService;
 import java.io.IOException;
@@ -14,6 +15,9 @@ public class TrackDataManager {
     private final Map<Long, TrackDTO> trackCache;
     private List<TrackDTO> userTracks;
     private List<TrackDTO> allTracks;
+    private String allTracksCursor;
+    private String allTracksGenre;
+    private String allTracksSort;
     private List<TrackDTO> recommendedTracks;
     private List<TrackDTO> newReleases;
     private List<TrackDTO> topTracks;
@@ -50,17 +54,42 @@ public class TrackDataManager {
 
     public List<TrackDTO> getAllTracks(String genre, String sort, boolean forceRefresh) throws IOException {
         long now = System.currentTimeMillis();
-        if (!forceRefresh && allTracks != null && (now - lastAllTracksFetch) < CACHE_TTL) {
-            return filterAndSort(allTracks, genre, sort);
+        if (!forceRefresh && allTracks != null && (now - lastAllTracksFetch) < CACHE_TTL
+                && Objects.equals(genre, allTracksGenre) && Objects.equals(sort, allTracksSort)) {
+            return new ArrayList<>(allTracks);
         }
 
-        allTracks = convertToTrackDTO(trackService.getAllTracks(genre, sort));
+        // Filtrowanie i sortowanie robi serwer - trzymamy tylko pobrane strony i kursor do następnej
+        TrackPageResponse page = trackService.getAllTracks(genre, sort);
+        allTracks = convertToTrackDTO(page.getItems());
+        allTracksCursor = page.getNextCursor();
+        allTracksGenre = genre;
+        allTracksSort = sort;
         lastAllTracksFetch = now;
         allTracks.forEach(track -> trackCache.put(track.getId(), track));
         EventBus.getInstance().publish(new DataRefreshedEvent("all_tracks"));
         return new ArrayList<>(allTracks);
     }
 
+    // Następna strona dla ostatnio pobranego gatunku i sortowania - pusta lista, gdy stron już nie ma
+    public List<TrackDTO> loadMoreTracks() throws IOException {
+        if (allTracks == null || allTracksCursor == null) {
+            return new ArrayList<>();
+        }
+
+        TrackPageResponse page = trackService.getTracksPage(allTracksGenre, allTracksSort, allTracksCursor,
+                TrackService.TRACKS_PAGE_SIZE);
+        List<TrackDTO> tracks = convertToTrackDTO(page.getItems());
+        allTracksCursor = page.getNextCursor();
+        allTracks.addAll(tracks);
+        tracks.forEach(track -> trackCache.put(track.getId(), track));
+        return tracks;
+    }
+
+    public boolean hasMoreTracks() {
+        return allTracks != null && allTracksCursor != null;
+    }
+
     public List<TrackDTO> getRecommendedTracks(int limit, boolean forceRefresh) throws IOException {
         if (!forceRefresh && recommendedTracks != null) {
             return new ArrayList<>(recommendedTracks);
@@ -137,10 +166,19 @@ public class TrackDataManager {
         EventBus.getInstance().publish(new TrackDeletedEvent(trackId));
     }
 
+    public List<TrackDTO> cacheTracks(List<com.audtream.desktop.model.dto.TrackResponse> responses) {
+        List<TrackDTO> tracks = convertToTrackDTO(responses);
+        tracks.forEach(track -> trackCache.put(track.getId(), track));
+        return tracks;
+    }
+
     public void clearCache() {
         trackCache.clear();
         userTracks = null;
         allTracks = null;
+        allTracksCursor = null;
+        allTracksGenre = null;
+        allTracksSort = null;
         recommendedTracks = null;
         newReleases = null;
         topTracks = null;
@@ -148,33 +186,6 @@ public class TrackDataManager {
         lastAllTracksFetch = 0;
     }
 
-    private List<TrackDTO> filterAndSort(List<TrackDTO> tracks, String genre, String sort) {
-        List<TrackDTO> filtered = new ArrayList<>(tracks);
-
-        if (genre != null && !genre.isEmpty() && !genre.equalsIgnoreCase("all")) {
-            filtered.removeIf(t -> !genre.equalsIgnoreCase(t.getGenre()));
-        }
-
-        if (sort != null) {
-            switch (sort.toLowerCase()) {
-                case "popular":
-                    filtered.sort((a, b) -> b.getPlays().compareTo(a.getPlays()));
-                    break;
-                case "newest":
-                    filtered.sort((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()));
-                    break;
-                case "oldest":
-                    filtered.sort((a, b) -> a.getCreatedAt().compareTo(b.getCreatedAt()));
-                    break;
-                case "liked":
-                    filtered.sort((a, b) -> b.getLikes().compareTo(a.getLikes()));
-                    break;
-            }
-        }
-
-        return filtered;
-    }
-
     // KONWERSJA - DOSTOSOWANA DO TWOJEGO TrackDTO
     private TrackDTO convertToTrackDTO(com.audtream.desktop.model.dto.TrackResponse response) {
         if (response == null) return null;
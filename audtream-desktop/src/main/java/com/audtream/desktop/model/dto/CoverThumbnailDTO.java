@@ -0,0 +1,35 @@
+package com.audtream.desktop.model.dto;
+
+import java.util.List;
+
+public class CoverThumbnailDTO {
+    private Integer size;
+    private String format;
+    private String url;
+
+    public Integer getSize() { return size; }
+    public void setSize(Integer size) { this.size = size; }
+
+    public String getFormat() { return format; }
+    public void setFormat(String format) { this.format = format; }
+
+    public String getUrl() { return url; }
+    public void setUrl(String url) { this.url = url; }
+
+    // JavaFX nie dekoduje WebP, więc bierzemy najmniejszy JPEG nie mniejszy niż renderowany rozmiar
+    public static String pick(List<CoverThumbnailDTO> thumbnails, String original, int renderedSize) {
+        if (thumbnails == null) {
+            return original;
+        }
+        CoverThumbnailDTO best = null;
+        for (CoverThumbnailDTO thumbnail : thumbnails) {
+            if (!"jpg".equals(thumbnail.getFormat()) || thumbnail.getSize() < renderedSize) {
+                continue;
+            }
+            if (best == null || thumbnail.getSize() < best.getSize()) {
+                best = thumbnail;
+            }
+        }
+        return best != null ? best.getUrl() : original;
+    }
+}
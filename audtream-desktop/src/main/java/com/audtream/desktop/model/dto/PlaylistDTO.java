@@ -9,6 +9,7 @@ public class PlaylistDTO {
     private String description;
     private Boolean isPublic;
     private String coverImageUrl;
+    private List<CoverThumbnailDTO> coverThumbnails;
     private Integer trackCount;
     private Integer totalDuration;
     private Integer plays;
@@ -59,6 +60,18 @@ public class PlaylistDTO {
         this.coverImageUrl = coverImageUrl;
     }
 
+    public String getCoverImageUrl(int renderedSize) {
+        return CoverThumbnailDTO.pick(coverThumbnails, coverImageUrl, renderedSize);
+    }
+
+    public List<CoverThumbnailDTO> getCoverThumbnails() {
+        return coverThumbnails;
+    }
+
+    public void setCoverThumbnails(List<CoverThumbnailDTO> coverThumbnails) {
+        this.coverThumbnails = coverThumbnails;
+    }
+
     public Integer getTrackCount() {
         return trackCount;
     }
@@ -0,0 +1,39 @@
+package com.audtream.desktop.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.ArrayList;
+import java.util.List;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SearchResponse {
+    @JsonProperty("query")
+    private String query;
+
+    @JsonProperty("tracks")
+    private List<TrackResponse> tracks = new ArrayList<>();
+
+    @JsonProperty("totalTracks")
+    private int totalTracks;
+
+    @JsonProperty("playlists")
+    private List<PlaylistDTO> playlists = new ArrayList<>();
+
+    @JsonProperty("totalPlaylists")
+    private int totalPlaylists;
+
+    public String getQuery() { return query; }
+    public void setQuery(String query) { this.query = query; }
+
+    public List<TrackResponse> getTracks() { return tracks; }
+    public void setTracks(List<TrackResponse> tracks) { this.tracks = tracks; }
+
+    public int getTotalTracks() { return totalTracks; }
+    public void setTotalTracks(int totalTracks) { this.totalTracks = totalTracks; }
+
+    public List<PlaylistDTO> getPlaylists() { return playlists; }
+    public void setPlaylists(List<PlaylistDTO> playlists) { this.playlists = playlists; }
+
+    public int getTotalPlaylists() { return totalPlaylists; }
+    public void setTotalPlaylists(int totalPlaylists) { this.totalPlaylists = totalPlaylists; }
+}
@@ -1,6 +1,7 @@
 package com.audtream.desktop.model.dto;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 public class TrackDTO {
     private Long id;
@@ -15,6 +16,7 @@ public class TrackDTO {
     private String genre;
     private String year;
     private String coverUrl;
+    private List<CoverThumbnailDTO> coverThumbnails;
     private Integer plays;
     private Integer likes;
     private LocalDateTime createdAt;
@@ -58,6 +60,11 @@ public class TrackDTO {
     public String getCoverUrl() { return coverUrl; }
     public void setCoverUrl(String coverUrl) { this.coverUrl = coverUrl; }
 
+    public String getCoverUrl(int renderedSize) { return CoverThumbnailDTO.pick(coverThumbnails, coverUrl, renderedSize); }
+
+    public List<CoverThumbnailDTO> getCoverThumbnails() { return coverThumbnails; }
+    public void setCoverThumbnails(List<CoverThumbnailDTO> coverThumbnails) { this.coverThumbnails = coverThumbnails; }
+
     public Integer getPlays() { return plays; }
     public void setPlays(Integer plays) { this.plays = plays; }
 
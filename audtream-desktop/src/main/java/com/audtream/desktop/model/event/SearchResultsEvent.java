@@ -0,0 +1,30 @@
+package com.audtream.desktop.model.event;
+
+import com.audtream.desktop.model.dto.PlaylistDTO;
+import com.audtream.desktop.model.dto.TrackDTO;
+
+import java.util.List;
+
+public class SearchResultsEvent {
+    private final String query;
+    private final List<TrackDTO> tracks;
+    private final List<PlaylistDTO> playlists;
+
+    public SearchResultsEvent(String query, List<TrackDTO> tracks, List<PlaylistDTO> playlists) {
+        this.query = query;
+        this.tracks = tracks;
+        this.playlists = playlists;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public List<TrackDTO> getTracks() {
+        return tracks;
+    }
+
+    public List<PlaylistDTO> getPlaylists() {
+        return playlists;
+    }
+}
@@ -0,0 +1,39 @@
+package com.audtream.desktop.service;
+
+import com.audtream.desktop.config.ApiConfig;
+import com.audtream.desktop.model.dto.SearchResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.*;
+
+import java.io.IOException;
+
+public class SearchService {
+    private final OkHttpClient client;
+    private final ObjectMapper mapper;
+
+    public SearchService() {
+        this.client = ApiConfig.getHttpClient();
+        this.mapper = ApiConfig.getObjectMapper();
+    }
+
+    public SearchResponse search(String query, int page, int size) throws IOException {
+        HttpUrl url = HttpUrl.parse(ApiConfig.getBaseUrl() + "/search").newBuilder()
+                .addQueryParameter("q", query)
+                .addQueryParameter("page", String.valueOf(page))
+                .addQueryParameter("size", String.valueOf(size))
+                .build();
+
+        Request request = new Request.Builder()
+                .url(url)
+                .get()
+                .build();
+
+        try (Response response = client.newCall(request).execute()) {
+            if (response.isSuccessful() && response.body() != null) {
+                return mapper.readValue(response.body().string(), SearchResponse.class);
+            } else {
+                throw new IOException("Failed to search: " + response.code());
+            }
+        }
+    }
+}
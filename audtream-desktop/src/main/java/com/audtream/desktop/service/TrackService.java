@@ -1,6 +1,7 @@
 package com.audtream.desktop.service;
 
 import com.audtream.desktop.config.ApiConfig;
+import com.audtream.desktop.model.dto.TrackPageResponse;
 import com.audtream.desktop.model.dto.TrackResponse;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -9,10 +10,11 @@ import okhttp3.*;
 import java.io.IOException;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
 import java.util.List;
 
 public class TrackService {
+    public static final int TRACKS_PAGE_SIZE = 50;
+
     private final OkHttpClient client;
     private final ObjectMapper mapper;
 
@@ -39,7 +41,12 @@ public class TrackService {
         }
     }
 
-    public List<TrackResponse> getAllTracks(String genre, String sort) throws IOException {
+    // Tylko pierwsza strona z kursorem - kolejne dociąga TrackDataManager, gdy UI ich potrzebuje
+    public TrackPageResponse getAllTracks(String genre, String sort) throws IOException {
+        return getTracksPage(genre, sort, null, TRACKS_PAGE_SIZE);
+    }
+
+    public TrackPageResponse getTracksPage(String genre, String sort, String cursor, int limit) throws IOException {
         HttpUrl.Builder urlBuilder = HttpUrl.parse(ApiConfig.getBaseUrl() + "/tracks/all").newBuilder();
 
         if (genre != null && !genre.isEmpty() && !genre.equalsIgnoreCase("all")) {
@@ -48,6 +55,10 @@ public class TrackService {
         if (sort != null && !sort.isEmpty()) {
             urlBuilder.addQueryParameter("sort", sort);
         }
+        if (cursor != null) {
+            urlBuilder.addQueryParameter("cursor", cursor);
+        }
+        urlBuilder.addQueryParameter("limit", String.valueOf(limit));
 
         String url = urlBuilder.build().toString();
 
@@ -59,7 +70,7 @@ public class TrackService {
         try (Response response = client.newCall(request).execute()) {
             if (response.isSuccessful() && response.body() != null) {
                 String responseBody = response.body().string();
-                return mapper.readValue(responseBody, new TypeReference<List<TrackResponse>>() {});
+                return mapper.readValue(responseBody, TrackPageResponse.class);
             } else {
                 throw new IOException("Failed to fetch all tracks: " + response.code());
             }
@@ -38,6 +38,17 @@ public class DataBindingHelper {
         }).start();
     }
 
+    public void bindMoreTracks(Consumer<List<TrackDTO>> onSuccess, Consumer<Exception> onError) {
+        new Thread(() -> {
+            try {
+                List<TrackDTO> tracks = appState.loadMoreTracks();
+                Platform.runLater(() -> onSuccess.accept(tracks));
+            } catch (IOException e) {
+                Platform.runLater(() -> onError.accept(e));
+            }
+        }).start();
+    }
+
     public void bindRecommendedTracks(Consumer<List<TrackDTO>> onSuccess, Consumer<Exception> onError) {
         new Thread(() -> {
             try {
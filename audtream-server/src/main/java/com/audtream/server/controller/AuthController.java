@@ -4,12 +4,16 @@ import com.audtream.server.model.dto.AuthRequest;
 import com.audtream.server.model.dto.AuthResponse;
 import com.audtream.server.model.dto.RegisterRequest;
 import com.audtream.server.model.entity.User;
+import com.audtream.server.security.AuthenticatedUser;
+import com.audtream.server.security.TokenRevocationService;
 import com.audtream.server.service.AuthService;
 import com.audtream.server.service.UserService;
 
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -23,6 +27,9 @@ public class AuthController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
     @PostMapping("/login")
     public ResponseEntity<AuthResponse> login(@Valid @RequestBody AuthRequest authRequest) {
         AuthResponse response = authService.authenticate(authRequest);
@@ -40,4 +47,14 @@ public class AuthController {
         AuthResponse response = authService.authenticate(authRequest);
         return ResponseEntity.ok(response);
     }
+
+    @PostMapping("/logout-all")
+    public ResponseEntity<Void> logoutEverywhere(@AuthenticationPrincipal AuthenticatedUser principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        tokenRevocationService.revokeAll(principal.getId());
+        return ResponseEntity.noContent().build();
+    }
 }
\ No newline at end of file
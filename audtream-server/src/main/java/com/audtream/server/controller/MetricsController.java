@@ -0,0 +1,130 @@
+package com.audtream.server.controller;
+
+import com.audtream.server.security.JwtUtil;
+import com.audtream.server.service.AudioAnalysisService;
+import com.audtream.server.service.CoverArtService;
+import com.audtream.server.service.EngagementCounterService;
+import com.audtream.server.service.ExploreCacheService;
+import com.audtream.server.service.PresignedUrlService;
+import com.audtream.server.service.PrincipalResolutionService;
+import com.audtream.server.service.SearchIndexService;
+import com.audtream.server.service.SegmentCacheService;
+import com.audtream.server.service.SuggestionService;
+import com.audtream.server.service.TranscodingService;
+import com.audtream.server.service.TrendingService;
+import com.audtream.server.service.WaveformService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/metrics")
+@CrossOrigin(origins = "http://localhost:5173")
+public class MetricsController {
+
+    @Autowired
+    private SegmentCacheService segmentCacheService;
+
+    @Autowired
+    private EngagementCounterService engagementCounterService;
+
+    @Autowired
+    private TrendingService trendingService;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private PrincipalResolutionService principalResolutionService;
+
+    @Autowired
+    private SearchIndexService searchIndexService;
+
+    @Autowired
+    private SuggestionService suggestionService;
+
+    @Autowired
+    private ExploreCacheService exploreCacheService;
+
+    @Autowired
+    private TranscodingService transcodingService;
+
+    @Autowired
+    private WaveformService waveformService;
+
+    @Autowired
+    private AudioAnalysisService audioAnalysisService;
+
+    @Autowired
+    private CoverArtService coverArtService;
+
+    @Autowired
+    private PresignedUrlService presignedUrlService;
+
+    @GetMapping("/segment-cache")
+    public ResponseEntity<Map<String, Object>> getSegmentCacheStats() {
+        return ResponseEntity.ok(segmentCacheService.getStats());
+    }
+
+    @GetMapping("/counters")
+    public ResponseEntity<Map<String, Object>> getCounterStats() {
+        return ResponseEntity.ok(engagementCounterService.getStats());
+    }
+
+    @GetMapping("/trending")
+    public ResponseEntity<Map<String, Object>> getTrendingStats() {
+        return ResponseEntity.ok(trendingService.getStats());
+    }
+
+    @GetMapping("/jwt")
+    public ResponseEntity<Map<String, Object>> getJwtStats() {
+        return ResponseEntity.ok(jwtUtil.getStats());
+    }
+
+    @GetMapping("/principals")
+    public ResponseEntity<Map<String, Object>> getPrincipalCacheStats() {
+        return ResponseEntity.ok(principalResolutionService.getStats());
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<Map<String, Object>> getSearchIndexStats() {
+        return ResponseEntity.ok(searchIndexService.getStats());
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<Map<String, Object>> getSuggestionStats() {
+        return ResponseEntity.ok(suggestionService.getStats());
+    }
+
+    @GetMapping("/explore-cache")
+    public ResponseEntity<Map<String, Object>> getExploreCacheStats() {
+        return ResponseEntity.ok(exploreCacheService.getStats());
+    }
+
+    @GetMapping("/transcoding")
+    public ResponseEntity<Map<String, Object>> getTranscodingStats() {
+        return ResponseEntity.ok(transcodingService.getStats());
+    }
+
+    @GetMapping("/waveform")
+    public ResponseEntity<Map<String, Object>> getWaveformStats() {
+        return ResponseEntity.ok(waveformService.getStats());
+    }
+
+    @GetMapping("/audio-probe")
+    public ResponseEntity<Map<String, Object>> getAudioProbeStats() {
+        return ResponseEntity.ok(audioAnalysisService.getStats());
+    }
+
+    @GetMapping("/covers")
+    public ResponseEntity<Map<String, Object>> getCoverStats() {
+        return ResponseEntity.ok(coverArtService.getStats());
+    }
+
+    @GetMapping("/presign")
+    public ResponseEntity<Map<String, Object>> getPresignStats() {
+        return ResponseEntity.ok(presignedUrlService.getStats());
+    }
+}
@@ -2,16 +2,28 @@ package com.audtream.server.controller;
 
 import com.audtream.server.model.dto.*;
 import com.audtream.server.model.entity.Playlist;
-import com.audtream.server.model.entity.Track;
 import com.audtream.server.model.entity.User;
 import com.audtream.server.model.repository.PlaylistRepository;
+import com.audtream.server.model.repository.PlaylistTrackRepository;
 import com.audtream.server.model.repository.TrackRepository;
 import com.audtream.server.model.repository.UserRepository;
+import com.audtream.server.security.AuthenticatedUser;
+import com.audtream.server.service.EngagementCounterService;
+import com.audtream.server.service.ExploreCacheService;
+import com.audtream.server.service.PlaylistTrackService;
+import com.audtream.server.service.PrincipalResolutionService;
+import com.audtream.server.service.SearchIndexService;
+import com.audtream.server.service.TrendingService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestController
@@ -19,6 +31,8 @@ import java.util.stream.Collectors;
 @CrossOrigin(origins = "http://localhost:5173")
 public class PlaylistController {
 
+    private static final int MAX_EXPLORE_LIMIT = 100;
+
     @Autowired
     private PlaylistRepository playlistRepository;
 
@@ -28,10 +42,32 @@ public class PlaylistController {
     @Autowired
     private TrackRepository trackRepository;
 
+    @Autowired
+    private EngagementCounterService engagementCounterService;
+
+    @Autowired
+    private TrendingService trendingService;
+
+    @Autowired
+    private PrincipalResolutionService principalResolutionService;
+
+    @Autowired
+    private PlaylistTrackRepository playlistTrackRepository;
+
+    @Autowired
+    private PlaylistTrackService playlistTrackService;
+
+    @Autowired
+    private SearchIndexService searchIndexService;
+
+    @Autowired
+    private ExploreCacheService exploreCacheService;
+
     @PostMapping
-    public ResponseEntity<PlaylistResponse> createPlaylist(@RequestBody PlaylistRequest playlistRequest) {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = getUserByUsername(username);
+    public ResponseEntity<PlaylistResponse> createPlaylist(
+            @RequestBody PlaylistRequest playlistRequest,
+            @AuthenticationPrincipal AuthenticatedUser principal) {
+        User user = userRepository.getReferenceById(principal.getId());
 
         Playlist playlist = new Playlist();
         playlist.setName(playlistRequest.getName());
@@ -40,46 +76,41 @@ public class PlaylistController {
         playlist.setCoverImageUrl(playlistRequest.getCoverImageUrl());
         playlist.setUser(user);
 
+        Playlist savedPlaylist = playlistRepository.save(playlist);
         if (playlistRequest.getTrackIds() != null) {
-            for (Long trackId : playlistRequest.getTrackIds()) {
-                Track track = trackRepository.findById(trackId)
-                        .orElseThrow(() -> new RuntimeException("Track not found: " + trackId));
-                playlist.addTrack(track);
-            }
+            playlistTrackService.addTracks(savedPlaylist.getId(), Arrays.asList(playlistRequest.getTrackIds()));
         }
 
-        Playlist savedPlaylist = playlistRepository.save(playlist);
-        return ResponseEntity.ok(convertToResponse(savedPlaylist, true));
+        return ResponseEntity.ok(loadResponse(savedPlaylist.getId()));
     }
 
     @GetMapping("/{playlistId}")
-    public ResponseEntity<PlaylistResponse> getPlaylist(@PathVariable Long playlistId) {
-        Playlist playlist = playlistRepository.findById(playlistId)
+    public ResponseEntity<PlaylistResponse> getPlaylist(
+            @PathVariable Long playlistId,
+            @AuthenticationPrincipal AuthenticatedUser principal) {
+        PlaylistResponse playlist = playlistRepository.findResponseById(playlistId)
                 .orElseThrow(() -> new RuntimeException("Playlist not found"));
 
         if (!playlist.getIsPublic()) {
-            String username = SecurityContextHolder.getContext().getAuthentication().getName();
-            User user = getUserByUsername(username);
-            if (!playlist.getUser().getId().equals(user.getId())) {
+            if (!playlist.getUserId().equals(principal.getId())) {
                 throw new RuntimeException("Playlist is private");
             }
         }
 
-        return ResponseEntity.ok(convertToResponse(playlist, true));
+        playlist.setTracks(trackRepository.findResponsesByPlaylistId(playlistId));
+        return ResponseEntity.ok(playlist);
     }
 
     @PutMapping("/{playlistId}")
     public ResponseEntity<PlaylistResponse> updatePlaylist(
             @PathVariable Long playlistId,
-            @RequestBody PlaylistUpdateRequest updateRequest) {
-
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = getUserByUsername(username);
+            @RequestBody PlaylistUpdateRequest updateRequest,
+            @AuthenticationPrincipal AuthenticatedUser principal) {
 
         Playlist playlist = playlistRepository.findById(playlistId)
                 .orElseThrow(() -> new RuntimeException("Playlist not found"));
 
-        if (!playlist.getUser().getId().equals(user.getId())) {
+        if (!playlist.getUser().getId().equals(principal.getId())) {
             throw new RuntimeException("Not authorized to update this playlist");
         }
 
@@ -96,170 +127,152 @@ public class PlaylistController {
             playlist.setCoverImageUrl(updateRequest.getCoverImageUrl());
         }
 
-        Playlist updatedPlaylist = playlistRepository.save(playlist);
-        return ResponseEntity.ok(convertToResponse(updatedPlaylist, true));
+        playlistRepository.save(playlist);
+        if (Boolean.FALSE.equals(updateRequest.getIsPublic())) {
+            // Prywatna playlista nie może dalej zajmować miejsca w rankingu trendów
+            trendingService.removePlaylist(playlistId);
+        }
+        return ResponseEntity.ok(loadResponse(playlistId));
     }
 
     @DeleteMapping("/{playlistId}")
-    public ResponseEntity<Void> deletePlaylist(@PathVariable Long playlistId) {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = getUserByUsername(username);
+    public ResponseEntity<Void> deletePlaylist(
+            @PathVariable Long playlistId,
+            @AuthenticationPrincipal AuthenticatedUser principal) {
 
         Playlist playlist = playlistRepository.findById(playlistId)
                 .orElseThrow(() -> new RuntimeException("Playlist not found"));
 
-        if (!playlist.getUser().getId().equals(user.getId())) {
+        if (!playlist.getUser().getId().equals(principal.getId())) {
             throw new RuntimeException("Not authorized to delete this playlist");
         }
 
+        playlistTrackRepository.deleteByPlaylistId(playlistId);
         playlistRepository.delete(playlist);
+        trendingService.removePlaylist(playlistId);
         return ResponseEntity.noContent().build();
     }
 
     @PostMapping("/{playlistId}/tracks/{trackId}")
     public ResponseEntity<PlaylistResponse> addTrackToPlaylist(
             @PathVariable Long playlistId,
-            @PathVariable Long trackId) {
-
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = getUserByUsername(username);
+            @PathVariable Long trackId,
+            @AuthenticationPrincipal AuthenticatedUser principal) {
 
-        Playlist playlist = playlistRepository.findById(playlistId)
-                .orElseThrow(() -> new RuntimeException("Playlist not found"));
+        requireOwner(playlistId, principal);
+        playlistTrackService.addTracks(playlistId, List.of(trackId));
 
-        if (!playlist.getUser().getId().equals(user.getId())) {
-            throw new RuntimeException("Not authorized to modify this playlist");
-        }
+        return ResponseEntity.ok(loadResponse(playlistId));
+    }
 
-        Track track = trackRepository.findById(trackId)
-                .orElseThrow(() -> new RuntimeException("Track not found"));
+    @PostMapping("/{playlistId}/tracks")
+    public ResponseEntity<PlaylistResponse> addTracksToPlaylist(
+            @PathVariable Long playlistId,
+            @RequestBody List<Long> trackIds,
+            @AuthenticationPrincipal AuthenticatedUser principal) {
 
-        playlist.addTrack(track);
-        Playlist updatedPlaylist = playlistRepository.save(playlist);
+        requireOwner(playlistId, principal);
+        playlistTrackService.addTracks(playlistId, trackIds);
 
-        return ResponseEntity.ok(convertToResponse(updatedPlaylist, true));
+        return ResponseEntity.ok(loadResponse(playlistId));
     }
 
     @DeleteMapping("/{playlistId}/tracks/{trackId}")
     public ResponseEntity<PlaylistResponse> removeTrackFromPlaylist(
             @PathVariable Long playlistId,
-            @PathVariable Long trackId) {
+            @PathVariable Long trackId,
+            @AuthenticationPrincipal AuthenticatedUser principal) {
 
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = getUserByUsername(username);
-
-        Playlist playlist = playlistRepository.findById(playlistId)
-                .orElseThrow(() -> new RuntimeException("Playlist not found"));
+        requireOwner(playlistId, principal);
+        playlistTrackService.removeTracks(playlistId, List.of(trackId));
 
-        if (!playlist.getUser().getId().equals(user.getId())) {
-            throw new RuntimeException("Not authorized to modify this playlist");
-        }
+        return ResponseEntity.ok(loadResponse(playlistId));
+    }
 
-        Track track = trackRepository.findById(trackId)
-                .orElseThrow(() -> new RuntimeException("Track not found"));
+    @DeleteMapping("/{playlistId}/tracks")
+    public ResponseEntity<PlaylistResponse> removeTracksFromPlaylist(
+            @PathVariable Long playlistId,
+            @RequestBody List<Long> trackIds,
+            @AuthenticationPrincipal AuthenticatedUser principal) {
 
-        playlist.removeTrack(track);
-        Playlist updatedPlaylist = playlistRepository.save(playlist);
+        requireOwner(playlistId, principal);
+        playlistTrackService.removeTracks(playlistId, trackIds);
 
-        return ResponseEntity.ok(convertToResponse(updatedPlaylist, true));
+        return ResponseEntity.ok(loadResponse(playlistId));
     }
 
     @PostMapping("/{playlistId}/tracks/reorder")
     public ResponseEntity<PlaylistResponse> reorderTracks(
             @PathVariable Long playlistId,
-            @RequestBody List<Long> trackIds) {
+            @RequestBody List<Long> trackIds,
+            @AuthenticationPrincipal AuthenticatedUser principal) {
 
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = getUserByUsername(username);
+        requireOwner(playlistId, principal);
+        playlistTrackService.reorder(playlistId, trackIds);
 
-        Playlist playlist = playlistRepository.findById(playlistId)
-                .orElseThrow(() -> new RuntimeException("Playlist not found"));
-
-        if (!playlist.getUser().getId().equals(user.getId())) {
-            throw new RuntimeException("Not authorized to modify this playlist");
-        }
+        return ResponseEntity.ok(loadResponse(playlistId));
+    }
 
-        List<Track> reorderedTracks = trackIds.stream()
-                .map(trackId -> trackRepository.findById(trackId)
-                        .orElseThrow(() -> new RuntimeException("Track not found: " + trackId)))
-                .collect(Collectors.toList());
+    @PostMapping("/{playlistId}/tracks/{trackId}/move")
+    public ResponseEntity<PlaylistResponse> moveTrack(
+            @PathVariable Long playlistId,
+            @PathVariable Long trackId,
+            @RequestParam(required = false) Long after,
+            @AuthenticationPrincipal AuthenticatedUser principal) {
 
-        playlist.setTracks(reorderedTracks);
-        Playlist updatedPlaylist = playlistRepository.save(playlist);
+        // Bez parametru after utwór trafia na początek playlisty
+        requireOwner(playlistId, principal);
+        playlistTrackService.move(playlistId, trackId, after);
 
-        return ResponseEntity.ok(convertToResponse(updatedPlaylist, true));
+        return ResponseEntity.ok(loadResponse(playlistId));
     }
 
     @GetMapping("/user/my")
-    public ResponseEntity<List<PlaylistResponse>> getUserPlaylists() {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = getUserByUsername(username);
+    public ResponseEntity<List<PlaylistResponse>> getUserPlaylists(@AuthenticationPrincipal AuthenticatedUser principal) {
 
-        List<Playlist> playlists = playlistRepository.findByUserId(user.getId());
-        List<PlaylistResponse> responses = playlists.stream()
-                .map(playlist -> convertToResponse(playlist, false))
-                .collect(Collectors.toList());
+        List<PlaylistResponse> playlists = playlistRepository.findResponsesByUserId(principal.getId());
 
-        return ResponseEntity.ok(responses);
+        return ResponseEntity.ok(playlists);
     }
 
     @GetMapping("/user/{userId}")
     public ResponseEntity<List<PlaylistResponse>> getUserPublicPlaylists(@PathVariable Long userId) {
-        User user = userRepository.findById(userId)
+        PrincipalResolutionService.ResolvedUser user = principalResolutionService.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        List<Playlist> playlists = playlistRepository.findByUserId(user.getId());
-        List<PlaylistResponse> responses = playlists.stream()
-                .filter(Playlist::getIsPublic)
-                .map(playlist -> convertToResponse(playlist, false))
-                .collect(Collectors.toList());
+        List<PlaylistResponse> playlists = playlistRepository.findPublicResponsesByUserId(user.getId());
 
-        return ResponseEntity.ok(responses);
+        return ResponseEntity.ok(playlists);
     }
 
     @GetMapping("/explore/trending")
-    public ResponseEntity<List<PlaylistResponse>> getTrendingPlaylists(
-            @RequestParam(defaultValue = "20") int limit) {
+    public ResponseEntity<byte[]> getTrendingPlaylists(
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestHeader HttpHeaders headers) {
 
-        List<Playlist> playlists = playlistRepository.findTrendingPlaylists().stream()
-                .limit(limit)
-                .collect(Collectors.toList());
-
-        List<PlaylistResponse> responses = playlists.stream()
-                .map(playlist -> convertToResponse(playlist, false))
-                .collect(Collectors.toList());
-
-        return ResponseEntity.ok(responses);
+        int count = Math.max(1, Math.min(limit, MAX_EXPLORE_LIMIT));
+        return exploreCacheService.serve(ExploreCacheService.Scope.PLAYLISTS, "trending?limit=" + count, headers,
+                () -> findTrending(count));
     }
 
     @GetMapping("/explore/new")
-    public ResponseEntity<List<PlaylistResponse>> getNewPlaylists(
-            @RequestParam(defaultValue = "20") int limit) {
+    public ResponseEntity<byte[]> getNewPlaylists(
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestHeader HttpHeaders headers) {
 
-        List<Playlist> playlists = playlistRepository.findNewestPlaylists().stream()
-                .limit(limit)
-                .collect(Collectors.toList());
-
-        List<PlaylistResponse> responses = playlists.stream()
-                .map(playlist -> convertToResponse(playlist, false))
-                .collect(Collectors.toList());
-
-        return ResponseEntity.ok(responses);
+        int count = Math.max(1, Math.min(limit, MAX_EXPLORE_LIMIT));
+        return exploreCacheService.serve(ExploreCacheService.Scope.PLAYLISTS, "new?limit=" + count, headers,
+                () -> playlistRepository.findNewestPlaylists(limitOf(count)));
     }
 
     @GetMapping("/explore/top")
-    public ResponseEntity<List<PlaylistResponse>> getTopPlaylists(
-            @RequestParam(defaultValue = "20") int limit) {
-
-        List<Playlist> playlists = playlistRepository.findTopPlaylists().stream()
-                .limit(limit)
-                .collect(Collectors.toList());
-
-        List<PlaylistResponse> responses = playlists.stream()
-                .map(playlist -> convertToResponse(playlist, false))
-                .collect(Collectors.toList());
+    public ResponseEntity<byte[]> getTopPlaylists(
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestHeader HttpHeaders headers) {
 
-        return ResponseEntity.ok(responses);
+        int count = Math.max(1, Math.min(limit, MAX_EXPLORE_LIMIT));
+        return exploreCacheService.serve(ExploreCacheService.Scope.PLAYLISTS, "top?limit=" + count, headers,
+                () -> playlistRepository.findTopPlaylists(limitOf(count)));
     }
 
     @GetMapping("/explore/search")
@@ -267,105 +280,89 @@ public class PlaylistController {
             @RequestParam String query,
             @RequestParam(defaultValue = "20") int limit) {
 
-        List<Playlist> playlists = playlistRepository
-                .findByIsPublicTrueAndNameContainingIgnoreCase(query).stream()
-                .limit(limit)
-                .collect(Collectors.toList());
+        // Indeks odwrócony zamiast LIKE '%q%' po całej tabeli
+        List<Long> ids = searchIndexService.search(query, SearchIndexService.DocType.PLAYLIST, 0,
+                Math.max(1, Math.min(limit, MAX_EXPLORE_LIMIT))).getIds();
+        Map<Long, PlaylistResponse> byId = ids.isEmpty() ? Map.of() :
+                playlistRepository.findResponsesByIdIn(ids).stream()
+                        .collect(Collectors.toMap(PlaylistResponse::getId, playlist -> playlist));
 
-        List<PlaylistResponse> responses = playlists.stream()
-                .map(playlist -> convertToResponse(playlist, false))
+        List<PlaylistResponse> playlists = ids.stream()
+                .map(byId::get)
+                .filter(playlist -> playlist != null && playlist.getIsPublic())
                 .collect(Collectors.toList());
 
-        return ResponseEntity.ok(responses);
+        return ResponseEntity.ok(playlists);
     }
 
     @PostMapping("/{playlistId}/like")
     public ResponseEntity<Void> likePlaylist(@PathVariable Long playlistId) {
-        Playlist playlist = playlistRepository.findById(playlistId)
+        Boolean isPublic = playlistRepository.findIsPublicById(playlistId)
                 .orElseThrow(() -> new RuntimeException("Playlist not found"));
 
-        if (!playlist.getIsPublic()) {
+        if (!isPublic) {
             throw new RuntimeException("Cannot like private playlist");
         }
 
-        playlist.setLikes(playlist.getLikes() + 1);
-        playlistRepository.save(playlist);
+        engagementCounterService.increment(EngagementCounterService.Counter.PLAYLIST_LIKES, playlistId);
+        trendingService.recordPlaylistLike(playlistId);
 
         return ResponseEntity.ok().build();
     }
 
     @PostMapping("/{playlistId}/play")
     public ResponseEntity<Void> incrementPlayCount(@PathVariable Long playlistId) {
-        Playlist playlist = playlistRepository.findById(playlistId)
+        Boolean isPublic = playlistRepository.findIsPublicById(playlistId)
                 .orElseThrow(() -> new RuntimeException("Playlist not found"));
 
-        playlist.setPlays(playlist.getPlays() + 1);
-        playlistRepository.save(playlist);
+        engagementCounterService.increment(EngagementCounterService.Counter.PLAYLIST_PLAYS, playlistId);
+        if (isPublic) {
+            trendingService.recordPlaylistPlay(playlistId);
+        }
 
         return ResponseEntity.ok().build();
     }
 
 
-    private User getUserByUsername(String username) {
-        return userRepository
-                .findByUsername(username)
-                .or(() -> userRepository.findByEmail(username))
-                .orElseThrow(() -> new RuntimeException("User not found"));
-    }
+    private void requireOwner(Long playlistId, AuthenticatedUser principal) {
+        Playlist playlist = playlistRepository.findById(playlistId)
+                .orElseThrow(() -> new RuntimeException("Playlist not found"));
 
-    private PlaylistResponse convertToResponse(Playlist playlist, boolean includeTracks) {
-        PlaylistResponse response = new PlaylistResponse();
-        response.setId(playlist.getId());
-        response.setName(playlist.getName());
-        response.setDescription(playlist.getDescription());
-        response.setIsPublic(playlist.getIsPublic());
-        response.setCoverImageUrl(playlist.getCoverImageUrl());
-        response.setTrackCount(playlist.getTrackCount());
-        response.setTotalDuration(playlist.getTotalDuration());
-        response.setPlays(playlist.getPlays());
-        response.setLikes(playlist.getLikes());
-        response.setCreatedAt(playlist.getCreatedAt());
-        response.setUpdatedAt(playlist.getUpdatedAt());
-
-        if (playlist.getUser() != null) {
-            response.setUserId(playlist.getUser().getId());
-            response.setUsername(playlist.getUser().getUsername());
+        if (!playlist.getUser().getId().equals(principal.getId())) {
+            throw new RuntimeException("Not authorized to modify this playlist");
         }
+    }
 
-        if (includeTracks && playlist.getTracks() != null) {
-            List<TrackResponse> trackResponses = playlist.getTracks().stream()
-                    .map(this::convertTrackToResponse)
-                    .collect(Collectors.toList());
-            response.setTracks(trackResponses);
-        }
+    private List<PlaylistResponse> findTrending(int limit) {
+        // Bierzemy z zapasem, żeby odfiltrowane prywatne playlisty nie skracały odpowiedzi
+        List<Long> ids = trendingService.topPlaylists(limit * 2);
+        Map<Long, PlaylistResponse> byId = ids.isEmpty() ? Map.of() :
+                playlistRepository.findResponsesByIdIn(ids).stream()
+                        .collect(Collectors.toMap(PlaylistResponse::getId, playlist -> playlist));
+
+        // Ranking mógł zawierać playlistę, która od tego czasu stała się prywatna
+        List<PlaylistResponse> playlists = ids.stream()
+                .map(byId::get)
+                .filter(playlist -> playlist != null && playlist.getIsPublic())
+                .limit(limit)
+                .collect(Collectors.toList());
 
-        return response;
+        if (playlists.isEmpty()) {
+            // Zimny start silnika trendów
+            playlists = playlistRepository.findTrendingPlaylists(limitOf(limit));
+        }
+        return playlists;
     }
 
-    private TrackResponse convertTrackToResponse(Track track) {
-        TrackResponse response = new TrackResponse();
-        response.setId(track.getId());
-        response.setTitle(track.getTitle());
-        response.setArtist(track.getArtist());
-        response.setAlbum(track.getAlbum());
-        response.setDuration(track.getDuration());
-        response.setFileUrl(track.getFileUrl());
-        response.setFileSize(track.getFileSize());
-        response.setMimeType(track.getMimeType());
-        response.setBitrate(track.getBitrate());
-        response.setGenre(track.getGenre());
-        response.setYear(track.getYear());
-        response.setCoverUrl(track.getCoverUrl());
-        response.setPlays(track.getPlays());
-        response.setLikes(track.getLikes());
-        response.setCreatedAt(track.getCreatedAt());
-        response.setUpdatedAt(track.getUpdatedAt());
-
-        if (track.getUser() != null) {
-            response.setUserId(track.getUser().getId());
-            response.setUsername(track.getUser().getUsername());
-        }
+    private Pageable limitOf(int limit) {
+        return PageRequest.of(0, limit);
+    }
 
+    private PlaylistResponse loadResponse(Long playlistId) {
+        PlaylistResponse response = playlistRepository.findResponseById(playlistId)
+                .orElseThrow(() -> new RuntimeException("Playlist not found"));
+        // Utwory z nazwami autorów jednym zapytaniem, w kolejności kolumny position
+        response.setTracks(trackRepository.findResponsesByPlaylistId(playlistId));
         return response;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,108 @@
+package com.audtream.server.controller;
+
+import com.audtream.server.model.dto.PlaylistResponse;
+import com.audtream.server.model.dto.SearchResponse;
+import com.audtream.server.model.dto.SuggestionResponse;
+import com.audtream.server.model.dto.TrackResponse;
+import com.audtream.server.model.repository.PlaylistRepository;
+import com.audtream.server.model.repository.TrackRepository;
+import com.audtream.server.service.SearchIndexService;
+import com.audtream.server.service.SuggestionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/search")
+@CrossOrigin(origins = "http://localhost:5173")
+public class SearchController {
+
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_SUGGESTIONS = 20;
+
+    @Autowired
+    private SearchIndexService searchIndexService;
+
+    @Autowired
+    private SuggestionService suggestionService;
+
+    @Autowired
+    private TrackRepository trackRepository;
+
+    @Autowired
+    private PlaylistRepository playlistRepository;
+
+    @GetMapping
+    public ResponseEntity<SearchResponse> search(
+            @RequestParam String q,
+            @RequestParam(required = false, defaultValue = "all") String type,
+            @RequestParam(required = false, defaultValue = "0") int page,
+            @RequestParam(required = false, defaultValue = "20") int size) {
+
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        int pageNumber = Math.max(0, page);
+        // Iloczyn w long - dla absurdalnie dalekiej strony int przekręciłby się na ujemny offset
+        int offset = (int) Math.min((long) pageNumber * pageSize, Integer.MAX_VALUE);
+        SearchResponse response = new SearchResponse(q, pageNumber, pageSize);
+
+        if (!type.equalsIgnoreCase("playlists")) {
+            SearchIndexService.SearchHits hits = searchIndexService.search(
+                    q, SearchIndexService.DocType.TRACK, offset, pageSize);
+            response.setTotalTracks(hits.getTotal());
+            response.setTracks(loadTracks(hits.getIds()));
+        }
+        if (!type.equalsIgnoreCase("tracks")) {
+            SearchIndexService.SearchHits hits = searchIndexService.search(
+                    q, SearchIndexService.DocType.PLAYLIST, offset, pageSize);
+            response.setTotalPlaylists(hits.getTotal());
+            response.setPlaylists(loadPlaylists(hits.getIds()));
+        }
+
+        return ResponseEntity.ok(response);
+    }
+
+    // Podpowiedzi w trakcie pisania - odpowiedź w całości z pamięci, bez zapytań do bazy
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionResponse>> suggest(
+            @RequestParam String prefix,
+            @RequestParam(required = false, defaultValue = "10") int limit) {
+
+        int count = Math.max(1, Math.min(limit, MAX_SUGGESTIONS));
+        List<SuggestionResponse> suggestions = suggestionService.suggest(prefix, count).stream()
+                .map(suggestion -> new SuggestionResponse(suggestion.getText(),
+                        suggestion.getKind().name().toLowerCase(), suggestion.getId()))
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(suggestions);
+    }
+
+    // Indeks zwraca tylko identyfikatory w kolejności trafności - dane dociągamy jednym zapytaniem
+    private List<TrackResponse> loadTracks(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, TrackResponse> byId = trackRepository.findResponsesByIdIn(ids).stream()
+                .collect(Collectors.toMap(TrackResponse::getId, track -> track));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private List<PlaylistResponse> loadPlaylists(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, PlaylistResponse> byId = playlistRepository.findResponsesByIdIn(ids).stream()
+                .collect(Collectors.toMap(PlaylistResponse::getId, playlist -> playlist));
+        // Playlista mogła stać się prywatna między aktualizacją indeksu a tym zapytaniem
+        return ids.stream()
+                .map(byId::get)
+                .filter(playlist -> playlist != null && playlist.getIsPublic())
+                .collect(Collectors.toList());
+    }
+}
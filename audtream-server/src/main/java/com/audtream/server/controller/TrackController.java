@@ -1,24 +1,52 @@
 package com.audtream.server.controller;
 
+import com.audtream.server.model.dto.IngestJobResponse;
+import com.audtream.server.model.dto.StreamResponse;
+import com.audtream.server.model.dto.TrackPageResponse;
 import com.audtream.server.model.dto.TrackRequest;
 import com.audtream.server.model.dto.TrackResponse;
+import com.audtream.server.model.dto.TrackUrlResponse;
+import com.audtream.server.model.entity.IngestJob;
 import com.audtream.server.model.entity.Track;
 import com.audtream.server.model.entity.User;
 import com.audtream.server.model.repository.TrackRepository;
 import com.audtream.server.model.repository.UserRepository;
-import com.audtream.server.service.AudioAnalysisService;
+import com.audtream.server.security.AuthenticatedUser;
+import com.audtream.server.service.AudioStreamingService;
+import com.audtream.server.service.CoverArtService;
+import com.audtream.server.service.EngagementCounterService;
+import com.audtream.server.service.ExploreCacheService;
 import com.audtream.server.service.FileStorageService;
+import com.audtream.server.service.IngestJobService;
+import com.audtream.server.service.PlaylistTrackService;
+import com.audtream.server.service.PresignedUrlService;
+import com.audtream.server.service.StoredObjectService;
+import com.audtream.server.service.TranscodingService;
+import com.audtream.server.service.TrendingService;
+import com.audtream.server.service.WaveformService;
+import com.audtream.server.util.TrackCursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @RestController
@@ -26,6 +54,13 @@ import java.util.stream.Collectors;
 @CrossOrigin(origins = "http://localhost:5173")
 public class TrackController {
 
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int MAX_URL_BATCH = 100;
+
+    // Wartości graniczne dla pierwszej strony - mieszczą się w zakresie DATETIME MySQL
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1000, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
     @Autowired
     private TrackRepository trackRepository;
 
@@ -36,177 +71,195 @@ public class TrackController {
     private FileStorageService fileStorageService;
 
     @Autowired
-    private AudioAnalysisService audioAnalysisService;
+    private IngestJobService ingestJobService;
+
+    @Autowired
+    private StoredObjectService storedObjectService;
+
+    @Autowired
+    private AudioStreamingService audioStreamingService;
+
+    @Autowired
+    private EngagementCounterService engagementCounterService;
+
+    @Autowired
+    private TrendingService trendingService;
+
+    @Autowired
+    private PlaylistTrackService playlistTrackService;
+
+    @Autowired
+    private ExploreCacheService exploreCacheService;
+
+    @Autowired
+    private TranscodingService transcodingService;
+
+    @Autowired
+    private WaveformService waveformService;
+
+    @Autowired
+    private CoverArtService coverArtService;
+
+    @Autowired
+    private PresignedUrlService presignedUrlService;
 
     @GetMapping("/all")
-    public ResponseEntity<List<TrackResponse>> getAllTracks(
+    public ResponseEntity<TrackPageResponse> getAllTracks(
             @RequestParam(required = false) String genre,
-            @RequestParam(required = false, defaultValue = "newest") String sort) {
+            @RequestParam(required = false, defaultValue = "newest") String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "50") int limit) {
 
-        List<Track> tracks;
+        String sortMode = sort.toLowerCase();
+        if (!List.of("popular", "newest", "oldest", "liked").contains(sortMode)) {
+            sortMode = "newest";
+        }
+        boolean byGenre = genre != null && !genre.isEmpty() && !genre.equalsIgnoreCase("all");
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
 
-        if (genre != null && !genre.isEmpty() && !genre.equalsIgnoreCase("all")) {
-            tracks = trackRepository.findByGenre(genre);
-        } else {
-            tracks = trackRepository.findAll();
+        TrackCursor position;
+        try {
+            position = cursor != null && !cursor.isEmpty() ? TrackCursor.decode(cursor, sortMode) : null;
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         }
 
-        switch (sort.toLowerCase()) {
-            case "popular":
-                tracks.sort((a, b) -> b.getPlays().compareTo(a.getPlays()));
+        // Pobieramy jeden rekord więcej, żeby wiedzieć, czy istnieje następna strona
+        Pageable page = PageRequest.of(0, pageSize + 1);
+        long afterId = position != null ? position.getId() : ("oldest".equals(sortMode) ? 0L : Long.MAX_VALUE);
+        List<TrackResponse> tracks;
+
+        switch (sortMode) {
+            case "popular": {
+                int plays = position != null ? (int) position.longKey() : Integer.MAX_VALUE;
+                tracks = byGenre ?
+                        trackRepository.findPopularByGenreAfter(genre, plays, afterId, page) :
+                        trackRepository.findPopularAfter(plays, afterId, page);
                 break;
-            case "newest":
-                tracks.sort((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()));
-                break;
-            case "oldest":
-                tracks.sort((a, b) -> a.getCreatedAt().compareTo(b.getCreatedAt()));
+            }
+            case "liked": {
+                int likes = position != null ? (int) position.longKey() : Integer.MAX_VALUE;
+                tracks = byGenre ?
+                        trackRepository.findLikedByGenreAfter(genre, likes, afterId, page) :
+                        trackRepository.findLikedAfter(likes, afterId, page);
                 break;
-            case "liked":
-                tracks.sort((a, b) -> b.getLikes().compareTo(a.getLikes()));
+            }
+            case "oldest": {
+                LocalDateTime createdAt = position != null ? position.timeKey() : EARLIEST;
+                tracks = byGenre ?
+                        trackRepository.findOldestByGenreAfter(genre, createdAt, afterId, page) :
+                        trackRepository.findOldestAfter(createdAt, afterId, page);
                 break;
-            default:
-                tracks.sort((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()));
+            }
+            default: {
+                LocalDateTime createdAt = position != null ? position.timeKey() : LATEST;
+                tracks = byGenre ?
+                        trackRepository.findNewestByGenreAfter(genre, createdAt, afterId, page) :
+                        trackRepository.findNewestAfter(createdAt, afterId, page);
+            }
         }
 
-        List<TrackResponse> responses = tracks.stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+        String nextCursor = null;
+        if (tracks.size() > pageSize) {
+            tracks = tracks.subList(0, pageSize);
+            TrackResponse last = tracks.get(pageSize - 1);
+            if ("popular".equals(sortMode)) {
+                nextCursor = TrackCursor.of(sortMode, last.getPlays(), last.getId()).encode();
+            } else if ("liked".equals(sortMode)) {
+                nextCursor = TrackCursor.of(sortMode, last.getLikes(), last.getId()).encode();
+            } else {
+                nextCursor = TrackCursor.of(sortMode, last.getCreatedAt(), last.getId()).encode();
+            }
+        }
 
-        return ResponseEntity.ok(responses);
+        return ResponseEntity.ok(new TrackPageResponse(tracks, nextCursor, pageSize));
     }
 
     @GetMapping("/recommended")
-    public ResponseEntity<List<TrackResponse>> getRecommendedTracks(
-            @RequestParam(required = false, defaultValue = "20") int limit) {
-
-        LocalDateTime thirtyDaysAgo = LocalDateTime.now().minusDays(30);
+    public ResponseEntity<byte[]> getRecommendedTracks(
+            @RequestParam(required = false, defaultValue = "20") int limit,
+            @RequestHeader HttpHeaders headers) {
 
-        List<Track> allTracks = trackRepository.findAll();
-
-        List<Track> recommended = allTracks.stream()
-                .filter(track -> track.getCreatedAt().isAfter(thirtyDaysAgo))
-                .sorted((a, b) -> b.getPlays().compareTo(a.getPlays()))
-                .limit(limit)
-                .collect(Collectors.toList());
+        int count = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        return exploreCacheService.serve(ExploreCacheService.Scope.TRACKS, "recommended?limit=" + count, headers,
+                () -> findRecommended(count));
+    }
 
-        List<TrackResponse> responses = recommended.stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+    @GetMapping("/trending")
+    public ResponseEntity<List<TrackResponse>> getTrendingTracks(
+            @RequestParam(required = false) String genre,
+            @RequestParam(required = false, defaultValue = "20") int limit) {
 
-        return ResponseEntity.ok(responses);
+        return ResponseEntity.ok(findTrending(genre, limit));
     }
 
     @GetMapping("/new-releases")
-    public ResponseEntity<List<TrackResponse>> getNewReleases(
-            @RequestParam(required = false, defaultValue = "20") int limit) {
+    public ResponseEntity<byte[]> getNewReleases(
+            @RequestParam(required = false, defaultValue = "20") int limit,
+            @RequestHeader HttpHeaders headers) {
 
+        int count = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
         LocalDateTime sevenDaysAgo = LocalDateTime.now().minusDays(7);
-
-        List<Track> newTracks = trackRepository.findAll().stream()
-                .filter(track -> track.getCreatedAt().isAfter(sevenDaysAgo))
-                .sorted((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()))
-                .limit(limit)
-                .collect(Collectors.toList());
-
-        List<TrackResponse> responses = newTracks.stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
-
-        return ResponseEntity.ok(responses);
+        return exploreCacheService.serve(ExploreCacheService.Scope.TRACKS, "new-releases?limit=" + count, headers,
+                () -> trackRepository.findNewestTracks(sevenDaysAgo, limitOf(count)));
     }
 
     @GetMapping("/top")
-    public ResponseEntity<List<TrackResponse>> getTopTracks(
-            @RequestParam(required = false, defaultValue = "50") int limit) {
-
-        List<Track> topTracks = trackRepository.findAll().stream()
-                .sorted((a, b) -> b.getPlays().compareTo(a.getPlays()))
-                .limit(limit)
-                .collect(Collectors.toList());
-
-        List<TrackResponse> responses = topTracks.stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+    public ResponseEntity<byte[]> getTopTracks(
+            @RequestParam(required = false, defaultValue = "50") int limit,
+            @RequestHeader HttpHeaders headers) {
 
-        return ResponseEntity.ok(responses);
+        int count = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        return exploreCacheService.serve(ExploreCacheService.Scope.TRACKS, "top?limit=" + count, headers,
+                () -> trackRepository.findTopTracks(limitOf(count)));
     }
 
     @GetMapping
-    public ResponseEntity<List<TrackResponse>> getUserTracks() {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = userRepository
-                .findByUsername(username)
-                .or(() -> userRepository.findByEmail(username))
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
+    public ResponseEntity<List<TrackResponse>> getUserTracks(@AuthenticationPrincipal AuthenticatedUser principal) {
+        List<TrackResponse> tracks = trackRepository.findResponsesByUserId(principal.getId());
 
-        List<Track> tracks = trackRepository.findByUserId(user.getId());
-
-        List<TrackResponse> responses = tracks.stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
-
-        return ResponseEntity.ok(responses);
+        return ResponseEntity.ok(tracks);
     }
 
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<TrackResponse> createTrack(
+    public ResponseEntity<IngestJobResponse> createTrack(
             @RequestPart("audioFile") MultipartFile audioFile,
             @RequestPart(value = "coverImage", required = false) MultipartFile coverImage,
-            @RequestPart("metadata") TrackRequest trackRequest) {
-
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = userRepository
-                .findByUsername(username)
-                .or(() -> userRepository.findByEmail(username))
-                .orElseThrow(() -> new RuntimeException("User not found"));
+            @RequestPart("metadata") TrackRequest trackRequest,
+            @AuthenticationPrincipal AuthenticatedUser principal) {
 
+        // Referencja bez zapytania - encja jest potrzebna tylko jako klucz obcy
+        User user = userRepository.getReferenceById(principal.getId());
 
         try {
-            AudioAnalysisService.AudioMetadata audioMetadata =
-                    audioAnalysisService.extractMetadata(audioFile);
-
-            String audioFileName = trackRequest.getTitle() != null ?
-                    trackRequest.getTitle() : audioFile.getOriginalFilename();
-            String audioFileUrl = fileStorageService.uploadAudioFile(audioFile, audioFileName);
-
-            String coverUrl = null;
-            if (coverImage != null && !coverImage.isEmpty()) {
-                String coverFileName = trackRequest.getTitle() != null ?
-                        trackRequest.getTitle() + "_cover" : "cover";
-                coverUrl = fileStorageService.uploadCoverImage(coverImage, coverFileName);
-            }
+            IngestJob job = ingestJobService.submit(user, audioFile, coverImage, trackRequest);
 
-            Track track = new Track();
-            track.setTitle(trackRequest.getTitle() != null ?
-                    trackRequest.getTitle() : audioMetadata.getTitle());
-            track.setArtist(trackRequest.getArtist() != null ?
-                    trackRequest.getArtist() : audioMetadata.getArtist());
-            track.setAlbum(trackRequest.getAlbum() != null ?
-                    trackRequest.getAlbum() : audioMetadata.getAlbum());
-            track.setDuration(trackRequest.getDuration() != null ?
-                    trackRequest.getDuration() : audioMetadata.getDuration().intValue());
-            track.setGenre(trackRequest.getGenre() != null ?
-                    trackRequest.getGenre() : audioMetadata.getGenre());
-            track.setYear(audioMetadata.getYear());
-            track.setFileUrl(audioFileUrl);
-            track.setFileSize(audioMetadata.getFileSize());
-            track.setMimeType(audioMetadata.getMimeType());
-            track.setBitrate(audioMetadata.getBitrate());
-            track.setCoverUrl(coverUrl);
-            track.setUser(user);
-
-            Track savedTrack = trackRepository.save(track);
-
-            return ResponseEntity.ok(convertToResponse(savedTrack));
+            return ResponseEntity.accepted()
+                    .header("Location", "/api/tracks/jobs/" + job.getId())
+                    .body(convertJobToResponse(job));
 
         } catch (Exception e) {
             throw new RuntimeException("Failed to upload track: " + e.getMessage(), e);
         }
     }
 
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<IngestJobResponse> getIngestJob(@PathVariable Long jobId,
+                                                          @AuthenticationPrincipal AuthenticatedUser principal) {
+        IngestJob job = ingestJobService.getJob(jobId);
+
+        if (!job.getUserId().equals(principal.getId())) {
+            throw new RuntimeException("Not authorized to view this job");
+        }
+
+        return ResponseEntity.ok(convertJobToResponse(job));
+    }
+
     @GetMapping("/stream/{trackId}")
-    public ResponseEntity<?> streamTrack(@PathVariable Long trackId) {
+    public ResponseEntity<?> streamTrack(
+            @PathVariable Long trackId,
+            @RequestParam(required = false, defaultValue = "proxy") String mode,
+            @RequestHeader HttpHeaders headers) {
         Track track = trackRepository.findById(trackId)
                 .orElseThrow(() -> new RuntimeException("Track not found"));
 
@@ -217,41 +270,118 @@ public class TrackController {
                         .build();
             }
             String objectName = extractObjectNameFromUrl(track.getFileUrl());
-            String presignedUrl = fileStorageService.getPresignedUrl(objectName, 3600);
+            String manifestUrl = transcodingService.findManifestUrl(track);
+
+            if (manifestUrl != null && mode.equalsIgnoreCase("hls")) {
+                return ResponseEntity.status(302)
+                        .header("Location", manifestUrl)
+                        .build();
+            }
+
+            if (!mode.equalsIgnoreCase("redirect")) {
+                ResponseEntity<StreamingResponseBody> response =
+                        audioStreamingService.stream(objectName, track.getMimeType(), headers);
+                if (manifestUrl == null) {
+                    return response;
+                }
+                // Klient obsługujący HLS może przejść na drabinę jakości zamiast oryginału
+                HttpHeaders withManifest = new HttpHeaders();
+                withManifest.putAll(response.getHeaders());
+                withManifest.add(HttpHeaders.LINK, "<" + manifestUrl + ">; rel=\"alternate\"; type=\"" +
+                        TranscodingService.HLS_CONTENT_TYPE + "\"");
+                return new ResponseEntity<>(response.getBody(), withManifest, response.getStatusCode());
+            }
+
+            PresignedUrlService.PresignedUrl presignedUrl = presignedUrlService.get(objectName);
 
             return ResponseEntity.status(302)
-                    .header("Location", presignedUrl)
+                    .cacheControl(cacheUntilRenewal(presignedUrl))
+                    .header("Location", presignedUrl.getUrl())
                     .build();
         } catch (Exception e) {
             throw new RuntimeException("Failed to stream track", e);
         }
     }
-    @DeleteMapping("/{trackId}")
-    public ResponseEntity<Void> deleteTrack(@PathVariable Long trackId) {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = userRepository
-                .findByUsername(username)
-                .or(() -> userRepository.findByEmail(username))
-                .orElseThrow(() -> new RuntimeException("User not found"));
 
+    @GetMapping("/stream/{trackId}/info")
+    public ResponseEntity<StreamResponse> getStreamInfo(@PathVariable Long trackId) {
+        Track track = trackRepository.findById(trackId)
+                .orElseThrow(() -> new RuntimeException("Track not found"));
+
+        try {
+            String objectName = extractObjectNameFromUrl(track.getFileUrl());
+            StreamResponse response = audioStreamingService.describe(
+                    track, objectName, "/api/tracks/stream/" + trackId);
+            response.setManifestUrl(transcodingService.findManifestUrl(track));
+            response.setRenditions(transcodingService.findRenditions(trackId));
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to get stream info", e);
+        }
+    }
+
+    @GetMapping("/{trackId}/peaks")
+    public ResponseEntity<byte[]> getPeaks(@PathVariable Long trackId,
+                                           @RequestParam(required = false, defaultValue = "1024") int resolution,
+                                           @RequestHeader HttpHeaders headers) {
+        Track track = trackRepository.findById(trackId)
+                .orElseThrow(() -> new RuntimeException("Track not found"));
+
+        try {
+            String objectName = extractObjectNameFromUrl(track.getFileUrl());
+            Optional<byte[]> blob = waveformService.load(objectName);
+            if (blob.isEmpty()) {
+                // Szczyty jeszcze nie policzone (np. utwór sprzed tej funkcji) - zlecamy i odsyłamy 404
+                waveformService.submit(trackId);
+                return ResponseEntity.notFound().build();
+            }
+
+            WaveformService.Level level = waveformService.selectLevel(blob.get(), Math.max(1, resolution));
+            // Szczyty zależą tylko od zawartości pliku, więc odpowiedź nigdy się nie zmienia
+            String etag = "\"" + waveformService.versionOf(track.getContentHash(), blob.get())
+                    + "-" + level.getSamplesPerBucket() + "\"";
+            HttpHeaders responseHeaders = new HttpHeaders();
+            responseHeaders.setETag(etag);
+            responseHeaders.setCacheControl("public, max-age=31536000, immutable");
+            if (headers.getIfNoneMatch().contains(etag)) {
+                return ResponseEntity.status(304).headers(responseHeaders).build();
+            }
 
+            byte[] body = level.toBytes();
+            responseHeaders.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+            responseHeaders.setContentLength(body.length);
+            return ResponseEntity.ok().headers(responseHeaders).body(body);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to load waveform peaks", e);
+        }
+    }
+
+    @DeleteMapping("/{trackId}")
+    public ResponseEntity<Void> deleteTrack(@PathVariable Long trackId,
+                                            @AuthenticationPrincipal AuthenticatedUser principal) {
         Track track = trackRepository.findById(trackId)
                 .orElseThrow(() -> new RuntimeException("Track not found"));
 
-        if (!track.getUser().getId().equals(user.getId())) {
+        if (!track.getUser().getId().equals(principal.getId())) {
             throw new RuntimeException("Not authorized to delete this track");
         }
 
         try {
-            String audioObjectName = extractObjectNameFromUrl(track.getFileUrl());
-            fileStorageService.deleteFile(audioObjectName);
-
-            if (track.getCoverUrl() != null) {
-                String coverObjectName = extractObjectNameFromUrl(track.getCoverUrl());
-                fileStorageService.deleteFile(coverObjectName);
+            if (track.getContentHash() != null) {
+                // Obiekt współdzielony - usuwamy go dopiero, gdy zniknie ostatnia referencja
+                storedObjectService.release(track.getContentHash());
+            } else if (!"PENDING_UPLOAD".equals(track.getFileUrl())) {
+                String audioObjectName = extractObjectNameFromUrl(track.getFileUrl());
+                fileStorageService.deleteFile(audioObjectName);
+                fileStorageService.deletePrefix(fileStorageService.derivedPrefix(audioObjectName));
             }
+            transcodingService.deleteRenditions(trackId);
 
+            coverArtService.releaseCover(track.getCoverUrl());
+
+            playlistTrackService.detachTrack(track);
             trackRepository.delete(track);
+            trendingService.removeTrack(trackId);
 
             return ResponseEntity.noContent().build();
         } catch (Exception e) {
@@ -261,18 +391,10 @@ public class TrackController {
 
     @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<TrackResponse> createTrackJson(
-            @RequestBody TrackRequest trackRequest) {
-
-        String username = SecurityContextHolder
-                .getContext()
-                .getAuthentication()
-                .getName();
-
-        User user = userRepository
-                .findByUsername(username)
-                .or(() -> userRepository.findByEmail(username))
-                .orElseThrow(() -> new RuntimeException("User not found"));
+            @RequestBody TrackRequest trackRequest,
+            @AuthenticationPrincipal AuthenticatedUser principal) {
 
+        User user = userRepository.getReferenceById(principal.getId());
 
         Track track = new Track();
         track.setTitle(trackRequest.getTitle());
@@ -292,6 +414,34 @@ public class TrackController {
         return ResponseEntity.ok(convertToResponse(saved));
     }
 
+    private List<TrackResponse> findTrending(String genre, int limit) {
+        List<Long> ids = trendingService.topTracks(genre, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, TrackResponse> byId = trackRepository.findResponsesByIdIn(ids).stream()
+                .collect(Collectors.toMap(TrackResponse::getId, track -> track));
+
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private List<TrackResponse> findRecommended(int limit) {
+        List<TrackResponse> recommended = findTrending(null, limit);
+        if (recommended.isEmpty()) {
+            // Zimny start silnika trendów - wracamy do najpopularniejszych z ostatnich 30 dni
+            LocalDateTime thirtyDaysAgo = LocalDateTime.now().minusDays(30);
+            recommended = trackRepository.findPopularSince(thirtyDaysAgo, limitOf(limit));
+        }
+        return recommended;
+    }
+
+    private Pageable limitOf(int limit) {
+        return PageRequest.of(0, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+    }
+
     private String extractObjectNameFromUrl(String url) {
         if (url.startsWith("http")) {
             // Usuń parametry query jeśli istnieją
@@ -331,39 +481,98 @@ public class TrackController {
             // 2. Wyciągnij objectName z vanilla URL
             String objectName = extractObjectNameFromUrl(vanillaUrl);
 
-            // 3. Wygeneruj NOWY pre-signed URL
-            String presignedUrl = fileStorageService.getPresignedUrl(objectName, 3600);
+            // 3. Pre-signed URL z cache - ten sam adres aż do progu odnowienia
+            PresignedUrlService.PresignedUrl presignedUrl = presignedUrlService.get(objectName);
 
-            return ResponseEntity.ok(presignedUrl);
+            return ResponseEntity.ok()
+                    .cacheControl(cacheUntilRenewal(presignedUrl))
+                    .body(presignedUrl.getUrl());
         } catch (Exception e) {
             throw new RuntimeException("Failed to get track URL", e);
         }
     }
 
+    // Adresy dla całej kolejki odtwarzania w jednym żądaniu - kolejność jak w ids, brakujące utwory pomijamy
+    @GetMapping("/urls")
+    public ResponseEntity<List<TrackUrlResponse>> getTrackUrls(@RequestParam List<Long> ids) {
+        if (ids.size() > MAX_URL_BATCH) {
+            throw new RuntimeException("Too many track ids (max " + MAX_URL_BATCH + ")");
+        }
+
+        try {
+            Map<Long, Track> tracks = new HashMap<>();
+            for (Track track : trackRepository.findAllById(ids)) {
+                tracks.put(track.getId(), track);
+            }
+
+            List<TrackUrlResponse> urls = new ArrayList<>();
+            for (Long trackId : ids) {
+                Track track = tracks.get(trackId);
+                if (track == null || "PENDING_UPLOAD".equals(track.getFileUrl())) {
+                    continue;
+                }
+                if (track.getFileUrl().contains("?")) {
+                    urls.add(new TrackUrlResponse(trackId, track.getFileUrl(), null));
+                    continue;
+                }
+                PresignedUrlService.PresignedUrl presignedUrl =
+                        presignedUrlService.get(extractObjectNameFromUrl(track.getFileUrl()));
+                urls.add(new TrackUrlResponse(trackId, presignedUrl.getUrl(),
+                        LocalDateTime.ofInstant(Instant.ofEpochMilli(presignedUrl.getExpiresAt()), ZoneId.systemDefault())));
+            }
+            return ResponseEntity.ok(urls);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to get track URLs", e);
+        }
+    }
+
+    private CacheControl cacheUntilRenewal(PresignedUrlService.PresignedUrl presignedUrl) {
+        long seconds = Math.max(0, (presignedUrl.getRenewAt() - System.currentTimeMillis()) / 1000);
+        return CacheControl.maxAge(seconds, TimeUnit.SECONDS).cachePrivate();
+    }
+
 
     @PostMapping("/{trackId}/play")
     public ResponseEntity<Void> incrementPlayCount(@PathVariable Long trackId) {
-        Track track = trackRepository.findById(trackId)
+        TrackRepository.GenreView track = trackRepository.findGenreViewById(trackId)
                 .orElseThrow(() -> new RuntimeException("Track not found"));
 
-        track.setPlays(track.getPlays() + 1);
-        trackRepository.save(track);
+        engagementCounterService.increment(EngagementCounterService.Counter.TRACK_PLAYS, trackId);
+        trendingService.recordTrackPlay(trackId, track.getGenre());
 
         return ResponseEntity.ok().build();
     }
 
     @PostMapping("/{trackId}/like")
     public ResponseEntity<Void> toggleLike(@PathVariable Long trackId) {
-        Track track = trackRepository.findById(trackId)
+        TrackRepository.GenreView track = trackRepository.findGenreViewById(trackId)
                 .orElseThrow(() -> new RuntimeException("Track not found"));
 
-        track.setLikes(track.getLikes() + 1);
-        trackRepository.save(track);
+        engagementCounterService.increment(EngagementCounterService.Counter.TRACK_LIKES, trackId);
+        trendingService.recordTrackLike(trackId, track.getGenre());
 
         return ResponseEntity.ok().build();
     }
 
 
+    private IngestJobResponse convertJobToResponse(IngestJob job) {
+        IngestJobResponse response = new IngestJobResponse();
+        response.setId(job.getId());
+        response.setTrackId(job.getTrackId());
+        response.setStatus(job.getStatus());
+        response.setAttempts(job.getAttempts());
+        response.setErrorMessage(job.getErrorMessage());
+        response.setCreatedAt(job.getCreatedAt());
+        response.setUpdatedAt(job.getUpdatedAt());
+        response.setCompletedAt(job.getCompletedAt());
+
+        trackRepository.findResponsesByIdIn(List.of(job.getTrackId())).stream()
+                .findFirst()
+                .ifPresent(response::setTrack);
+
+        return response;
+    }
+
     private TrackResponse convertToResponse(Track track) {
         TrackResponse response = new TrackResponse();
         response.setId(track.getId());
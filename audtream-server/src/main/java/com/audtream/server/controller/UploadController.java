@@ -0,0 +1,195 @@
+package com.audtream.server.controller;
+
+import com.audtream.server.model.dto.*;
+import com.audtream.server.model.entity.Track;
+import com.audtream.server.model.entity.UploadSession;
+import com.audtream.server.model.entity.User;
+import com.audtream.server.model.repository.TrackRepository;
+import com.audtream.server.model.repository.UserRepository;
+import com.audtream.server.security.AuthenticatedUser;
+import com.audtream.server.util.AudioProbe;
+import com.audtream.server.service.AudioAnalysisService;
+import com.audtream.server.service.ChunkedUploadService;
+import com.audtream.server.service.TranscodingService;
+import com.audtream.server.service.WaveformService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/uploads")
+@CrossOrigin(origins = "http://localhost:5173")
+public class UploadController {
+
+    @Autowired
+    private ChunkedUploadService chunkedUploadService;
+
+    @Autowired
+    private AudioAnalysisService audioAnalysisService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TrackRepository trackRepository;
+
+    @Autowired
+    private TranscodingService transcodingService;
+
+    @Autowired
+    private WaveformService waveformService;
+
+    @PostMapping
+    public ResponseEntity<UploadSessionResponse> initUpload(
+            @Valid @RequestBody UploadInitRequest initRequest,
+            @AuthenticationPrincipal AuthenticatedUser principal) {
+        UploadSession session;
+        try {
+            session = chunkedUploadService.init(principal.getId(), initRequest);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(convertToResponse(session, List.of()));
+    }
+
+    @GetMapping("/{sessionId}")
+    public ResponseEntity<UploadSessionResponse> getUpload(
+            @PathVariable String sessionId,
+            @AuthenticationPrincipal AuthenticatedUser principal) {
+        UploadSession session = chunkedUploadService.getSession(sessionId, principal.getId());
+        return ResponseEntity.ok(convertToResponse(session, chunkedUploadService.listUploadedParts(session)));
+    }
+
+    @PutMapping("/{sessionId}/parts/{partNumber}")
+    public ResponseEntity<UploadPartResponse> uploadPart(
+            @PathVariable String sessionId,
+            @PathVariable int partNumber,
+            @RequestHeader(value = "Content-MD5", required = false) String contentMd5,
+            HttpServletRequest request,
+            @AuthenticationPrincipal AuthenticatedUser principal) {
+
+        UploadSession session = chunkedUploadService.getSession(sessionId, principal.getId());
+
+        try (InputStream body = request.getInputStream()) {
+            UploadPartResponse part = chunkedUploadService.uploadPart(
+                    session, partNumber, body, request.getContentLengthLong(), contentMd5);
+            return ResponseEntity.ok(part);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to upload part " + partNumber, e);
+        }
+    }
+
+    @PostMapping("/{sessionId}/complete")
+    public ResponseEntity<TrackResponse> completeUpload(
+            @PathVariable String sessionId,
+            @RequestBody TrackRequest trackRequest,
+            @AuthenticationPrincipal AuthenticatedUser principal) {
+
+        User user = userRepository.getReferenceById(principal.getId());
+        UploadSession session = chunkedUploadService.getSession(sessionId, principal.getId());
+
+        try {
+            String fileUrl = chunkedUploadService.complete(session);
+
+            Track track = new Track();
+            track.setTitle(trackRequest.getTitle() != null ?
+                    trackRequest.getTitle() : stripExtension(session.getOriginalFilename()));
+            track.setArtist(trackRequest.getArtist() != null ?
+                    trackRequest.getArtist() : "Unknown Artist");
+            track.setAlbum(trackRequest.getAlbum());
+            // Obiekt jest już złożony w magazynie - nagłówki czytamy z niego zakresami, bez pobierania całości
+            AudioProbe.Result probe = trackRequest.getDuration() != null ? null :
+                    audioAnalysisService.probeObject(session.getObjectName(), session.getFileSize());
+            track.setDuration(trackRequest.getDuration() != null ? trackRequest.getDuration() :
+                    probe != null ? (int) Math.round(probe.getDurationSeconds()) : 0);
+            track.setGenre(trackRequest.getGenre());
+            track.setYear(trackRequest.getYear());
+            track.setFileUrl(fileUrl);
+            track.setFileSize(session.getFileSize());
+            track.setMimeType(session.getContentType());
+            track.setBitrate(probe != null ? (int) probe.getBitrate() : track.getDuration() > 0 ?
+                    (int) (session.getFileSize() * 8L / track.getDuration()) : 0);
+            track.setUser(user);
+
+            Track savedTrack = trackRepository.save(track);
+            chunkedUploadService.attachTrack(session, savedTrack.getId());
+            transcodingService.submit(savedTrack.getId());
+            waveformService.submit(savedTrack.getId());
+
+            return ResponseEntity.ok(convertTrackToResponse(savedTrack));
+        } catch (IllegalStateException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to complete upload", e);
+        }
+    }
+
+    @DeleteMapping("/{sessionId}")
+    public ResponseEntity<Void> abortUpload(
+            @PathVariable String sessionId,
+            @AuthenticationPrincipal AuthenticatedUser principal) {
+        UploadSession session = chunkedUploadService.getSession(sessionId, principal.getId());
+
+        chunkedUploadService.abort(session);
+        return ResponseEntity.noContent().build();
+    }
+
+    private String stripExtension(String filename) {
+        if (filename == null) {
+            return "Untitled";
+        }
+        int dot = filename.lastIndexOf('.');
+        return dot > 0 ? filename.substring(0, dot) : filename;
+    }
+
+    private UploadSessionResponse convertToResponse(UploadSession session, List<UploadPartResponse> uploadedParts) {
+        UploadSessionResponse response = new UploadSessionResponse();
+        response.setId(session.getId());
+        response.setStatus(session.getStatus());
+        response.setFileName(session.getOriginalFilename());
+        response.setContentType(session.getContentType());
+        response.setFileSize(session.getFileSize());
+        response.setPartSize(session.getPartSize());
+        response.setPartCount(session.getPartCount());
+        response.setUploadedParts(uploadedParts);
+        response.setMissingParts(chunkedUploadService.findMissingParts(session, uploadedParts));
+        response.setTrackId(session.getTrackId());
+        response.setCreatedAt(session.getCreatedAt());
+        response.setUpdatedAt(session.getUpdatedAt());
+        return response;
+    }
+
+    private TrackResponse convertTrackToResponse(Track track) {
+        TrackResponse response = new TrackResponse();
+        response.setId(track.getId());
+        response.setTitle(track.getTitle());
+        response.setArtist(track.getArtist());
+        response.setAlbum(track.getAlbum());
+        response.setDuration(track.getDuration());
+        response.setFileUrl(track.getFileUrl());
+        response.setFileSize(track.getFileSize());
+        response.setMimeType(track.getMimeType());
+        response.setBitrate(track.getBitrate());
+        response.setGenre(track.getGenre());
+        response.setYear(track.getYear());
+        response.setCoverUrl(track.getCoverUrl());
+        response.setPlays(track.getPlays());
+        response.setLikes(track.getLikes());
+        response.setCreatedAt(track.getCreatedAt());
+
+        if (track.getUser() != null) {
+            response.setUserId(track.getUser().getId());
+            response.setUsername(track.getUser().getUsername());
+        }
+
+        return response;
+    }
+}
@@ -1,20 +1,18 @@
 package com.audtream.server.controller;
 
 import com.audtream.server.model.dto.UserResponse;
-import com.audtream.server.model.entity.Track;
-import com.audtream.server.model.entity.User;
 import com.audtream.server.model.repository.TrackRepository;
-import com.audtream.server.model.repository.UserRepository;
+import com.audtream.server.security.AuthenticatedUser;
 import com.audtream.server.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/users")
@@ -24,16 +22,12 @@ public class UserController {
     @Autowired
     private UserService userService;
 
-    @Autowired
-    private UserRepository userRepository;
-
     @Autowired
     private TrackRepository trackRepository;
 
     @GetMapping("/me")
-    public ResponseEntity<UserResponse> getCurrentUser() {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        UserResponse user = userService.getUserByUsername(username);
+    public ResponseEntity<UserResponse> getCurrentUser(@AuthenticationPrincipal AuthenticatedUser principal) {
+        UserResponse user = userService.getUserByUsername(principal.getUsername());
         return ResponseEntity.ok(user);
     }
 
@@ -44,48 +38,29 @@ public class UserController {
     }
 
     @GetMapping("/dashboard/stats")
-    public ResponseEntity<Map<String, Object>> getArtistStats() {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-
-        User user = userRepository.findByUsername(username)
-                .or(() -> userRepository.findByEmail(username))
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        List<Track> tracks = trackRepository.findByUserId(user.getId());
+    public ResponseEntity<Map<String, Object>> getArtistStats(@AuthenticationPrincipal AuthenticatedUser principal) {
+        Long userId = principal.getId();
+        TrackRepository.ArtistTotalsView totals = trackRepository.findArtistTotals(userId);
 
         Map<String, Object> stats = new HashMap<>();
-        stats.put("totalTracks", tracks.size());
-        stats.put("totalPlays", tracks.stream().mapToInt(Track::getPlays).sum());
-        stats.put("totalLikes", tracks.stream().mapToInt(Track::getLikes).sum());
+        stats.put("totalTracks", totals.getTotalTracks());
+        stats.put("totalPlays", totals.getTotalPlays());
+        stats.put("totalLikes", totals.getTotalLikes());
 
         // Najpopularniejszy gatunek
-        stats.put("topGenre", tracks.stream()
-                .filter(t -> t.getGenre() != null && !t.getGenre().isEmpty())
-                .collect(Collectors.groupingBy(Track::getGenre, Collectors.counting()))
-                .entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .map(Map.Entry::getKey)
-                .orElse("Unknown"));
+        List<String> topGenres = trackRepository.findTopGenres(userId, PageRequest.of(0, 1));
+        stats.put("topGenre", topGenres.isEmpty() ? "Unknown" : topGenres.get(0));
 
         // Średnia długość utworów
-        if (!tracks.isEmpty()) {
-            double avgDuration = tracks.stream()
-                    .mapToInt(Track::getDuration)
-                    .average()
-                    .orElse(0.0);
-            stats.put("averageDuration", Math.round(avgDuration));
-        } else {
-            stats.put("averageDuration", 0);
-        }
+        stats.put("averageDuration", Math.round(totals.getAverageDuration()));
 
         // Najpopularniejszy utwór (najwięcej odtworzeń)
-        if (!tracks.isEmpty()) {
-            Track topTrack = tracks.stream()
-                    .max((t1, t2) -> Integer.compare(t1.getPlays(), t2.getPlays()))
-                    .orElse(null);
-            if (topTrack != null) {
-                stats.put("mostPlayedTrack", topTrack.getTitle());
-                stats.put("mostPlayedTrackPlays", topTrack.getPlays());
+        if (totals.getTotalTracks() > 0) {
+            List<TrackRepository.TitlePlaysView> topTracks =
+                    trackRepository.findMostPlayed(userId, PageRequest.of(0, 1));
+            if (!topTracks.isEmpty()) {
+                stats.put("mostPlayedTrack", topTracks.get(0).getTitle());
+                stats.put("mostPlayedTrackPlays", topTracks.get(0).getPlays());
             }
         }
 
@@ -0,0 +1,24 @@
+package com.audtream.server.model.dto;
+
+public class CoverThumbnailResponse {
+    private Integer size;
+    private String format;
+    private String url;
+
+    public CoverThumbnailResponse() {}
+
+    public CoverThumbnailResponse(Integer size, String format, String url) {
+        this.size = size;
+        this.format = format;
+        this.url = url;
+    }
+
+    public Integer getSize() { return size; }
+    public void setSize(Integer size) { this.size = size; }
+
+    public String getFormat() { return format; }
+    public void setFormat(String format) { this.format = format; }
+
+    public String getUrl() { return url; }
+    public void setUrl(String url) { this.url = url; }
+}
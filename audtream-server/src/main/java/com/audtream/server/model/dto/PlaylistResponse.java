@@ -1,5 +1,6 @@
 package com.audtream.server.model.dto;
 
+import com.audtream.server.util.CoverThumbnails;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
@@ -38,6 +39,27 @@ public class PlaylistResponse {
     @JsonProperty("tracks")
     private List<TrackResponse> tracks;
 
+    public PlaylistResponse() {}
+
+    // Używany przez projekcje JPQL (SELECT new ...) - lista utworów nie jest częścią projekcji
+    public PlaylistResponse(Long id, String name, String description, Boolean isPublic, String coverImageUrl,
+                            Integer trackCount, Integer totalDuration, Integer plays, Integer likes,
+                            LocalDateTime createdAt, LocalDateTime updatedAt, Long userId, String username) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.isPublic = isPublic;
+        this.coverImageUrl = coverImageUrl;
+        this.trackCount = trackCount;
+        this.totalDuration = totalDuration;
+        this.plays = plays;
+        this.likes = likes;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.userId = userId;
+        this.username = username;
+    }
+
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
 
@@ -53,6 +75,8 @@ public class PlaylistResponse {
     public String getCoverImageUrl() { return coverImageUrl; }
     public void setCoverImageUrl(String coverImageUrl) { this.coverImageUrl = coverImageUrl; }
 
+    public List<CoverThumbnailResponse> getCoverThumbnails() { return CoverThumbnails.forCoverUrl(coverImageUrl); }
+
     public Integer getTrackCount() { return trackCount; }
     public void setTrackCount(Integer trackCount) { this.trackCount = trackCount; }
 
@@ -0,0 +1,24 @@
+package com.audtream.server.model.dto;
+
+public class RenditionResponse {
+    private String codec;
+    private Integer bitrate;
+    private String playlistUrl;
+
+    public RenditionResponse() {}
+
+    public RenditionResponse(String codec, Integer bitrate, String playlistUrl) {
+        this.codec = codec;
+        this.bitrate = bitrate;
+        this.playlistUrl = playlistUrl;
+    }
+
+    public String getCodec() { return codec; }
+    public void setCodec(String codec) { this.codec = codec; }
+
+    public Integer getBitrate() { return bitrate; }
+    public void setBitrate(Integer bitrate) { this.bitrate = bitrate; }
+
+    public String getPlaylistUrl() { return playlistUrl; }
+    public void setPlaylistUrl(String playlistUrl) { this.playlistUrl = playlistUrl; }
+}
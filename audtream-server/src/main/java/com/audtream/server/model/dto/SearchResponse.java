@@ -0,0 +1,43 @@
+package com.audtream.server.model.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class SearchResponse {
+    private String query;
+    private int page;
+    private int size;
+    private List<TrackResponse> tracks = new ArrayList<>();
+    private int totalTracks;
+    private List<PlaylistResponse> playlists = new ArrayList<>();
+    private int totalPlaylists;
+
+    public SearchResponse() {}
+
+    public SearchResponse(String query, int page, int size) {
+        this.query = query;
+        this.page = page;
+        this.size = size;
+    }
+
+    public String getQuery() { return query; }
+    public void setQuery(String query) { this.query = query; }
+
+    public int getPage() { return page; }
+    public void setPage(int page) { this.page = page; }
+
+    public int getSize() { return size; }
+    public void setSize(int size) { this.size = size; }
+
+    public List<TrackResponse> getTracks() { return tracks; }
+    public void setTracks(List<TrackResponse> tracks) { this.tracks = tracks; }
+
+    public int getTotalTracks() { return totalTracks; }
+    public void setTotalTracks(int totalTracks) { this.totalTracks = totalTracks; }
+
+    public List<PlaylistResponse> getPlaylists() { return playlists; }
+    public void setPlaylists(List<PlaylistResponse> playlists) { this.playlists = playlists; }
+
+    public int getTotalPlaylists() { return totalPlaylists; }
+    public void setTotalPlaylists(int totalPlaylists) { this.totalPlaylists = totalPlaylists; }
+}
@@ -1,5 +1,8 @@
 package com.audtream.server.model.dto;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class StreamResponse {
     private String streamUrl;
     private String mimeType;
@@ -7,6 +10,9 @@ public class StreamResponse {
     private boolean rangeSupported;
     private Long bitrate;
     private String codec;
+    // Playlista główna HLS - null, dopóki drabina jakości nie jest gotowa
+    private String manifestUrl;
+    private List<RenditionResponse> renditions = new ArrayList<>();
 
     // Konstruktory
     public StreamResponse() {}
@@ -76,4 +82,20 @@ public class StreamResponse {
     public void setCodec(String codec) {
         this.codec = codec;
     }
+
+    public String getManifestUrl() {
+        return manifestUrl;
+    }
+
+    public void setManifestUrl(String manifestUrl) {
+        this.manifestUrl = manifestUrl;
+    }
+
+    public List<RenditionResponse> getRenditions() {
+        return renditions;
+    }
+
+    public void setRenditions(List<RenditionResponse> renditions) {
+        this.renditions = renditions;
+    }
 }
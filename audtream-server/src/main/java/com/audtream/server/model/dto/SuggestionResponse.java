@@ -0,0 +1,24 @@
+package com.audtream.server.model.dto;
+
+public class SuggestionResponse {
+    private String text;
+    private String type;
+    private Long id;
+
+    public SuggestionResponse() {}
+
+    public SuggestionResponse(String text, String type, Long id) {
+        this.text = text;
+        this.type = type;
+        this.id = id;
+    }
+
+    public String getText() { return text; }
+    public void setText(String text) { this.text = text; }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+}
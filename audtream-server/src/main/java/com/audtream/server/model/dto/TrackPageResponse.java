@@ -0,0 +1,31 @@
+package com.audtream.server.model.dto;
+
+import java.util.List;
+
+public class TrackPageResponse {
+    private List<TrackResponse> items;
+    private String nextCursor;
+    private boolean hasMore;
+    private int limit;
+
+    public TrackPageResponse() {}
+
+    public TrackPageResponse(List<TrackResponse> items, String nextCursor, int limit) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.hasMore = nextCursor != null;
+        this.limit = limit;
+    }
+
+    public List<TrackResponse> getItems() { return items; }
+    public void setItems(List<TrackResponse> items) { this.items = items; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+
+    public boolean isHasMore() { return hasMore; }
+    public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+
+    public int getLimit() { return limit; }
+    public void setLimit(int limit) { this.limit = limit; }
+}
@@ -1,7 +1,9 @@
 package com.audtream.server.model.dto;
 
+import com.audtream.server.util.CoverThumbnails;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import java.time.LocalDateTime;
+import java.util.List;
 
 public class TrackResponse {
     private Long id;
@@ -40,6 +42,27 @@ public class TrackResponse {
         this.duration = duration;
     }
 
+    // Używany przez projekcje JPQL (SELECT new ...) - kolejność argumentów musi zgadzać się z zapytaniami
+    public TrackResponse(Long id, String title, String artist, String album, Integer duration,
+                         String fileUrl, Long fileSize, String mimeType, Integer bitrate, String genre,
+                         String year, String coverUrl, Integer plays, Integer likes,
+                         LocalDateTime createdAt, LocalDateTime updatedAt, Long userId, String username) {
+        this(id, title, artist, album, duration);
+        this.fileUrl = fileUrl;
+        this.fileSize = fileSize;
+        this.mimeType = mimeType;
+        this.bitrate = bitrate;
+        this.genre = genre;
+        this.year = year;
+        this.coverUrl = coverUrl;
+        this.plays = plays;
+        this.likes = likes;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.userId = userId;
+        this.username = username;
+    }
+
     public Long getId() {
         return id;
     }
@@ -144,6 +167,11 @@ public class TrackResponse {
         this.coverUrl = coverUrl;
     }
 
+    // Wyliczane z adresu okładki, więc działa też dla projekcji JPQL; puste dla okładek bez miniatur
+    public List<CoverThumbnailResponse> getCoverThumbnails() {
+        return CoverThumbnails.forCoverUrl(coverUrl);
+    }
+
     public Integer getPlays() {
         return plays;
     }
@@ -0,0 +1,29 @@
+package com.audtream.server.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import java.time.LocalDateTime;
+
+public class TrackUrlResponse {
+    private Long trackId;
+    private String url;
+
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime expiresAt;
+
+    public TrackUrlResponse() {}
+
+    public TrackUrlResponse(Long trackId, String url, LocalDateTime expiresAt) {
+        this.trackId = trackId;
+        this.url = url;
+        this.expiresAt = expiresAt;
+    }
+
+    public Long getTrackId() { return trackId; }
+    public void setTrackId(Long trackId) { this.trackId = trackId; }
+
+    public String getUrl() { return url; }
+    public void setUrl(String url) { this.url = url; }
+
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+}
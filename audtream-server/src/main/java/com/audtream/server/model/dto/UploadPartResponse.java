@@ -0,0 +1,24 @@
+package com.audtream.server.model.dto;
+
+public class UploadPartResponse {
+    private Integer partNumber;
+    private Long size;
+    private String etag;
+
+    public UploadPartResponse() {}
+
+    public UploadPartResponse(Integer partNumber, Long size, String etag) {
+        this.partNumber = partNumber;
+        this.size = size;
+        this.etag = etag;
+    }
+
+    public Integer getPartNumber() { return partNumber; }
+    public void setPartNumber(Integer partNumber) { this.partNumber = partNumber; }
+
+    public Long getSize() { return size; }
+    public void setSize(Long size) { this.size = size; }
+
+    public String getEtag() { return etag; }
+    public void setEtag(String etag) { this.etag = etag; }
+}
@@ -0,0 +1,60 @@
+package com.audtream.server.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class UploadSessionResponse {
+    private String id;
+    private String status;
+    private String fileName;
+    private String contentType;
+    private Long fileSize;
+    private Long partSize;
+    private Integer partCount;
+    private List<UploadPartResponse> uploadedParts;
+    private List<Integer> missingParts;
+    private Long trackId;
+
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime createdAt;
+
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime updatedAt;
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public String getFileName() { return fileName; }
+    public void setFileName(String fileName) { this.fileName = fileName; }
+
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+
+    public Long getFileSize() { return fileSize; }
+    public void setFileSize(Long fileSize) { this.fileSize = fileSize; }
+
+    public Long getPartSize() { return partSize; }
+    public void setPartSize(Long partSize) { this.partSize = partSize; }
+
+    public Integer getPartCount() { return partCount; }
+    public void setPartCount(Integer partCount) { this.partCount = partCount; }
+
+    public List<UploadPartResponse> getUploadedParts() { return uploadedParts; }
+    public void setUploadedParts(List<UploadPartResponse> uploadedParts) { this.uploadedParts = uploadedParts; }
+
+    public List<Integer> getMissingParts() { return missingParts; }
+    public void setMissingParts(List<Integer> missingParts) { this.missingParts = missingParts; }
+
+    public Long getTrackId() { return trackId; }
+    public void setTrackId(Long trackId) { this.trackId = trackId; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,58 @@
+package com.audtream.server.model.entity;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+import java.time.LocalDateTime;
+
+// Znacznik zastosowanego segmentu dziennika liczników - zapisywany w tej samej transakcji
+// co UPDATE-y, więc odtworzenie po awarii nie doliczy segmentu drugi raz
+@Entity
+@Table(name = "counter_flushes")
+public class CounterFlush implements Persistable<String> {
+
+    @Id
+    @Column(length = 100)
+    private String segment;
+
+    @Column(nullable = false)
+    private Long increments;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime appliedAt;
+
+    @Transient
+    private boolean isNew = true;
+
+    public CounterFlush() {}
+
+    public CounterFlush(String segment, long increments) {
+        this.segment = segment;
+        this.increments = increments;
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        appliedAt = LocalDateTime.now();
+    }
+
+    @PostLoad
+    @PostPersist
+    protected void markNotNew() {
+        isNew = false;
+    }
+
+    @Override
+    public String getId() { return segment; }
+
+    @Override
+    public boolean isNew() { return isNew; }
+
+    public String getSegment() { return segment; }
+    public void setSegment(String segment) { this.segment = segment; }
+
+    public Long getIncrements() { return increments; }
+    public void setIncrements(Long increments) { this.increments = increments; }
+
+    public LocalDateTime getAppliedAt() { return appliedAt; }
+    public void setAppliedAt(LocalDateTime appliedAt) { this.appliedAt = appliedAt; }
+}
@@ -0,0 +1,126 @@
+package com.audtream.server.model.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "ingest_jobs", indexes = {
+        @Index(name = "idx_ingest_jobs_status", columnList = "status")
+})
+public class IngestJob {
+
+    public static final String STATUS_QUEUED = "QUEUED";
+    public static final String STATUS_PROCESSING = "PROCESSING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_FAILED = "FAILED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long trackId;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(nullable = false, length = 20)
+    private String status = STATUS_QUEUED;
+
+    // TrackRequest z formularza, stosowany dopiero po analizie pliku
+    @Column(length = 4000)
+    private String requestJson;
+
+    @Column(nullable = false, length = 1000)
+    private String stagingPath;
+
+    private String originalFilename;
+
+    private String contentType;
+
+    private Long fileSize;
+
+    @Column(length = 1000)
+    private String coverStagingPath;
+
+    private String coverContentType;
+
+    private Long coverFileSize;
+
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    @Column(length = 1000)
+    private String errorMessage;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    private LocalDateTime completedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // Gettery i Settery
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getTrackId() { return trackId; }
+    public void setTrackId(Long trackId) { this.trackId = trackId; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public String getRequestJson() { return requestJson; }
+    public void setRequestJson(String requestJson) { this.requestJson = requestJson; }
+
+    public String getStagingPath() { return stagingPath; }
+    public void setStagingPath(String stagingPath) { this.stagingPath = stagingPath; }
+
+    public String getOriginalFilename() { return originalFilename; }
+    public void setOriginalFilename(String originalFilename) { this.originalFilename = originalFilename; }
+
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+
+    public Long getFileSize() { return fileSize; }
+    public void setFileSize(Long fileSize) { this.fileSize = fileSize; }
+
+    public String getCoverStagingPath() { return coverStagingPath; }
+    public void setCoverStagingPath(String coverStagingPath) { this.coverStagingPath = coverStagingPath; }
+
+    public String getCoverContentType() { return coverContentType; }
+    public void setCoverContentType(String coverContentType) { this.coverContentType = coverContentType; }
+
+    public Long getCoverFileSize() { return coverFileSize; }
+    public void setCoverFileSize(Long coverFileSize) { this.coverFileSize = coverFileSize; }
+
+    public Integer getAttempts() { return attempts; }
+    public void setAttempts(Integer attempts) { this.attempts = attempts; }
+
+    public String getErrorMessage() { return errorMessage; }
+    public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    public LocalDateTime getCompletedAt() { return completedAt; }
+    public void setCompletedAt(LocalDateTime completedAt) { this.completedAt = completedAt; }
+}
@@ -1,12 +1,17 @@
 package com.audtream.server.model.entity;
 
+import com.audtream.server.service.ExploreCacheListener;
+import com.audtream.server.service.SearchIndexListener;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
 
 @Entity
-@Table(name = "playlists")
+@Table(name = "playlists", indexes = {
+        @Index(name = "idx_playlists_public_plays_id", columnList = "isPublic, plays, id"),
+        @Index(name = "idx_playlists_public_created_id", columnList = "isPublic, createdAt, id"),
+        @Index(name = "idx_playlists_public_likes_id", columnList = "isPublic, likes, id")
+})
+@EntityListeners({SearchIndexListener.class, ExploreCacheListener.class})
 public class Playlist {
 
     @Id
@@ -39,14 +44,7 @@ public class Playlist {
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
-    @ManyToMany
-    @JoinTable(
-            name = "playlist_tracks",
-            joinColumns = @JoinColumn(name = "playlist_id"),
-            inverseJoinColumns = @JoinColumn(name = "track_id")
-    )
-    @OrderBy("addedAt DESC")
-    private List<Track> tracks = new ArrayList<>();
+    // Utwory playlisty są w encji PlaylistTrack (tabela playlist_tracks z kolumną position)
 
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -96,29 +94,9 @@ public class Playlist {
     public User getUser() { return user; }
     public void setUser(User user) { this.user = user; }
 
-    public List<Track> getTracks() { return tracks; }
-    public void setTracks(List<Track> tracks) { this.tracks = tracks; }
-
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
-
-    // Helper metody
-    public void addTrack(Track track) {
-        if (!tracks.contains(track)) {
-            tracks.add(track);
-            trackCount = tracks.size();
-            totalDuration += track.getDuration() != null ? track.getDuration() : 0;
-        }
-    }
-
-    public void removeTrack(Track track) {
-        if (tracks.remove(track)) {
-            trackCount = tracks.size();
-            totalDuration -= track.getDuration() != null ? track.getDuration() : 0;
-            if (totalDuration < 0) totalDuration = 0;
-        }
-    }
-}
\ No newline at end of file
+}
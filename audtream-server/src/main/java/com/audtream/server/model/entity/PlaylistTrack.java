@@ -0,0 +1,70 @@
+package com.audtream.server.model.entity;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+import java.time.LocalDateTime;
+
+// Wiersz tabeli łączącej z jawną pozycją. Pozycje są rozstawione co PlaylistTrack.GAP,
+// więc przeniesienie utworu zmienia tylko jego własny wiersz
+@Entity
+@Table(name = "playlist_tracks", indexes = {
+        @Index(name = "idx_playlist_tracks_position", columnList = "playlist_id, position"),
+        @Index(name = "idx_playlist_tracks_track", columnList = "track_id")
+})
+public class PlaylistTrack implements Persistable<PlaylistTrackId> {
+
+    public static final long GAP = 1024;
+
+    @EmbeddedId
+    private PlaylistTrackId id;
+
+    // Tylko do złączeń w zapytaniach - kluczem obcym zarządza id
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "track_id", insertable = false, updatable = false)
+    private Track track;
+
+    @Column(nullable = false)
+    private Long position;
+
+    // Wiersze sprzed wprowadzenia encji nie mają daty dodania
+    @Column(updatable = false)
+    private LocalDateTime addedAt;
+
+    @Transient
+    private boolean isNew = true;
+
+    public PlaylistTrack() {}
+
+    public PlaylistTrack(Long playlistId, Long trackId, long position) {
+        this.id = new PlaylistTrackId(playlistId, trackId);
+        this.position = position;
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        addedAt = LocalDateTime.now();
+    }
+
+    @PostLoad
+    @PostPersist
+    protected void markNotNew() {
+        isNew = false;
+    }
+
+    @Override
+    public PlaylistTrackId getId() { return id; }
+
+    @Override
+    public boolean isNew() { return isNew; }
+
+    // Gettery i Settery
+    public Long getPlaylistId() { return id.getPlaylistId(); }
+    public Long getTrackId() { return id.getTrackId(); }
+
+    public Track getTrack() { return track; }
+
+    public Long getPosition() { return position; }
+    public void setPosition(Long position) { this.position = position; }
+
+    public LocalDateTime getAddedAt() { return addedAt; }
+}
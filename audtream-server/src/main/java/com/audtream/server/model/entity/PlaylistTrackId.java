@@ -0,0 +1,40 @@
+package com.audtream.server.model.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import java.io.Serializable;
+import java.util.Objects;
+
+@Embeddable
+public class PlaylistTrackId implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Column(name = "playlist_id")
+    private Long playlistId;
+
+    @Column(name = "track_id")
+    private Long trackId;
+
+    public PlaylistTrackId() {}
+
+    public PlaylistTrackId(Long playlistId, Long trackId) {
+        this.playlistId = playlistId;
+        this.trackId = trackId;
+    }
+
+    public Long getPlaylistId() { return playlistId; }
+    public Long getTrackId() { return trackId; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PlaylistTrackId other)) return false;
+        return Objects.equals(playlistId, other.playlistId) && Objects.equals(trackId, other.trackId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(playlistId, trackId);
+    }
+}
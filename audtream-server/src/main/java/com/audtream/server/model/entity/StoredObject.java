@@ -0,0 +1,79 @@
+package com.audtream.server.model.entity;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "stored_objects")
+public class StoredObject implements Persistable<String> {
+
+    // SHA-256 zawartości (hex) - klucz obiektu w MinIO jest z niego wyprowadzony
+    @Id
+    @Column(length = 64)
+    private String contentHash;
+
+    @Column(nullable = false, length = 1000)
+    private String objectName;
+
+    @Column(nullable = false)
+    private Long fileSize;
+
+    private String mimeType;
+
+    private Long duration;
+
+    private Integer bitrate;
+
+    @Column(nullable = false)
+    private Integer refCount = 1;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    // Klucz nadawany ręcznie - bez tego save() robiłby merge zamiast INSERT
+    @Transient
+    private boolean isNew = true;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    @PostLoad
+    @PostPersist
+    protected void markNotNew() {
+        isNew = false;
+    }
+
+    @Override
+    public String getId() { return contentHash; }
+
+    @Override
+    public boolean isNew() { return isNew; }
+
+    // Gettery i Settery
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+
+    public String getObjectName() { return objectName; }
+    public void setObjectName(String objectName) { this.objectName = objectName; }
+
+    public Long getFileSize() { return fileSize; }
+    public void setFileSize(Long fileSize) { this.fileSize = fileSize; }
+
+    public String getMimeType() { return mimeType; }
+    public void setMimeType(String mimeType) { this.mimeType = mimeType; }
+
+    public Long getDuration() { return duration; }
+    public void setDuration(Long duration) { this.duration = duration; }
+
+    public Integer getBitrate() { return bitrate; }
+    public void setBitrate(Integer bitrate) { this.bitrate = bitrate; }
+
+    public Integer getRefCount() { return refCount; }
+    public void setRefCount(Integer refCount) { this.refCount = refCount; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
@@ -1,10 +1,22 @@
 package com.audtream.server.model.entity;
 
+import com.audtream.server.service.ExploreCacheListener;
+import com.audtream.server.service.SearchIndexListener;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "tracks")
+@Table(name = "tracks", indexes = {
+        @Index(name = "idx_tracks_content_hash", columnList = "contentHash"),
+        @Index(name = "idx_tracks_created_id", columnList = "createdAt, id"),
+        @Index(name = "idx_tracks_plays_id", columnList = "plays, id"),
+        @Index(name = "idx_tracks_likes_id", columnList = "likes, id"),
+        @Index(name = "idx_tracks_genre_created_id", columnList = "genre, createdAt, id"),
+        @Index(name = "idx_tracks_genre_plays_id", columnList = "genre, plays, id"),
+        @Index(name = "idx_tracks_genre_likes_id", columnList = "genre, likes, id"),
+        @Index(name = "idx_tracks_user_plays", columnList = "user_id, plays")
+})
+@EntityListeners({SearchIndexListener.class, ExploreCacheListener.class})
 public class Track {
 
     @Id
@@ -29,6 +41,9 @@ public class Track {
 
     private Long fileSize;
 
+    @Column(length = 64)
+    private String contentHash;
+
     private String mimeType;
 
     private Integer bitrate;
@@ -135,6 +150,14 @@ public class Track {
         this.fileSize = fileSize;
     }
 
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
     public String getMimeType() {
         return mimeType;
     }
@@ -0,0 +1,56 @@
+package com.audtream.server.model.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Jedna pozycja drabiny HLS utworu - klient wybiera wariant po przepustowości
+@Entity
+@Table(name = "track_renditions", indexes = {
+        @Index(name = "idx_track_renditions_track_bitrate", columnList = "trackId, bitrate")
+})
+public class TrackRendition {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long trackId;
+
+    @Column(nullable = false, length = 20)
+    private String codec;
+
+    // W bitach na sekundę, tak jak BANDWIDTH w playliście głównej
+    @Column(nullable = false)
+    private Integer bitrate;
+
+    // Playlista wariantu (index.m3u8) w MinIO
+    @Column(nullable = false, length = 1000)
+    private String playlistObject;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getTrackId() { return trackId; }
+    public void setTrackId(Long trackId) { this.trackId = trackId; }
+
+    public String getCodec() { return codec; }
+    public void setCodec(String codec) { this.codec = codec; }
+
+    public Integer getBitrate() { return bitrate; }
+    public void setBitrate(Integer bitrate) { this.bitrate = bitrate; }
+
+    public String getPlaylistObject() { return playlistObject; }
+    public void setPlaylistObject(String playlistObject) { this.playlistObject = playlistObject; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
@@ -1,5 +1,6 @@
 package com.audtream.server.model.entity;
 
+import com.audtream.server.service.UserCacheInvalidationListener;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.util.ArrayList;
@@ -7,6 +8,7 @@ import java.util.List;
 
 @Entity
 @Table(name = "users")
+@EntityListeners(UserCacheInvalidationListener.class)
 public class User {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -24,6 +26,10 @@ public class User {
     @Column(nullable = false)
     private String role;
 
+    // Podbijana przy unieważnianiu sesji - tokeny z niższą wersją przestają być akceptowane
+    @Column(nullable = false)
+    private Integer tokenVersion = 0;
+
     @JsonIgnore
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL)
     private List<Track> tracks = new ArrayList<>();
@@ -51,6 +57,14 @@ public class User {
         this.playlists = playlists;
     }
 
+    public Integer getTokenVersion() {
+        return tokenVersion;
+    }
+
+    public void setTokenVersion(Integer tokenVersion) {
+        this.tokenVersion = tokenVersion;
+    }
+
     public String getRole() {
         return role;
     }
@@ -0,0 +1,18 @@
+package com.audtream.server.model.repository;
+
+import com.audtream.server.model.entity.CounterFlush;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface CounterFlushRepository extends JpaRepository<CounterFlush, String> {
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM CounterFlush f WHERE f.appliedAt < :before")
+    int deleteAppliedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,21 @@
+package com.audtream.server.model.repository;
+
+import com.audtream.server.model.entity.IngestJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface IngestJobRepository extends JpaRepository<IngestJob, Long> {
+    List<IngestJob> findByStatusOrderByCreatedAtAsc(String status);
+
+    List<IngestJob> findByTrackId(Long trackId);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE IngestJob j SET j.status = :to WHERE j.status = :from")
+    int updateStatus(@Param("from") String from, @Param("to") String to);
+}
@@ -1,25 +1,63 @@
 package com.audtream.server.model.repository;
 
+import com.audtream.server.model.dto.PlaylistResponse;
 import com.audtream.server.model.entity.Playlist;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface PlaylistRepository extends JpaRepository<Playlist, Long> {
+    // Projekcja listowa: kolumny PlaylistResponse i nazwa autora w jednym zapytaniu, bez hydracji encji
+    String PLAYLIST_RESPONSE = "SELECT new com.audtream.server.model.dto.PlaylistResponse(" +
+            "p.id, p.name, p.description, p.isPublic, p.coverImageUrl, p.trackCount, p.totalDuration, " +
+            "p.plays, p.likes, p.createdAt, p.updatedAt, u.id, u.username) " +
+            "FROM Playlist p JOIN p.user u ";
+
+    interface SearchView {
+        Long getId();
+        String getName();
+        String getDescription();
+    }
+
+    interface SuggestView {
+        Long getId();
+        String getName();
+        Integer getPlays();
+        Integer getLikes();
+    }
+
     List<Playlist> findByUserId(Long userId);
     List<Playlist> findByUserIdAndNameContaining(Long userId, String name);
     List<Playlist> findByIsPublicTrue();
 
-    @Query("SELECT p FROM Playlist p WHERE p.isPublic = true ORDER BY p.plays DESC")
-    List<Playlist> findTopPlaylists();
+    // Limit trafia do SQL, a sortowanie po id rozstrzyga remisy - baza czyta tylko początek indeksu (isPublic, ...)
+    @Query(PLAYLIST_RESPONSE + "WHERE p.isPublic = true ORDER BY p.plays DESC, p.id DESC")
+    List<PlaylistResponse> findTopPlaylists(Pageable pageable);
+
+    @Query(PLAYLIST_RESPONSE + "WHERE p.isPublic = true ORDER BY p.createdAt DESC, p.id DESC")
+    List<PlaylistResponse> findNewestPlaylists(Pageable pageable);
+
+    @Query(PLAYLIST_RESPONSE + "WHERE p.isPublic = true ORDER BY p.likes DESC, p.id DESC")
+    List<PlaylistResponse> findTrendingPlaylists(Pageable pageable);
+
+    @Query(PLAYLIST_RESPONSE + "WHERE p.id = :id")
+    Optional<PlaylistResponse> findResponseById(@Param("id") Long id);
 
-    @Query("SELECT p FROM Playlist p WHERE p.isPublic = true ORDER BY p.createdAt DESC")
-    List<Playlist> findNewestPlaylists();
+    @Query(PLAYLIST_RESPONSE + "WHERE p.id IN :ids")
+    List<PlaylistResponse> findResponsesByIdIn(@Param("ids") Collection<Long> ids);
 
-    @Query("SELECT p FROM Playlist p WHERE p.isPublic = true ORDER BY p.likes DESC")
-    List<Playlist> findTrendingPlaylists();
+    @Query(PLAYLIST_RESPONSE + "WHERE u.id = :userId")
+    List<PlaylistResponse> findResponsesByUserId(@Param("userId") Long userId);
+
+    @Query(PLAYLIST_RESPONSE + "WHERE u.id = :userId AND p.isPublic = true")
+    List<PlaylistResponse> findPublicResponsesByUserId(@Param("userId") Long userId);
 
     @Query("SELECT CASE WHEN COUNT(p) > 0 THEN true ELSE false END " +
             "FROM Playlist p WHERE p.id = :playlistId AND p.user.id = :userId")
@@ -27,9 +65,33 @@ public interface PlaylistRepository extends JpaRepository<Playlist, Long> {
 
     List<Playlist> findByIsPublicTrueAndNameContainingIgnoreCase(String name);
 
-    @Query("SELECT p FROM Playlist p JOIN p.tracks t WHERE t.id = :trackId")
+    List<Playlist> findByIsPublicTrueAndCreatedAtAfter(LocalDateTime createdAt, Pageable pageable);
+
+    @Query("SELECT p FROM Playlist p WHERE p.id IN " +
+            "(SELECT pt.id.playlistId FROM PlaylistTrack pt WHERE pt.id.trackId = :trackId)")
     List<Playlist> findByTrackId(@Param("trackId") Long trackId);
 
-    @Query("SELECT p FROM Playlist p LEFT JOIN FETCH p.tracks WHERE p.id = :id")
-    Optional<Playlist> findByIdWithTracks(@Param("id") Long id);
+    // Liczniki zdenormalizowane zmieniamy w SQL - zapis całej encji nadpisałby plays/likes z bufora liczników
+    @Modifying
+    @Transactional
+    @Query("UPDATE Playlist p SET " +
+            "p.trackCount = CASE WHEN p.trackCount + :tracks < 0 THEN 0 ELSE p.trackCount + :tracks END, " +
+            "p.totalDuration = CASE WHEN p.totalDuration + :duration < 0 THEN 0 ELSE p.totalDuration + :duration END, " +
+            "p.updatedAt = CURRENT_TIMESTAMP WHERE p.id = :id")
+    int adjustTotals(@Param("id") Long id, @Param("tracks") int tracks, @Param("duration") int duration);
+
+    @Query("SELECT p.id AS id, p.name AS name, p.description AS description FROM Playlist p " +
+            "WHERE p.isPublic = true AND p.updatedAt >= :since AND p.id > :afterId ORDER BY p.id")
+    List<SearchView> findSearchViews(@Param("since") LocalDateTime since, @Param("afterId") Long afterId,
+                                     Pageable pageable);
+
+    @Query("SELECT p.id FROM Playlist p WHERE p.isPublic = true")
+    List<Long> findPublicIds();
+
+    @Query("SELECT p.id AS id, p.name AS name, p.plays AS plays, p.likes AS likes FROM Playlist p " +
+            "WHERE p.isPublic = true AND p.id > :afterId ORDER BY p.id")
+    List<SuggestView> findSuggestViews(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT p.isPublic FROM Playlist p WHERE p.id = :id")
+    Optional<Boolean> findIsPublicById(@Param("id") Long id);
 }
\ No newline at end of file
@@ -0,0 +1,69 @@
+package com.audtream.server.model.repository;
+
+import com.audtream.server.model.entity.PlaylistTrack;
+import com.audtream.server.model.entity.PlaylistTrackId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface PlaylistTrackRepository extends JpaRepository<PlaylistTrack, PlaylistTrackId> {
+
+    @Query("SELECT pt FROM PlaylistTrack pt WHERE pt.id.playlistId = :playlistId " +
+            "ORDER BY pt.position, pt.id.trackId")
+    List<PlaylistTrack> findByPlaylistId(@Param("playlistId") Long playlistId);
+
+    @Query("SELECT pt.id.trackId FROM PlaylistTrack pt WHERE pt.id.playlistId = :playlistId")
+    List<Long> findTrackIds(@Param("playlistId") Long playlistId);
+
+    @Query("SELECT pt.id.playlistId FROM PlaylistTrack pt WHERE pt.id.trackId = :trackId")
+    List<Long> findPlaylistIds(@Param("trackId") Long trackId);
+
+    @Query("SELECT pt.position FROM PlaylistTrack pt WHERE pt.id.playlistId = :playlistId AND pt.id.trackId = :trackId")
+    Optional<Long> findPosition(@Param("playlistId") Long playlistId, @Param("trackId") Long trackId);
+
+    @Query("SELECT MIN(pt.position) FROM PlaylistTrack pt WHERE pt.id.playlistId = :playlistId")
+    Long findFirstPosition(@Param("playlistId") Long playlistId);
+
+    @Query("SELECT MAX(pt.position) FROM PlaylistTrack pt WHERE pt.id.playlistId = :playlistId")
+    Long findLastPosition(@Param("playlistId") Long playlistId);
+
+    @Query("SELECT COUNT(pt) FROM PlaylistTrack pt " +
+            "WHERE pt.id.playlistId = :playlistId AND pt.position = :position")
+    long countAtPosition(@Param("playlistId") Long playlistId, @Param("position") Long position);
+
+    @Query("SELECT MIN(pt.position) FROM PlaylistTrack pt " +
+            "WHERE pt.id.playlistId = :playlistId AND pt.position > :position")
+    Long findNextPosition(@Param("playlistId") Long playlistId, @Param("position") Long position);
+
+    @Query("SELECT COALESCE(SUM(t.duration), 0) FROM PlaylistTrack pt JOIN pt.track t " +
+            "WHERE pt.id.playlistId = :playlistId AND pt.id.trackId IN :trackIds")
+    Long sumDuration(@Param("playlistId") Long playlistId, @Param("trackIds") Collection<Long> trackIds);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE PlaylistTrack pt SET pt.position = :position " +
+            "WHERE pt.id.playlistId = :playlistId AND pt.id.trackId = :trackId")
+    int updatePosition(@Param("playlistId") Long playlistId, @Param("trackId") Long trackId,
+                       @Param("position") Long position);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM PlaylistTrack pt WHERE pt.id.playlistId = :playlistId AND pt.id.trackId IN :trackIds")
+    int deleteTracks(@Param("playlistId") Long playlistId, @Param("trackIds") Collection<Long> trackIds);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM PlaylistTrack pt WHERE pt.id.playlistId = :playlistId")
+    int deleteByPlaylistId(@Param("playlistId") Long playlistId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM PlaylistTrack pt WHERE pt.id.trackId = :trackId")
+    int deleteByTrackId(@Param("trackId") Long trackId);
+}
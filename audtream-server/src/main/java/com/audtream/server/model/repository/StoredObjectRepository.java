@@ -0,0 +1,35 @@
+package com.audtream.server.model.repository;
+
+import com.audtream.server.model.entity.StoredObject;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+public interface StoredObjectRepository extends JpaRepository<StoredObject, String> {
+
+    // SELECT ... FOR UPDATE - blokada trzyma równoległe acquire/register tej samej zawartości do końca transakcji
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM StoredObject s WHERE s.contentHash = :hash")
+    Optional<StoredObject> findForUpdate(@Param("hash") String hash);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE StoredObject s SET s.refCount = s.refCount + 1 WHERE s.contentHash = :hash AND s.refCount > 0")
+    int incrementRefCount(@Param("hash") String hash);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE StoredObject s SET s.refCount = s.refCount - 1 WHERE s.contentHash = :hash AND s.refCount > 0")
+    int decrementRefCount(@Param("hash") String hash);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM StoredObject s WHERE s.contentHash = :hash AND s.refCount <= 0")
+    int deleteIfUnreferenced(@Param("hash") String hash);
+}
@@ -0,0 +1,22 @@
+package com.audtream.server.model.repository;
+
+import com.audtream.server.model.entity.TrackRendition;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface TrackRenditionRepository extends JpaRepository<TrackRendition, Long> {
+
+    List<TrackRendition> findByTrackIdOrderByBitrateAsc(Long trackId);
+
+    boolean existsByTrackId(Long trackId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM TrackRendition r WHERE r.trackId = :trackId")
+    int deleteByTrackId(@Param("trackId") Long trackId);
+}
@@ -1,20 +1,153 @@
 package com.audtream.server.model.repository;
 
+import com.audtream.server.model.dto.TrackResponse;
 import com.audtream.server.model.entity.Track;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface TrackRepository extends JpaRepository<Track, Long> {
+    // Projekcja listowa: kolumny TrackResponse i nazwa autora w jednym zapytaniu, bez hydracji encji
+    String TRACK_RESPONSE_COLUMNS = "SELECT new com.audtream.server.model.dto.TrackResponse(" +
+            "t.id, t.title, t.artist, t.album, t.duration, t.fileUrl, t.fileSize, t.mimeType, t.bitrate, " +
+            "t.genre, t.year, t.coverUrl, t.plays, t.likes, t.createdAt, t.updatedAt, u.id, u.username) ";
+    String TRACK_RESPONSE = TRACK_RESPONSE_COLUMNS + "FROM Track t JOIN t.user u ";
+
+    interface GenreView {
+        Long getId();
+        String getGenre();
+    }
+
+    interface ArtistTotalsView {
+        Long getTotalTracks();
+        Long getTotalPlays();
+        Long getTotalLikes();
+        Double getAverageDuration();
+    }
+
+    interface TitlePlaysView {
+        String getTitle();
+        Integer getPlays();
+    }
+
+    interface SearchView {
+        Long getId();
+        String getTitle();
+        String getArtist();
+        String getAlbum();
+        String getGenre();
+    }
+
+    interface SuggestView {
+        Long getId();
+        String getTitle();
+        String getArtist();
+        Integer getPlays();
+        Integer getLikes();
+    }
+
     List<Track> findByUserId(Long userId);
+    long countByCoverUrl(String coverUrl);
     List<Track> findByUserIdAndTitleContaining(Long userId, String title);
 
     List<Track> findByGenre(String genre);
 
-    @Query("SELECT t FROM Track t ORDER BY t.plays DESC")
-    List<Track> findTopTracks();
+    Optional<GenreView> findGenreViewById(Long id);
+
+    @Query("SELECT COUNT(t) AS totalTracks, COALESCE(SUM(t.plays), 0) AS totalPlays, " +
+            "COALESCE(SUM(t.likes), 0) AS totalLikes, COALESCE(AVG(t.duration), 0) AS averageDuration " +
+            "FROM Track t WHERE t.user.id = :userId")
+    ArtistTotalsView findArtistTotals(@Param("userId") Long userId);
+
+    @Query("SELECT t.genre FROM Track t WHERE t.user.id = :userId AND t.genre IS NOT NULL AND t.genre <> '' " +
+            "GROUP BY t.genre ORDER BY COUNT(t) DESC")
+    List<String> findTopGenres(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT t.title AS title, t.plays AS plays FROM Track t WHERE t.user.id = :userId " +
+            "ORDER BY t.plays DESC, t.id DESC")
+    List<TitlePlaysView> findMostPlayed(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT t.id AS id, t.title AS title, t.artist AS artist, t.album AS album, t.genre AS genre " +
+            "FROM Track t WHERE t.updatedAt >= :since AND t.id > :afterId ORDER BY t.id")
+    List<SearchView> findSearchViews(@Param("since") LocalDateTime since, @Param("afterId") Long afterId,
+                                     Pageable pageable);
+
+    @Query("SELECT t.id FROM Track t")
+    List<Long> findAllIds();
+
+    @Query("SELECT t.id FROM Track t WHERE t.id > :afterId AND t.fileUrl <> 'PENDING_UPLOAD' AND NOT EXISTS " +
+            "(SELECT r.id FROM TrackRendition r WHERE r.trackId = t.id) ORDER BY t.id")
+    List<Long> findIdsWithoutRenditions(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT t.id AS id, t.title AS title, t.artist AS artist, t.plays AS plays, t.likes AS likes " +
+            "FROM Track t WHERE t.id > :afterId ORDER BY t.id")
+    List<SuggestView> findSuggestViews(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query(TRACK_RESPONSE + "WHERE u.id = :userId")
+    List<TrackResponse> findResponsesByUserId(@Param("userId") Long userId);
+
+    @Query(TRACK_RESPONSE + "WHERE t.id IN :ids")
+    List<TrackResponse> findResponsesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(TRACK_RESPONSE_COLUMNS + "FROM PlaylistTrack pt JOIN pt.track t JOIN t.user u " +
+            "WHERE pt.id.playlistId = :playlistId ORDER BY pt.position, t.id")
+    List<TrackResponse> findResponsesByPlaylistId(@Param("playlistId") Long playlistId);
+
+    @Query(TRACK_RESPONSE + "ORDER BY t.plays DESC, t.id DESC")
+    List<TrackResponse> findTopTracks(Pageable pageable);
+
+    @Query(TRACK_RESPONSE + "WHERE t.createdAt > :since ORDER BY t.createdAt DESC, t.id DESC")
+    List<TrackResponse> findNewestTracks(@Param("since") LocalDateTime since, Pageable pageable);
+
+    @Query(TRACK_RESPONSE + "WHERE t.createdAt > :since ORDER BY t.plays DESC, t.id DESC")
+    List<TrackResponse> findPopularSince(@Param("since") LocalDateTime since, Pageable pageable);
+
+    // Stronicowanie keyset: (klucz, id) ostatniego utworu poprzedniej strony wyznacza start kolejnej,
+    // więc koszt strony nie zależy od jej głębokości
+
+    @Query(TRACK_RESPONSE + "WHERE t.createdAt < :createdAt OR (t.createdAt = :createdAt AND t.id < :id) " +
+            "ORDER BY t.createdAt DESC, t.id DESC")
+    List<TrackResponse> findNewestAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
+    @Query(TRACK_RESPONSE + "WHERE t.genre = :genre " +
+            "AND (t.createdAt < :createdAt OR (t.createdAt = :createdAt AND t.id < :id)) " +
+            "ORDER BY t.createdAt DESC, t.id DESC")
+    List<TrackResponse> findNewestByGenreAfter(@Param("genre") String genre, @Param("createdAt") LocalDateTime createdAt,
+                                       @Param("id") Long id, Pageable pageable);
+
+    @Query(TRACK_RESPONSE + "WHERE t.createdAt > :createdAt OR (t.createdAt = :createdAt AND t.id > :id) " +
+            "ORDER BY t.createdAt ASC, t.id ASC")
+    List<TrackResponse> findOldestAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
+    @Query(TRACK_RESPONSE + "WHERE t.genre = :genre " +
+            "AND (t.createdAt > :createdAt OR (t.createdAt = :createdAt AND t.id > :id)) " +
+            "ORDER BY t.createdAt ASC, t.id ASC")
+    List<TrackResponse> findOldestByGenreAfter(@Param("genre") String genre, @Param("createdAt") LocalDateTime createdAt,
+                                       @Param("id") Long id, Pageable pageable);
+
+    @Query(TRACK_RESPONSE + "WHERE t.plays < :plays OR (t.plays = :plays AND t.id < :id) " +
+            "ORDER BY t.plays DESC, t.id DESC")
+    List<TrackResponse> findPopularAfter(@Param("plays") Integer plays, @Param("id") Long id, Pageable pageable);
+
+    @Query(TRACK_RESPONSE + "WHERE t.genre = :genre " +
+            "AND (t.plays < :plays OR (t.plays = :plays AND t.id < :id)) " +
+            "ORDER BY t.plays DESC, t.id DESC")
+    List<TrackResponse> findPopularByGenreAfter(@Param("genre") String genre, @Param("plays") Integer plays,
+                                        @Param("id") Long id, Pageable pageable);
+
+    @Query(TRACK_RESPONSE + "WHERE t.likes < :likes OR (t.likes = :likes AND t.id < :id) " +
+            "ORDER BY t.likes DESC, t.id DESC")
+    List<TrackResponse> findLikedAfter(@Param("likes") Integer likes, @Param("id") Long id, Pageable pageable);
 
-    @Query("SELECT t FROM Track t ORDER BY t.createdAt DESC")
-    List<Track> findNewestTracks();
+    @Query(TRACK_RESPONSE + "WHERE t.genre = :genre " +
+            "AND (t.likes < :likes OR (t.likes = :likes AND t.id < :id)) " +
+            "ORDER BY t.likes DESC, t.id DESC")
+    List<TrackResponse> findLikedByGenreAfter(@Param("genre") String genre, @Param("likes") Integer likes,
+                                      @Param("id") Long id, Pageable pageable);
 }
@@ -0,0 +1,13 @@
+package com.audtream.server.model.repository;
+
+import com.audtream.server.model.entity.UploadSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+    List<UploadSession> findByUserIdAndStatus(Long userId, String status);
+
+    List<UploadSession> findByStatusAndUpdatedAtBefore(String status, LocalDateTime updatedAt);
+}
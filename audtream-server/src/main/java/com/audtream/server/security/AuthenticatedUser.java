@@ -0,0 +1,48 @@
+package com.audtream.server.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.security.Principal;
+import java.util.List;
+
+// Tożsamość odczytana z podpisanego tokenu - kontrolery dostają ją bez zapytań do bazy
+public class AuthenticatedUser implements Principal {
+
+    private final Long id;
+    private final String username;
+    private final String role;
+    private final int tokenVersion;
+
+    public AuthenticatedUser(Long id, String username, String role, int tokenVersion) {
+        this.id = id;
+        this.username = username;
+        this.role = role;
+        this.tokenVersion = tokenVersion;
+    }
+
+    public Long getId() { return id; }
+
+    public String getUsername() { return username; }
+
+    public String getRole() { return role; }
+
+    public int getTokenVersion() { return tokenVersion; }
+
+    public List<GrantedAuthority> getAuthorities() {
+        if (role == null || role.isEmpty()) {
+            return List.of();
+        }
+        return List.of(new SimpleGrantedAuthority("ROLE_" + role.toUpperCase()));
+    }
+
+    @Override
+    public String getName() {
+        return username;
+    }
+
+    @Override
+    public String toString() {
+        return username;
+    }
+}
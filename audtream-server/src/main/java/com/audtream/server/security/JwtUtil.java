@@ -2,57 +2,116 @@ package com.audtream.server.security;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.nio.charset.StandardCharsets;
-import java.util.function.Function;
+import java.util.concurrent.atomic.LongAdder;
 
 @Component
 public class JwtUtil {
 
+    private static final String CLAIM_USER_ID = "uid";
+    private static final String CLAIM_ROLE = "role";
+    private static final String CLAIM_VERSION = "ver";
+
     @Value("${app.jwt.secret}")
     private String secret;
 
     @Value("${app.jwt.expiration}")
     private Long expiration;
 
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
-    }
+    @Value("${app.jwt.verified-cache-size:1024}")
+    private int verifiedCacheSize;
 
-    public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
-    }
+    // Klucz i parser są niezmienne i bezpieczne wątkowo - budujemy je raz
+    private Key signingKey;
+    private JwtParser parser;
 
-    public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    // Ostatnio zweryfikowane tokeny: ten sam token z kolejnych żądań nie przechodzi ponownie przez HMAC.
+    // Kluczem jest cały token, nie sam podpis - inaczej podmieniony payload z cudzym podpisem trafiłby w cache
+    private Map<String, Claims> verified;
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        verified = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Claims> eldest) {
+                return size() > verifiedCacheSize;
+            }
+        };
     }
 
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    public Claims parseToken(String token) {
+        Claims cached;
+        synchronized (verified) {
+            cached = verified.get(token);
+        }
+        if (cached != null) {
+            Date expiresAt = cached.getExpiration();
+            if (expiresAt == null || expiresAt.after(new Date())) {
+                cacheHits.increment();
+                return cached;
+            }
+            synchronized (verified) {
+                verified.remove(token);
+            }
+        }
+
+        cacheMisses.increment();
+        // Podpis i data wygaśnięcia są sprawdzane tutaj - wyjątek oznacza nieprawidłowy token
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        synchronized (verified) {
+            verified.put(token, claims);
+        }
+        return claims;
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    public String generateToken(AuthenticatedUser user) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(CLAIM_USER_ID, user.getId());
+        claims.put(CLAIM_ROLE, user.getRole());
+        claims.put(CLAIM_VERSION, user.getTokenVersion());
+        return createToken(claims, user.getUsername());
     }
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public AuthenticatedUser toPrincipal(Claims claims) {
+        Number userId = claims.get(CLAIM_USER_ID, Number.class);
+        Number version = claims.get(CLAIM_VERSION, Number.class);
+        if (userId == null || version == null || claims.getSubject() == null) {
+            // Token sprzed wprowadzenia claimów - wymaga ponownego logowania
+            return null;
+        }
+        return new AuthenticatedUser(userId.longValue(), claims.getSubject(),
+                claims.get(CLAIM_ROLE, String.class), version.intValue());
     }
 
-    public String generateToken(UserDetails userDetails) {
-        Map<String, Object> claims = new HashMap<>();
-        return createToken(claims, userDetails.getUsername());
+    public Map<String, Object> getStats() {
+        long hits = cacheHits.sum();
+        long misses = cacheMisses.sum();
+        int size;
+        synchronized (verified) {
+            size = verified.size();
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("verifiedCacheHits", hits);
+        stats.put("verifiedCacheMisses", misses);
+        stats.put("verifiedCacheHitRatio", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        stats.put("verifiedCacheSize", size);
+        stats.put("verifiedCacheCapacity", verifiedCacheSize);
+        return stats;
     }
 
     private String createToken(Map<String, Object> claims, String subject) {
@@ -61,12 +120,7 @@ public class JwtUtil {
                 .setSubject(subject)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
-
-    public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
-    }
 }
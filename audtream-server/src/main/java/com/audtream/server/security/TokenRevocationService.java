@@ -0,0 +1,73 @@
+package com.audtream.server.security;
+
+import com.audtream.server.model.repository.UserRepository;
+import com.audtream.server.service.PrincipalResolutionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class TokenRevocationService {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PrincipalResolutionService principalResolutionService;
+
+    @Value("${app.jwt.version-cache-ttl-ms:60000}")
+    private long cacheTtlMs;
+
+    @Value("${app.jwt.version-cache-max-entries:100000}")
+    private int maxEntries;
+
+    private final Map<Long, CachedVersion> versions = new ConcurrentHashMap<>();
+
+    public boolean isCurrent(Long userId, int tokenVersion) {
+        Integer current = currentVersion(userId);
+        // Brak użytkownika (usunięte konto) unieważnia wszystkie jego tokeny
+        return current != null && current == tokenVersion;
+    }
+
+    public void revokeAll(Long userId) {
+        userRepository.incrementTokenVersion(userId);
+        versions.remove(userId);
+        // Aktualizacja zbiorcza omija listenery encji - migawka z wersją tokenu musi zniknąć ręcznie
+        principalResolutionService.invalidate(userId);
+    }
+
+    public void evict(Long userId) {
+        versions.remove(userId);
+    }
+
+    private Integer currentVersion(Long userId) {
+        long now = System.currentTimeMillis();
+        CachedVersion cached = versions.get(userId);
+        if (cached != null && now - cached.loadedAt < cacheTtlMs) {
+            return cached.version;
+        }
+
+        Integer version = userRepository.findTokenVersionById(userId).orElse(null);
+        if (versions.size() >= maxEntries) {
+            versions.values().removeIf(entry -> now - entry.loadedAt >= cacheTtlMs);
+            if (versions.size() >= maxEntries) {
+                versions.clear();
+            }
+        }
+        versions.put(userId, new CachedVersion(version, now));
+        return version;
+    }
+
+    private static final class CachedVersion {
+        private final Integer version;
+        private final long loadedAt;
+
+        private CachedVersion(Integer version, long loadedAt) {
+            this.version = version;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -1,27 +1,115 @@
 package com.audtream.server.service;
 
+import com.audtream.server.util.AudioProbe;
 import org.apache.tika.Tika;
 import org.apache.tika.metadata.Metadata;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
-import javax.sound.sampled.*;
-import java.io.File;
+
 import java.io.InputStream;
-import java.nio.file.Files;
-import java.nio.file.StandardCopyOption;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
 @Service
 public class AudioAnalysisService {
 
+    @Autowired
+    private FileStorageService fileStorageService;
+
     private final Tika tika = new Tika();
 
-    public AudioMetadata extractMetadata(MultipartFile file) throws Exception {
-        AudioMetadata metadata = new AudioMetadata();
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder unrecognized = new LongAdder();
+    private final LongAdder probeFailures = new LongAdder();
 
+    public Metadata parseTags(InputStream stream) throws Exception {
         Metadata tikaMetadata = new Metadata();
-        try (InputStream stream = file.getInputStream()) {
-            tika.parse(stream, tikaMetadata);
+        tika.parseToString(stream, tikaMetadata);
+        return tikaMetadata;
+    }
+
+    // Długość i przepływność z nagłówków pliku w stagingu - kilka odczytów z zakresu zamiast dekodowania
+    public AudioProbe.Result probeFile(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return record(AudioProbe.probe(new AudioProbe.RangeReader() {
+                @Override
+                public long size() throws Exception {
+                    return channel.size();
+                }
+
+                @Override
+                public byte[] read(long offset, int length) throws Exception {
+                    ByteBuffer buffer = ByteBuffer.allocate(length);
+                    while (buffer.hasRemaining()) {
+                        if (channel.read(buffer, offset + buffer.position()) < 0) {
+                            break;
+                        }
+                    }
+                    return Arrays.copyOf(buffer.array(), buffer.position());
+                }
+            }));
+        } catch (Exception e) {
+            probeFailures.increment();
+            return null;
+        }
+    }
+
+    // To samo dla obiektu już leżącego w magazynie - tylko nagłówek i ewentualnie ogon pliku przez Range
+    public AudioProbe.Result probeObject(String objectName, long size) {
+        try {
+            return record(AudioProbe.probe(new AudioProbe.RangeReader() {
+                @Override
+                public long size() {
+                    return size;
+                }
+
+                @Override
+                public byte[] read(long offset, int length) throws Exception {
+                    try (InputStream stream = fileStorageService.getFileRange(objectName, offset, length)) {
+                        return stream.readNBytes(length);
+                    }
+                }
+            }));
+        } catch (Exception e) {
+            probeFailures.increment();
+            return null;
         }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("probes", probes.sum());
+        stats.put("unrecognized", unrecognized.sum());
+        stats.put("probeFailures", probeFailures.sum());
+        return stats;
+    }
+
+    private AudioProbe.Result record(AudioProbe.Result result) {
+        probes.increment();
+        if (result == null) {
+            // Nieznany kontener - długość musi podać klient
+            unrecognized.increment();
+        }
+        return result;
+    }
+
+    public AudioMetadata buildMetadata(Metadata tikaMetadata, AudioProbe.Result probe, String originalFilename,
+                                       long fileSize, String mimeType) {
+        return buildMetadata(tikaMetadata,
+                probe != null ? Math.round(probe.getDurationSeconds()) : 0,
+                probe != null ? probe.getBitrate() : 0,
+                originalFilename, fileSize, mimeType);
+    }
+
+    public AudioMetadata buildMetadata(Metadata tikaMetadata, long duration, long bitrate, String originalFilename,
+                                       long fileSize, String mimeType) {
+        AudioMetadata metadata = new AudioMetadata();
 
         metadata.setTitle(tikaMetadata.get("title"));
         metadata.setArtist(tikaMetadata.get("artist"));
@@ -30,45 +118,28 @@ public class AudioAnalysisService {
         metadata.setYear(tikaMetadata.get("year"));
 
         if (metadata.getTitle() == null || metadata.getTitle().isEmpty()) {
-            String filename = file.getOriginalFilename();
-            if (filename != null) {
-                metadata.setTitle(filename.substring(0, filename.lastIndexOf('.')));
+            if (originalFilename != null) {
+                int dot = originalFilename.lastIndexOf('.');
+                metadata.setTitle(dot > 0 ? originalFilename.substring(0, dot) : originalFilename);
             }
         }
 
-        metadata.setDuration(calculateDuration(file));
+        metadata.setDuration(duration);
 
-        metadata.setFileSize(file.getSize());
+        metadata.setFileSize(fileSize);
 
-        metadata.setMimeType(file.getContentType());
+        metadata.setMimeType(mimeType);
 
-        if (metadata.getDuration() > 0) {
-            long bitrate = (file.getSize() * 8L) / metadata.getDuration();
+        if (bitrate > 0) {
+            // Rzeczywista przepływność strumienia audio, bez narzutu tagów i okładki
             metadata.setBitrate((int) bitrate);
+        } else if (metadata.getDuration() > 0) {
+            metadata.setBitrate((int) ((fileSize * 8L) / metadata.getDuration()));
         }
 
         return metadata;
     }
 
-    private long calculateDuration(MultipartFile file) throws Exception {
-        File tempFile = File.createTempFile("audio_", ".tmp");
-        Files.copy(file.getInputStream(), tempFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
-
-        try {
-            AudioInputStream audioStream = AudioSystem.getAudioInputStream(tempFile);
-            AudioFormat format = audioStream.getFormat();
-
-            long frames = audioStream.getFrameLength();
-            double durationInSeconds = (frames + 0.0) / format.getFrameRate();
-
-            audioStream.close();
-
-            return (long) durationInSeconds;
-        } finally {
-            tempFile.delete();
-        }
-    }
-
     public static class AudioMetadata {
         private String title;
         private String artist;
@@ -0,0 +1,182 @@
+package com.audtream.server.service;
+
+import com.audtream.server.model.dto.StreamResponse;
+import com.audtream.server.model.entity.Track;
+import io.minio.StatObjectResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+@Service
+public class AudioStreamingService {
+
+    // Każdy zakres to osobny odczyt z magazynu - przy większej liczbie oddajemy cały plik
+    private static final int MAX_RANGES = 8;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private SegmentCacheService segmentCacheService;
+
+    public StreamResponse describe(Track track, String objectName, String streamUrl) throws Exception {
+        StatObjectResponse stat = fileStorageService.statFile(objectName);
+        String mimeType = resolveMimeType(track.getMimeType(), stat.contentType());
+
+        return new StreamResponse(
+                streamUrl,
+                mimeType,
+                stat.size(),
+                true,
+                track.getBitrate() != null ? track.getBitrate().longValue() : null,
+                resolveCodec(mimeType)
+        );
+    }
+
+    public ResponseEntity<StreamingResponseBody> stream(String objectName, String mimeType,
+                                                        HttpHeaders requestHeaders) throws Exception {
+        StatObjectResponse stat = fileStorageService.statFile(objectName);
+        long contentLength = stat.size();
+        long lastModified = stat.lastModified().toInstant().toEpochMilli();
+        String etag = "\"" + stat.etag() + "\"";
+        String contentType = resolveMimeType(mimeType, stat.contentType());
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        headers.setETag(etag);
+        headers.setLastModified(lastModified);
+        headers.setCacheControl("private, max-age=86400");
+
+        if (requestHeaders.getIfNoneMatch().contains(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
+        }
+
+        String rangeHeader = requestHeaders.getFirst(HttpHeaders.RANGE);
+        List<long[]> ranges = rangeHeader == null || !isIfRangeSatisfied(requestHeaders, etag, lastModified) ?
+                null : resolveRanges(rangeHeader, contentLength);
+        if (ranges == null || ranges.size() > MAX_RANGES) {
+            headers.set(HttpHeaders.CONTENT_TYPE, contentType);
+            headers.setContentLength(contentLength);
+            return ResponseEntity.ok()
+                    .headers(headers)
+                    .body(out -> copyRange(stat, 0, contentLength, out));
+        }
+
+        if (ranges.isEmpty()) {
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + contentLength);
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE).headers(headers).build();
+        }
+
+        if (ranges.size() == 1) {
+            long start = ranges.get(0)[0];
+            long end = ranges.get(0)[1];
+            headers.set(HttpHeaders.CONTENT_TYPE, contentType);
+            headers.set(HttpHeaders.CONTENT_RANGE, contentRange(start, end, contentLength));
+            headers.setContentLength(end - start + 1);
+            return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                    .headers(headers)
+                    .body(out -> copyRange(stat, start, end - start + 1, out));
+        }
+
+        String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+        headers.set(HttpHeaders.CONTENT_TYPE, "multipart/byteranges; boundary=" + boundary);
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                .headers(headers)
+                .body(out -> {
+                    for (long[] range : ranges) {
+                        String partHeader = "\r\n--" + boundary + "\r\n"
+                                + HttpHeaders.CONTENT_TYPE + ": " + contentType + "\r\n"
+                                + HttpHeaders.CONTENT_RANGE + ": " + contentRange(range[0], range[1], contentLength)
+                                + "\r\n\r\n";
+                        out.write(partHeader.getBytes(StandardCharsets.US_ASCII));
+                        copyRange(stat, range[0], range[1] - range[0] + 1, out);
+                    }
+                    out.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+                });
+    }
+
+    private boolean isIfRangeSatisfied(HttpHeaders requestHeaders, String etag, long lastModified) {
+        String ifRange = requestHeaders.getFirst(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // If-Range wymaga silnego porównania, słabe ETagi nigdy nie pasują
+            return ifRange.equals(etag);
+        }
+        try {
+            return requestHeaders.getFirstDate(HttpHeaders.IF_RANGE) / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private List<long[]> resolveRanges(String rangeHeader, long contentLength) {
+        List<long[]> resolved = new ArrayList<>();
+        List<HttpRange> ranges;
+        try {
+            ranges = HttpRange.parseRanges(rangeHeader);
+        } catch (IllegalArgumentException e) {
+            return resolved;
+        }
+
+        for (HttpRange range : ranges) {
+            try {
+                resolved.add(new long[]{range.getRangeStart(contentLength), range.getRangeEnd(contentLength)});
+            } catch (IllegalArgumentException e) {
+                // Niespełnialny zakres pomijamy, 416 tylko gdy nie zostanie żaden
+            }
+        }
+
+        // Nakładające się i sąsiadujące zakresy scalamy, żeby nie czytać tych samych bajtów dwa razy
+        resolved.sort(Comparator.comparingLong(range -> range[0]));
+        List<long[]> merged = new ArrayList<>();
+        for (long[] range : resolved) {
+            long[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && range[0] <= last[1] + 1) {
+                last[1] = Math.max(last[1], range[1]);
+            } else {
+                merged.add(range);
+            }
+        }
+        return merged;
+    }
+
+    private void copyRange(StatObjectResponse stat, long offset, long length, OutputStream out) throws IOException {
+        segmentCacheService.copyRange(stat.object(), stat.etag(), stat.size(), offset, length, out);
+    }
+
+    private String contentRange(long start, long end, long contentLength) {
+        return "bytes " + start + "-" + end + "/" + contentLength;
+    }
+
+    private String resolveMimeType(String mimeType, String storedContentType) {
+        if (mimeType != null && !mimeType.isEmpty()) {
+            return mimeType;
+        }
+        return storedContentType != null ? storedContentType : "application/octet-stream";
+    }
+
+    private String resolveCodec(String mimeType) {
+        return switch (mimeType) {
+            case "audio/mpeg" -> "mp3";
+            case "audio/wav" -> "pcm";
+            case "audio/flac" -> "flac";
+            case "audio/aac" -> "aac";
+            case "audio/ogg" -> "vorbis";
+            default -> null;
+        };
+    }
+}
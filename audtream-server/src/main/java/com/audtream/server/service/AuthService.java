@@ -6,7 +6,6 @@ import com.audtream.server.security.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -16,7 +15,7 @@ public class AuthService {
     private AuthenticationManager authenticationManager;
 
     @Autowired
-    private UserService userService;
+    private PrincipalResolutionService principalResolutionService;
 
     @Autowired
     private JwtUtil jwtUtil;
@@ -29,9 +28,12 @@ public class AuthService {
                 )
         );
 
-        final UserDetails userDetails = userService.loadUserByUsername(authRequest.getUsername());
-        final String jwt = jwtUtil.generateToken(userDetails);
+        // Trafienie w cache wypełniony przez samo uwierzytelnienie powyżej
+        final PrincipalResolutionService.ResolvedUser user = principalResolutionService
+                .findByLogin(authRequest.getUsername())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        final String jwt = jwtUtil.generateToken(user.toPrincipal());
 
-        return new AuthResponse(jwt, userDetails.getUsername(), null);
+        return new AuthResponse(jwt, user.getUsername(), null);
     }
 }
@@ -0,0 +1,255 @@
+package com.audtream.server.service;
+
+import com.audtream.server.model.dto.UploadInitRequest;
+import com.audtream.server.model.dto.UploadPartResponse;
+import com.audtream.server.model.entity.UploadSession;
+import com.audtream.server.model.repository.UploadSessionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.*;
+
+@Service
+public class ChunkedUploadService {
+
+    // Limity S3: min. 5 MiB na część (poza ostatnią), maks. 10 000 części
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+    private static final long MAX_PART_SIZE = 5L * 1024 * 1024 * 1024;
+    private static final int MAX_PARTS = 10_000;
+
+    @Autowired
+    private S3Client s3Client;
+
+    @Autowired
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Value("${app.upload.allowed-audio-types}")
+    private String[] allowedAudioTypes;
+
+    @Value("${app.upload.chunked.default-part-size-bytes:16777216}")
+    private long defaultPartSize;
+
+    @Value("${app.upload.chunked.max-file-size-bytes:53687091200}")
+    private long maxFileSize;
+
+    @Value("${app.upload.chunked.expiry-hours:24}")
+    private long expiryHours;
+
+    public UploadSession init(Long userId, UploadInitRequest request) {
+        if (!Arrays.asList(allowedAudioTypes).contains(request.getContentType())) {
+            throw new IllegalArgumentException("Invalid audio file type");
+        }
+        // Pusty plik dałby sesję bez części, której nie da się zakończyć
+        if (request.getFileSize() == null || request.getFileSize() <= 0) {
+            throw new IllegalArgumentException("File size must be positive");
+        }
+        if (request.getFileSize() > maxFileSize) {
+            throw new IllegalArgumentException("File exceeds maximum upload size");
+        }
+
+        long partSize = request.getPartSize() != null ? request.getPartSize() : defaultPartSize;
+        partSize = Math.max(partSize, MIN_PART_SIZE);
+        partSize = Math.max(partSize, (request.getFileSize() + MAX_PARTS - 1) / MAX_PARTS);
+        partSize = Math.min(partSize, MAX_PART_SIZE);
+        int partCount = (int) ((request.getFileSize() + partSize - 1) / partSize);
+
+        String objectName = fileStorageService.newAudioObjectName(request.getFileName(), request.getContentType());
+        CreateMultipartUploadResponse created = s3Client.createMultipartUpload(
+                CreateMultipartUploadRequest.builder()
+                        .bucket(fileStorageService.getBucketName())
+                        .key(objectName)
+                        .contentType(request.getContentType())
+                        .build()
+        );
+
+        UploadSession session = new UploadSession();
+        session.setId(UUID.randomUUID().toString());
+        session.setUserId(userId);
+        session.setUploadId(created.uploadId());
+        session.setObjectName(objectName);
+        session.setOriginalFilename(request.getFileName());
+        session.setContentType(request.getContentType());
+        session.setFileSize(request.getFileSize());
+        session.setPartSize(partSize);
+        session.setPartCount(partCount);
+
+        return uploadSessionRepository.save(session);
+    }
+
+    public UploadSession getSession(String sessionId, Long userId) {
+        UploadSession session = uploadSessionRepository.findById(sessionId)
+                .orElseThrow(() -> new RuntimeException("Upload session not found"));
+
+        if (!session.getUserId().equals(userId)) {
+            throw new RuntimeException("Not authorized to access this upload");
+        }
+        return session;
+    }
+
+    public UploadPartResponse uploadPart(UploadSession session, int partNumber, InputStream body,
+                                         long contentLength, String contentMd5) {
+        requireActive(session);
+        if (partNumber < 1 || partNumber > session.getPartCount()) {
+            throw new IllegalArgumentException("Invalid part number: " + partNumber);
+        }
+
+        long expectedSize = expectedPartSize(session, partNumber);
+        if (contentLength != expectedSize) {
+            throw new IllegalArgumentException("Part " + partNumber + " must be " + expectedSize + " bytes");
+        }
+
+        UploadPartRequest.Builder request = UploadPartRequest.builder()
+                .bucket(fileStorageService.getBucketName())
+                .key(session.getObjectName())
+                .uploadId(session.getUploadId())
+                .partNumber(partNumber)
+                .contentLength(expectedSize);
+        // Integralność części sprawdza S3 po Content-MD5; sumy SHA256 wymagałyby zadeklarowania
+        // algorytmu przy tworzeniu uploadu i podawania ich dla każdej części
+        if (contentMd5 != null) {
+            request.contentMD5(contentMd5);
+        }
+
+        // Ciało żądania idzie prosto do S3, bez katalogu tymczasowego serwletu
+        software.amazon.awssdk.services.s3.model.UploadPartResponse uploaded =
+                s3Client.uploadPart(request.build(), RequestBody.fromInputStream(body, expectedSize));
+
+        // Odświeżamy updatedAt, żeby aktywny upload nie został uznany za porzucony
+        session.setUpdatedAt(LocalDateTime.now());
+        uploadSessionRepository.save(session);
+
+        return new UploadPartResponse(partNumber, expectedSize, uploaded.eTag());
+    }
+
+    public List<UploadPartResponse> listUploadedParts(UploadSession session) {
+        List<UploadPartResponse> parts = new ArrayList<>();
+        if (!UploadSession.STATUS_ACTIVE.equals(session.getStatus())) {
+            return parts;
+        }
+
+        ListPartsRequest request = ListPartsRequest.builder()
+                .bucket(fileStorageService.getBucketName())
+                .key(session.getObjectName())
+                .uploadId(session.getUploadId())
+                .build();
+
+        for (Part part : s3Client.listPartsPaginator(request).parts()) {
+            parts.add(new UploadPartResponse(part.partNumber(), part.size(), part.eTag()));
+        }
+        return parts;
+    }
+
+    public List<Integer> findMissingParts(UploadSession session, List<UploadPartResponse> uploadedParts) {
+        if (!UploadSession.STATUS_ACTIVE.equals(session.getStatus())) {
+            return new ArrayList<>();
+        }
+
+        Set<Integer> landed = new HashSet<>();
+        for (UploadPartResponse part : uploadedParts) {
+            landed.add(part.getPartNumber());
+        }
+
+        List<Integer> missing = new ArrayList<>();
+        for (int partNumber = 1; partNumber <= session.getPartCount(); partNumber++) {
+            if (!landed.contains(partNumber)) {
+                missing.add(partNumber);
+            }
+        }
+        return missing;
+    }
+
+    public String complete(UploadSession session) throws Exception {
+        if (UploadSession.STATUS_COMPLETED.equals(session.getStatus()) && session.getTrackId() == null) {
+            // Obiekt złożono, ale utwór nie powstał - ponowne wywołanie tylko dokończy jego utworzenie
+            return fileStorageService.getFileUrl(session.getObjectName());
+        }
+        requireActive(session);
+
+        List<UploadPartResponse> uploadedParts = listUploadedParts(session);
+        List<Integer> missing = findMissingParts(session, uploadedParts);
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException("Upload is missing parts: " + missing);
+        }
+
+        List<CompletedPart> completedParts = new ArrayList<>();
+        for (UploadPartResponse part : uploadedParts) {
+            completedParts.add(CompletedPart.builder()
+                    .partNumber(part.getPartNumber())
+                    .eTag(part.getEtag())
+                    .build());
+        }
+        completedParts.sort(Comparator.comparing(CompletedPart::partNumber));
+
+        s3Client.completeMultipartUpload(
+                CompleteMultipartUploadRequest.builder()
+                        .bucket(fileStorageService.getBucketName())
+                        .key(session.getObjectName())
+                        .uploadId(session.getUploadId())
+                        .multipartUpload(CompletedMultipartUpload.builder().parts(completedParts).build())
+                        .build()
+        );
+
+        session.setStatus(UploadSession.STATUS_COMPLETED);
+        uploadSessionRepository.save(session);
+
+        return fileStorageService.getFileUrl(session.getObjectName());
+    }
+
+    public void attachTrack(UploadSession session, Long trackId) {
+        session.setTrackId(trackId);
+        uploadSessionRepository.save(session);
+    }
+
+    public void abort(UploadSession session) {
+        if (!UploadSession.STATUS_ACTIVE.equals(session.getStatus())) {
+            return;
+        }
+
+        s3Client.abortMultipartUpload(
+                AbortMultipartUploadRequest.builder()
+                        .bucket(fileStorageService.getBucketName())
+                        .key(session.getObjectName())
+                        .uploadId(session.getUploadId())
+                        .build()
+        );
+
+        session.setStatus(UploadSession.STATUS_ABORTED);
+        uploadSessionRepository.save(session);
+    }
+
+    @Scheduled(fixedDelayString = "${app.upload.chunked.cleanup-interval-ms:3600000}")
+    public void abortExpiredSessions() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(expiryHours);
+        for (UploadSession session : uploadSessionRepository.findByStatusAndUpdatedAtBefore(
+                UploadSession.STATUS_ACTIVE, cutoff)) {
+            try {
+                abort(session);
+            } catch (RuntimeException e) {
+                // Spróbujemy ponownie przy następnym przebiegu
+            }
+        }
+    }
+
+    private long expectedPartSize(UploadSession session, int partNumber) {
+        if (partNumber < session.getPartCount()) {
+            return session.getPartSize();
+        }
+        return session.getFileSize() - session.getPartSize() * (session.getPartCount() - 1);
+    }
+
+    private void requireActive(UploadSession session) {
+        if (!UploadSession.STATUS_ACTIVE.equals(session.getStatus())) {
+            throw new IllegalStateException("Upload session is " + session.getStatus().toLowerCase());
+        }
+    }
+}
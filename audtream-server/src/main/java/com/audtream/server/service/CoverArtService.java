@@ -0,0 +1,223 @@
+package com.audtream.server.service;
+
+import com.audtream.server.model.entity.StoredObject;
+import com.audtream.server.model.repository.TrackRepository;
+import com.audtream.server.util.CoverThumbnails;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Okładki zapisujemy pod kluczem adresowanym treścią (covers/ab/<hash>.<ext>), a obok niego
+// kwadratowe miniatury w kilku rozmiarach i formatach - klient pobiera tylko to, co renderuje.
+// Wszystkie miniatury powstają w jednym wywołaniu ffmpeg (split + scale dla każdego wyjścia)
+@Service
+public class CoverArtService {
+
+    private static final Pattern CONTENT_HASH = Pattern.compile("[0-9a-f]{64}");
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private StoredObjectService storedObjectService;
+
+    @Autowired
+    private TrackRepository trackRepository;
+
+    @Value("${app.transcode.ffmpeg-path:ffmpeg}")
+    private String ffmpegPath;
+
+    @Value("${app.cover.jpeg-quality:4}")
+    private int jpegQuality;
+
+    @Value("${app.cover.webp-quality:80}")
+    private int webpQuality;
+
+    @Value("${app.cover.extract-embedded:true}")
+    private boolean extractEmbedded;
+
+    @Value("${app.cover.timeout-ms:30000}")
+    private long timeoutMs;
+
+    private final LongAdder stored = new LongAdder();
+    private final LongAdder deduplicated = new LongAdder();
+    private final LongAdder extracted = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public String storeCover(Path image, String contentType) throws Exception {
+        if (contentType == null || !contentType.startsWith("image/")) {
+            throw new IllegalArgumentException("Invalid image file type");
+        }
+
+        String contentHash = storedObjectService.hashFile(image);
+        StoredObject existing = storedObjectService.acquire(contentHash);
+        if (existing != null) {
+            // Ta sama okładka (np. cały album) - oryginał i miniatury już są, dopisujemy referencję
+            deduplicated.increment();
+            return fileStorageService.getFileUrl(existing.getObjectName());
+        }
+
+        String objectName = fileStorageService.coverObjectName(contentHash, contentType);
+        if (fileStorageService.fileExists(objectName)) {
+            // Okładka zapisana przed liczeniem referencji - przejmujemy ją razem z utworami, które już jej używają
+            String coverUrl = fileStorageService.getFileUrl(objectName);
+            storedObjectService.register(contentHash, objectName, Files.size(image), contentType, null, null,
+                    1 + (int) trackRepository.countByCoverUrl(coverUrl));
+            deduplicated.increment();
+            return coverUrl;
+        }
+
+        Path workDir = Files.createTempDirectory("cover-");
+        try {
+            if (!renderThumbnails(image.toString(), workDir)) {
+                // Obrazu nie da się zdekodować - zapisujemy go jak dawniej, bez miniatur
+                failures.increment();
+                try (InputStream stream = Files.newInputStream(image)) {
+                    return fileStorageService.uploadCoverStream(stream, Files.size(image), contentType, "cover");
+                }
+            }
+            for (int size : CoverThumbnails.SIZES) {
+                for (String format : CoverThumbnails.FORMATS) {
+                    fileStorageService.uploadLocalFile(workDir.resolve(size + "." + format),
+                            CoverThumbnails.objectName(objectName, size, format), CoverThumbnails.contentType(format));
+                }
+            }
+            // Oryginał na końcu - adres w tym układzie oznacza, że miniatury są kompletne
+            String coverUrl = fileStorageService.uploadLocalFile(image, objectName, contentType);
+            storedObjectService.register(contentHash, objectName, Files.size(image), contentType, null, null);
+            stored.increment();
+            return coverUrl;
+        } finally {
+            deleteRecursively(workDir);
+        }
+    }
+
+    // Okładka osadzona w tagach (APIC w ID3, PICTURE we FLAC, covr w MP4) - null, gdy jej brak
+    public String extractEmbeddedCover(Path audio) {
+        if (!extractEmbedded) {
+            return null;
+        }
+        Path file = null;
+        try {
+            file = Files.createTempFile("cover-", ".jpg");
+            boolean found = run(List.of(ffmpegPath, "-v", "error", "-y", "-i", audio.toString(),
+                    "-map", "0:v:0", "-frames:v", "1", "-update", "1", "-q:v", "2", file.toString()));
+            if (!found || Files.size(file) == 0) {
+                return null;
+            }
+            String coverUrl = storeCover(file, "image/jpeg");
+            extracted.increment();
+            return coverUrl;
+        } catch (Exception e) {
+            failures.increment();
+            return null;
+        } finally {
+            if (file != null) {
+                file.toFile().delete();
+            }
+        }
+    }
+
+    // Wywoływane przed usunięciem utworu - okładka adresowana treścią może należeć też do innych utworów
+    public void releaseCover(String coverUrl) throws Exception {
+        if (coverUrl == null) {
+            return;
+        }
+        String objectName = fileStorageService.objectNameFromUrl(coverUrl);
+        String contentHash = contentHashOf(objectName);
+        if (contentHash != null && storedObjectService.release(contentHash)) {
+            return;
+        }
+        // Okładka bez licznika referencji (zapis sprzed liczników albo bez miniatur) - decyduje liczba utworów
+        if (trackRepository.countByCoverUrl(coverUrl) > 1) {
+            return;
+        }
+        fileStorageService.deleteFile(objectName);
+        fileStorageService.deletePrefix(fileStorageService.derivedPrefix(objectName));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("stored", stored.sum());
+        stats.put("deduplicated", deduplicated.sum());
+        stats.put("extracted", extracted.sum());
+        stats.put("failures", failures.sum());
+        stats.put("sizes", CoverThumbnails.SIZES);
+        stats.put("formats", CoverThumbnails.FORMATS);
+        return stats;
+    }
+
+    private boolean renderThumbnails(String input, Path workDir) throws Exception {
+        int outputs = CoverThumbnails.SIZES.length * CoverThumbnails.FORMATS.length;
+        StringBuilder filter = new StringBuilder("[0:v]split=").append(outputs);
+        for (int i = 0; i < outputs; i++) {
+            filter.append("[in").append(i).append(']');
+        }
+
+        List<String> command = new ArrayList<>(List.of(ffmpegPath, "-v", "error", "-y", "-i", input));
+        List<String> mappings = new ArrayList<>();
+        int index = 0;
+        for (int size : CoverThumbnails.SIZES) {
+            for (String format : CoverThumbnails.FORMATS) {
+                // Przycięcie do kwadratu po przeskalowaniu krótszego boku - karty renderują okładki kwadratowe
+                filter.append(';').append("[in").append(index).append("]scale=").append(size).append(':').append(size)
+                        .append(":force_original_aspect_ratio=increase,crop=").append(size).append(':').append(size)
+                        .append("[out").append(index).append(']');
+                mappings.addAll(List.of("-map", "[out" + index + "]", "-frames:v", "1", "-update", "1"));
+                switch (format) {
+                    case "webp":
+                        mappings.addAll(List.of("-c:v", "libwebp", "-quality", String.valueOf(webpQuality)));
+                        break;
+                    default:
+                        mappings.addAll(List.of("-q:v", String.valueOf(jpegQuality)));
+                        break;
+                }
+                mappings.add(workDir.resolve(size + "." + format).toString());
+                index++;
+            }
+        }
+        command.add("-filter_complex");
+        command.add(filter.toString());
+        command.addAll(mappings);
+        return run(command);
+    }
+
+    // covers/ab/<hash>.<ext> -> <hash>; null dla kluczy spoza układu adresowanego treścią
+    private String contentHashOf(String objectName) {
+        String name = objectName.substring(objectName.lastIndexOf('/') + 1);
+        int dot = name.indexOf('.');
+        String hash = dot >= 0 ? name.substring(0, dot) : name;
+        return objectName.startsWith("covers/") && CONTENT_HASH.matcher(hash).matches() ? hash : null;
+    }
+
+    private boolean run(List<String> command) throws Exception {
+        Process process = new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        process.getOutputStream().close();
+        if (!process.waitFor(timeoutMs, TimeUnit.MILLISECONDS)) {
+            process.destroyForcibly();
+            return false;
+        }
+        return process.exitValue() == 0;
+    }
+
+    private void deleteRecursively(Path directory) {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            // Pozostałości w katalogu tymczasowym nie wpływają na wynik
+        }
+    }
+}
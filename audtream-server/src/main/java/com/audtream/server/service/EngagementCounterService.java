@@ -0,0 +1,383 @@
+package com.audtream.server.service;
+
+import com.audtream.server.model.entity.CounterFlush;
+import com.audtream.server.model.repository.CounterFlushRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+@Service
+public class EngagementCounterService {
+
+    public enum Counter {
+        TRACK_PLAYS("UPDATE tracks SET plays = plays + ? WHERE id = ?"),
+        TRACK_LIKES("UPDATE tracks SET likes = likes + ? WHERE id = ?"),
+        PLAYLIST_PLAYS("UPDATE playlists SET plays = plays + ? WHERE id = ?"),
+        PLAYLIST_LIKES("UPDATE playlists SET likes = likes + ? WHERE id = ?");
+
+        private final String updateSql;
+
+        Counter(String updateSql) {
+            this.updateSql = updateSql;
+        }
+    }
+
+    private static final String JOURNAL_PREFIX = "counters-";
+    private static final String JOURNAL_SUFFIX = ".journal";
+    private static final long CHECKPOINT_RETENTION_HOURS = 24;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CounterFlushRepository counterFlushRepository;
+
+    @Value("${app.counters.journal-dir:${user.home}/.audtream/counters}")
+    private String journalDir;
+
+    @Value("${app.counters.flush-interval-ms:2000}")
+    private long flushIntervalMs;
+
+    @Value("${app.counters.journal-sync-interval-ms:1000}")
+    private long journalSyncIntervalMs;
+
+    // Własne wątki zamiast wspólnego schedulera Springa - skanujące tabele zadania @Scheduled
+    // nie mogą opóźniać fsync dziennika ani zrzutu liczników
+    private ScheduledExecutorService scheduler;
+
+    private Path journalRoot;
+    private FileChannel journal;
+    private String journalSegment;
+    private final AtomicLong journalEvents = new AtomicLong();
+    private final AtomicLong segmentSequence = new AtomicLong();
+
+    // Zapis do dziennika i bufora odbywa się pod blokadą odczytu, rotacja pod blokadą zapisu -
+    // dzięki temu każdy przyrost trafia do tego samego segmentu, co jego migawka
+    private final ReentrantReadWriteLock rotationLock = new ReentrantReadWriteLock();
+    private final Map<Counter, ConcurrentHashMap<Long, LongAdder>> buffers = new EnumMap<>(Counter.class);
+
+    // Segmenty zrotowane, ale jeszcze niepotwierdzone w bazie: nazwa -> liczba zdarzeń
+    private final Map<String, Long> pendingSegments = new LinkedHashMap<>();
+
+    private final AtomicLong oldestPendingAt = new AtomicLong();
+    private final AtomicLong lastFlushAt = new AtomicLong();
+    private final AtomicLong lastFlushDurationMs = new AtomicLong();
+    private final AtomicLong lastFlushRows = new AtomicLong();
+    private final AtomicLong lastCheckpointCleanup = new AtomicLong();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushFailures = new LongAdder();
+    private final LongAdder journalErrors = new LongAdder();
+    private final LongAdder recoveredIncrements = new LongAdder();
+
+    @PostConstruct
+    public void init() throws IOException {
+        for (Counter counter : Counter.values()) {
+            buffers.put(counter, new ConcurrentHashMap<>());
+        }
+
+        journalRoot = Paths.get(journalDir);
+        Files.createDirectories(journalRoot);
+        recoverJournal();
+        openJournal();
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        scheduler = Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "counter-worker-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::syncJournal, journalSyncIntervalMs, journalSyncIntervalMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    public void increment(Counter counter, Long id) {
+        rotationLock.readLock().lock();
+        try {
+            appendToJournal(counter, id);
+            buffers.get(counter).computeIfAbsent(id, key -> new LongAdder()).increment();
+            oldestPendingAt.compareAndSet(0, System.currentTimeMillis());
+        } finally {
+            rotationLock.readLock().unlock();
+        }
+    }
+
+    public synchronized void flush() {
+        if (oldestPendingAt.get() == 0 && pendingSegments.isEmpty()) {
+            return;
+        }
+
+        long started = System.currentTimeMillis();
+        Map<Counter, Map<Long, Long>> snapshot;
+        long pendingSince;
+
+        rotationLock.writeLock().lock();
+        try {
+            rotateJournal();
+            snapshot = drainBuffers();
+            pendingSince = oldestPendingAt.getAndSet(0);
+        } finally {
+            rotationLock.writeLock().unlock();
+        }
+
+        long rows;
+        try {
+            rows = apply(snapshot, pendingSegments);
+        } catch (RuntimeException e) {
+            // Migawka wraca do bufora, a segmenty czekają na kolejną udaną próbę
+            restoreBuffers(snapshot, pendingSince);
+            flushFailures.increment();
+            return;
+        }
+
+        for (String segment : pendingSegments.keySet()) {
+            deleteSegment(segment);
+        }
+        pendingSegments.clear();
+
+        long finished = System.currentTimeMillis();
+        lastFlushAt.set(finished);
+        lastFlushDurationMs.set(finished - started);
+        lastFlushRows.set(rows);
+        flushes.increment();
+
+        if (finished - lastCheckpointCleanup.get() > 3_600_000L) {
+            lastCheckpointCleanup.set(finished);
+            counterFlushRepository.deleteAppliedBefore(LocalDateTime.now().minusHours(CHECKPOINT_RETENTION_HOURS));
+        }
+    }
+
+    public void syncJournal() {
+        // Zapis bez fsync przetrwa awarię procesu; fsync zawęża okno utraty przy awarii maszyny
+        rotationLock.readLock().lock();
+        try {
+            if (journal != null && journal.isOpen()) {
+                journal.force(false);
+            }
+        } catch (IOException e) {
+            journalErrors.increment();
+        } finally {
+            rotationLock.readLock().unlock();
+        }
+    }
+
+    private void flushQuietly() {
+        // Wyjątek w zadaniu cyklicznym wstrzymałby wszystkie kolejne zrzuty
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            flushFailures.increment();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long pendingCounters = 0;
+        long pendingIncrements = 0;
+        for (ConcurrentHashMap<Long, LongAdder> buffer : buffers.values()) {
+            pendingCounters += buffer.size();
+            for (LongAdder adder : buffer.values()) {
+                pendingIncrements += adder.sum();
+            }
+        }
+
+        long since = oldestPendingAt.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pendingCounters", pendingCounters);
+        stats.put("pendingIncrements", pendingIncrements);
+        stats.put("flushLagMs", since == 0 ? 0 : System.currentTimeMillis() - since);
+        stats.put("lastFlushAt", lastFlushAt.get());
+        stats.put("lastFlushDurationMs", lastFlushDurationMs.get());
+        stats.put("lastFlushRows", lastFlushRows.get());
+        stats.put("flushes", flushes.sum());
+        stats.put("flushFailures", flushFailures.sum());
+        stats.put("journalErrors", journalErrors.sum());
+        stats.put("recoveredIncrements", recoveredIncrements.sum());
+        return stats;
+    }
+
+    private long apply(Map<Counter, Map<Long, Long>> snapshot, Map<String, Long> segments) {
+        Long rows = transactionTemplate.execute(status -> {
+            long updated = 0;
+            for (Map.Entry<Counter, Map<Long, Long>> entry : snapshot.entrySet()) {
+                List<Object[]> batch = new ArrayList<>(entry.getValue().size());
+                for (Map.Entry<Long, Long> delta : entry.getValue().entrySet()) {
+                    batch.add(new Object[]{delta.getValue(), delta.getKey()});
+                }
+                if (!batch.isEmpty()) {
+                    jdbcTemplate.batchUpdate(entry.getKey().updateSql, batch);
+                    updated += batch.size();
+                }
+            }
+            for (Map.Entry<String, Long> segment : segments.entrySet()) {
+                counterFlushRepository.save(new CounterFlush(segment.getKey(), segment.getValue()));
+            }
+            return updated;
+        });
+        return rows != null ? rows : 0;
+    }
+
+    private Map<Counter, Map<Long, Long>> drainBuffers() {
+        Map<Counter, Map<Long, Long>> snapshot = new EnumMap<>(Counter.class);
+        for (Map.Entry<Counter, ConcurrentHashMap<Long, LongAdder>> entry : buffers.entrySet()) {
+            Map<Long, Long> deltas = new HashMap<>();
+            // Pod blokadą zapisu nikt nie inkrementuje, więc odczyt i wyczyszczenie są spójne
+            for (Map.Entry<Long, LongAdder> counter : entry.getValue().entrySet()) {
+                long sum = counter.getValue().sum();
+                if (sum != 0) {
+                    deltas.put(counter.getKey(), sum);
+                }
+            }
+            entry.getValue().clear();
+            snapshot.put(entry.getKey(), deltas);
+        }
+        return snapshot;
+    }
+
+    private void restoreBuffers(Map<Counter, Map<Long, Long>> snapshot, long pendingSince) {
+        for (Map.Entry<Counter, Map<Long, Long>> entry : snapshot.entrySet()) {
+            ConcurrentHashMap<Long, LongAdder> buffer = buffers.get(entry.getKey());
+            for (Map.Entry<Long, Long> delta : entry.getValue().entrySet()) {
+                buffer.computeIfAbsent(delta.getKey(), key -> new LongAdder()).add(delta.getValue());
+            }
+        }
+        if (pendingSince != 0) {
+            oldestPendingAt.accumulateAndGet(pendingSince,
+                    (current, previous) -> current == 0 ? previous : Math.min(current, previous));
+        }
+    }
+
+    private void appendToJournal(Counter counter, Long id) {
+        ByteBuffer line = ByteBuffer.wrap((counter.name() + " " + id + "\n").getBytes(StandardCharsets.US_ASCII));
+        try {
+            // Kanał w trybie APPEND: pojedynczy write dopisuje całą linię atomowo względem innych wątków
+            journal.write(line);
+            journalEvents.incrementAndGet();
+        } catch (IOException e) {
+            // Przyrost zostaje w buforze; traci jedynie ochronę przed awarią
+            journalErrors.increment();
+        }
+    }
+
+    private void openJournal() throws IOException {
+        journalSegment = JOURNAL_PREFIX + System.currentTimeMillis() + "-" + segmentSequence.incrementAndGet()
+                + JOURNAL_SUFFIX;
+        journal = FileChannel.open(journalRoot.resolve(journalSegment),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        journalEvents.set(0);
+    }
+
+    private void rotateJournal() {
+        try {
+            journal.force(false);
+            journal.close();
+        } catch (IOException e) {
+            journalErrors.increment();
+        }
+        pendingSegments.put(journalSegment, journalEvents.get());
+
+        try {
+            openJournal();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot open counter journal in " + journalRoot, e);
+        }
+    }
+
+    private void recoverJournal() throws IOException {
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(journalRoot)) {
+            segments = files
+                    .filter(path -> path.getFileName().toString().startsWith(JOURNAL_PREFIX))
+                    .filter(path -> path.getFileName().toString().endsWith(JOURNAL_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+
+        for (Path path : segments) {
+            String segment = path.getFileName().toString();
+            if (counterFlushRepository.existsById(segment)) {
+                // Zastosowany przed awarią, ale plik nie zdążył zostać usunięty
+                Files.deleteIfExists(path);
+                continue;
+            }
+
+            long events = replaySegment(path);
+            recoveredIncrements.add(events);
+            pendingSegments.put(segment, events);
+        }
+
+        if (!pendingSegments.isEmpty()) {
+            oldestPendingAt.compareAndSet(0, System.currentTimeMillis());
+        }
+    }
+
+    private long replaySegment(Path path) throws IOException {
+        String content = Files.readString(path, StandardCharsets.US_ASCII);
+        // Linia bez końcowego \n mogła zostać ucięta w połowie identyfikatora - pomijamy ją
+        int complete = content.lastIndexOf('\n') + 1;
+
+        long events = 0;
+        for (String line : content.substring(0, complete).split("\n")) {
+            String[] parts = line.split(" ");
+            if (parts.length != 2) {
+                continue;
+            }
+            try {
+                Counter counter = Counter.valueOf(parts[0]);
+                long id = Long.parseLong(parts[1]);
+                buffers.get(counter).computeIfAbsent(id, key -> new LongAdder()).increment();
+                events++;
+            } catch (IllegalArgumentException e) {
+                // Uszkodzony wpis - pomijamy
+            }
+        }
+        return events;
+    }
+
+    private void deleteSegment(String segment) {
+        try {
+            Files.deleteIfExists(journalRoot.resolve(segment));
+        } catch (IOException e) {
+            // Plik zostanie pominięty przy starcie dzięki wpisowi w counter_flushes
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(flushIntervalMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        try {
+            journal.close();
+        } catch (IOException e) {
+            journalErrors.increment();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.audtream.server.service;
+
+import com.audtream.server.model.entity.Playlist;
+import com.audtream.server.model.entity.Track;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+// Unieważnia zbuforowane odpowiedzi "explore" przy każdej zmianie utworu lub playlisty;
+// @Lazy z tego samego powodu co w UserCacheInvalidationListener
+@Component
+public class ExploreCacheListener {
+
+    @Autowired
+    @Lazy
+    private ExploreCacheService exploreCacheService;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChanged(Object entity) {
+        if (entity instanceof Track) {
+            exploreCacheService.invalidate(ExploreCacheService.Scope.TRACKS);
+        } else if (entity instanceof Playlist) {
+            exploreCacheService.invalidate(ExploreCacheService.Scope.PLAYLISTS);
+        }
+    }
+}
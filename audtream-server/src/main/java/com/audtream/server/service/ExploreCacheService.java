@@ -0,0 +1,263 @@
+package com.audtream.server.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Odpowiedzi endpointów "explore" są identyczne dla wszystkich użytkowników, więc trzymamy
+// gotowe bajty JSON-a. Po TTL wpis jest nieświeży: serwujemy go dalej, a przeliczenie
+// idzie w tle (stale-while-revalidate); dopiero po przekroczeniu max-stale czekamy na nowy wynik.
+// Wpis unieważniony zmianą danych to zwykły brak - nigdy nie serwujemy treści sprzed zapisu
+@Service
+public class ExploreCacheService {
+
+    public enum Scope { TRACKS, PLAYLISTS }
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.explore-cache.ttl-ms:30000}")
+    private long ttlMs;
+
+    @Value("${app.explore-cache.max-stale-ms:300000}")
+    private long maxStaleMs;
+
+    @Value("${app.explore-cache.max-entries:256}")
+    private int maxEntries;
+
+    @Value("${app.explore-cache.refresh-workers:2}")
+    private int refreshWorkers;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // Jedno przeliczenie na klucz naraz - pozostałe żądania czekają na ten sam wynik
+    private final Map<String, CompletableFuture<Entry>> inflight = new ConcurrentHashMap<>();
+    // Unieważnienie podbija generację zakresu zamiast przeglądać wpisy
+    private final Map<Scope, AtomicLong> generations = new EnumMap<>(Scope.class);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    private ThreadPoolExecutor refresher;
+
+    @PostConstruct
+    public void init() {
+        for (Scope scope : Scope.values()) {
+            generations.put(scope, new AtomicLong());
+        }
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        refresher = new ThreadPoolExecutor(
+                refreshWorkers, refreshWorkers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, maxEntries)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "explore-refresh-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                // Przy przepełnionej kolejce wpis po prostu zostaje nieświeży do kolejnego żądania
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdown();
+    }
+
+    public ResponseEntity<byte[]> serve(Scope scope, String key, HttpHeaders requestHeaders, Supplier<?> loader) {
+        String cacheKey = scope + ":" + key;
+        long now = System.currentTimeMillis();
+        long generation = generations.get(scope).get();
+        Entry entry = entries.get(cacheKey);
+
+        if (entry == null || entry.generation != generation || now - entry.createdAt > ttlMs + maxStaleMs) {
+            misses.increment();
+            entry = load(scope, cacheKey, loader, generation);
+        } else if (isFresh(scope, entry, now)) {
+            hits.increment();
+        } else {
+            staleHits.increment();
+            refreshAsync(scope, cacheKey, loader);
+        }
+
+        return respond(entry, requestHeaders);
+    }
+
+    public void invalidate(Scope scope) {
+        // Zdarzenia encji przychodzą przed commitem - przeliczenie uruchomione wcześniej
+        // odczytałoby stare dane i zapisało je jako świeże
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bump(scope);
+                }
+            });
+        } else {
+            bump(scope);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long bytes = 0;
+        for (Entry entry : entries.values()) {
+            bytes += entry.body.length;
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", entries.size());
+        stats.put("bytes", bytes);
+        stats.put("hits", hits.sum());
+        stats.put("staleHits", staleHits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("notModified", notModified.sum());
+        stats.put("refreshes", refreshes.sum());
+        stats.put("refreshFailures", refreshFailures.sum());
+        stats.put("invalidations", invalidations.sum());
+        stats.put("inflight", inflight.size());
+        stats.put("ttlMs", ttlMs);
+        stats.put("maxStaleMs", maxStaleMs);
+        return stats;
+    }
+
+    private void bump(Scope scope) {
+        generations.get(scope).incrementAndGet();
+        invalidations.increment();
+    }
+
+    private boolean isFresh(Scope scope, Entry entry, long now) {
+        return entry.generation == generations.get(scope).get() && now - entry.createdAt <= ttlMs;
+    }
+
+    private void refreshAsync(Scope scope, String cacheKey, Supplier<?> loader) {
+        if (inflight.containsKey(cacheKey)) {
+            return;
+        }
+        refresher.execute(() -> {
+            try {
+                load(scope, cacheKey, loader, 0);
+            } catch (RuntimeException e) {
+                // Zostaje poprzedni wpis - kolejne żądanie spróbuje ponownie
+                refreshFailures.increment();
+            }
+        });
+    }
+
+    // Single-flight: czekający przyjmują wynik trwającego przeliczenia, o ile nie zaczęło się ono
+    // przed unieważnieniem, które sami już widzą - wtedy liczą od nowa
+    private Entry load(Scope scope, String cacheKey, Supplier<?> loader, long minGeneration) {
+        while (true) {
+            CompletableFuture<Entry> created = new CompletableFuture<>();
+            CompletableFuture<Entry> running = inflight.putIfAbsent(cacheKey, created);
+            if (running == null) {
+                return build(scope, cacheKey, loader, created);
+            }
+            Entry joined;
+            try {
+                joined = running.join();
+            } catch (CompletionException e) {
+                throw new RuntimeException("Failed to build explore response", e.getCause());
+            }
+            if (joined.generation >= minGeneration) {
+                return joined;
+            }
+        }
+    }
+
+    private Entry build(Scope scope, String cacheKey, Supplier<?> loader, CompletableFuture<Entry> created) {
+        try {
+            // Generację czytamy przed zapytaniem: unieważnienie w trakcie ładowania zostawi wpis nieświeżym
+            long generation = generations.get(scope).get();
+            byte[] body = objectMapper.writeValueAsBytes(loader.get());
+            Entry entry = new Entry(body, etagOf(body), System.currentTimeMillis(), generation);
+            entries.put(cacheKey, entry);
+            evictOverflow();
+            refreshes.increment();
+            created.complete(entry);
+            return entry;
+        } catch (Exception e) {
+            created.completeExceptionally(e);
+            throw new RuntimeException("Failed to build explore response", e);
+        } finally {
+            inflight.remove(cacheKey, created);
+        }
+    }
+
+    private ResponseEntity<byte[]> respond(Entry entry, HttpHeaders requestHeaders) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(entry.etag);
+        // Klient może trzymać kopię, ale przed użyciem pyta o ETag - odpowiedź 304 nie niesie treści
+        headers.setCacheControl("public, no-cache");
+
+        if (requestHeaders.getIfNoneMatch().contains(entry.etag)) {
+            notModified.increment();
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
+        }
+
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setContentLength(entry.body.length);
+        return ResponseEntity.ok().headers(headers).body(entry.body);
+    }
+
+    private void evictOverflow() {
+        while (entries.size() > maxEntries) {
+            String oldest = null;
+            long oldestAt = Long.MAX_VALUE;
+            for (Map.Entry<String, Entry> candidate : entries.entrySet()) {
+                if (candidate.getValue().createdAt < oldestAt) {
+                    oldest = candidate.getKey();
+                    oldestAt = candidate.getValue().createdAt;
+                }
+            }
+            if (oldest == null) {
+                return;
+            }
+            entries.remove(oldest);
+        }
+    }
+
+    // Silny ETag z treści: identyczne bajty po przeliczeniu dają ten sam znacznik i klient dostaje 304
+    private String etagOf(byte[] body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return "\"" + HexFormat.of().formatHex(digest.digest(body), 0, 16) + "\"";
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to compute ETag", e);
+        }
+    }
+
+    private static final class Entry {
+        private final byte[] body;
+        private final String etag;
+        private final long createdAt;
+        private final long generation;
+
+        private Entry(byte[] body, String etag, long createdAt, long generation) {
+            this.body = body;
+            this.etag = etag;
+            this.createdAt = createdAt;
+            this.generation = generation;
+        }
+    }
+}
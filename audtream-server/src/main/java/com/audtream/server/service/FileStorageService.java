@@ -10,10 +10,12 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import java.io.InputStream;
+import java.nio.file.Path;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
 @Service
 public class FileStorageService {
@@ -64,19 +66,25 @@ public class FileStorageService {
     }
 
     public String uploadAudioFile(MultipartFile file, String fileName) throws Exception {
-        String contentType = file.getContentType();
+        try (InputStream stream = file.getInputStream()) {
+            return uploadAudioStream(stream, file.getSize(), file.getContentType(), fileName);
+        }
+    }
+
+    public String uploadAudioStream(InputStream stream, long size, String contentType, String fileName) throws Exception {
+        return uploadAudioObject(stream, size, contentType, newAudioObjectName(fileName, contentType));
+    }
+
+    public String uploadAudioObject(InputStream stream, long size, String contentType, String objectName) throws Exception {
         if (contentType == null || !contentType.startsWith("audio/")) {
             throw new IllegalArgumentException("Invalid audio file type");
         }
 
-        String uniqueFileName = generateFileName(fileName, contentType);
-        String objectName = "audio/" + uniqueFileName;
-
         minioClient.putObject(
                 PutObjectArgs.builder()
                         .bucket(bucketName)
                         .object(objectName)
-                        .stream(file.getInputStream(), file.getSize(), -1)
+                        .stream(stream, size, -1)
                         .contentType(contentType)
                         .build()
         );
@@ -85,7 +93,12 @@ public class FileStorageService {
     }
 
     public String uploadCoverImage(MultipartFile file, String fileName) throws Exception {
-        String contentType = file.getContentType();
+        try (InputStream stream = file.getInputStream()) {
+            return uploadCoverStream(stream, file.getSize(), file.getContentType(), fileName);
+        }
+    }
+
+    public String uploadCoverStream(InputStream stream, long size, String contentType, String fileName) throws Exception {
         if (contentType == null || !contentType.startsWith("image/")) {
             throw new IllegalArgumentException("Invalid image file type");
         }
@@ -97,7 +110,20 @@ public class FileStorageService {
                 PutObjectArgs.builder()
                         .bucket(bucketName)
                         .object(objectName)
-                        .stream(file.getInputStream(), file.getSize(), -1)
+                        .stream(stream, size, -1)
+                        .contentType(contentType)
+                        .build()
+        );
+
+        return getFileUrl(objectName);
+    }
+
+    public String uploadLocalFile(Path file, String objectName, String contentType) throws Exception {
+        minioClient.uploadObject(
+                UploadObjectArgs.builder()
+                        .bucket(bucketName)
+                        .object(objectName)
+                        .filename(file.toString())
                         .contentType(contentType)
                         .build()
         );
@@ -123,6 +149,26 @@ public class FileStorageService {
         );
     }
 
+    public InputStream getFileRange(String objectName, long offset, long length) throws Exception {
+        return minioClient.getObject(
+                GetObjectArgs.builder()
+                        .bucket(bucketName)
+                        .object(objectName)
+                        .offset(offset)
+                        .length(length)
+                        .build()
+        );
+    }
+
+    public StatObjectResponse statFile(String objectName) throws Exception {
+        return minioClient.statObject(
+                StatObjectArgs.builder()
+                        .bucket(bucketName)
+                        .object(objectName)
+                        .build()
+        );
+    }
+
     public void deleteFile(String objectName) throws Exception {
         minioClient.removeObject(
                 RemoveObjectArgs.builder()
@@ -132,6 +178,23 @@ public class FileStorageService {
         );
     }
 
+    public int deletePrefix(String prefix) throws Exception {
+        int deleted = 0;
+        Iterable<Result<Item>> results = minioClient.listObjects(
+                ListObjectsArgs.builder()
+                        .bucket(bucketName)
+                        .prefix(prefix)
+                        .recursive(true)
+                        .build()
+        );
+
+        for (Result<Item> result : results) {
+            deleteFile(result.get().objectName());
+            deleted++;
+        }
+        return deleted;
+    }
+
     public List<String> listFiles(String prefix) throws Exception {
         List<String> files = new ArrayList<>();
 
@@ -150,10 +213,48 @@ public class FileStorageService {
         return files;
     }
 
+    public String newAudioObjectName(String fileName, String contentType) {
+        return "audio/" + generateFileName(fileName, contentType);
+    }
+
+    public String contentAddressedObjectName(String contentHash, String contentType) {
+        // Podział na katalogi po prefiksie hasha, żeby listowanie nie trafiało na jeden gigantyczny prefiks
+        return "audio/" + contentHash.substring(0, 2) + "/" + contentHash + getFileExtension(contentType);
+    }
+
+    public String coverObjectName(String contentHash, String contentType) {
+        return "covers/" + contentHash.substring(0, 2) + "/" + contentHash + getFileExtension(contentType);
+    }
+
+    public String derivedPrefix(String objectName) {
+        // Pliki pochodne leżą obok oryginału: audio/ab/<hash>.mp3 -> audio/ab/<hash>/
+        int dot = objectName.lastIndexOf('.');
+        int slash = objectName.lastIndexOf('/');
+        String base = dot > slash ? objectName.substring(0, dot) : objectName;
+        return base + "/";
+    }
+
+    public String renditionPrefix(String objectName) {
+        return derivedPrefix(objectName) + "hls/";
+    }
+
+    public String objectNameFromUrl(String fileUrl) {
+        String prefix = endpoint + "/" + bucketName + "/";
+        if (fileUrl.startsWith(prefix)) {
+            int query = fileUrl.indexOf('?');
+            return fileUrl.substring(prefix.length(), query >= 0 ? query : fileUrl.length());
+        }
+        return fileUrl;
+    }
+
+    public String getBucketName() {
+        return bucketName;
+    }
+
     private String generateFileName(String originalName, String contentType) {
         String extension = getFileExtension(contentType);
         String timestamp = String.valueOf(System.currentTimeMillis());
-        String random = String.valueOf((int)(Math.random() * 1000));
+        String random = UUID.randomUUID().toString().replace("-", "");
 
         return timestamp + "_" + random + extension;
     }
@@ -172,9 +273,13 @@ public class FileStorageService {
         };
     }
     public String getPresignedUrl(String objectName, int expirySeconds) throws Exception {
+        return getPresignedUrl(objectName, Method.GET, expirySeconds);
+    }
+
+    public String getPresignedUrl(String objectName, Method method, int expirySeconds) throws Exception {
         return minioClient.getPresignedObjectUrl(
                 GetPresignedObjectUrlArgs.builder()
-                        .method(Method.GET)
+                        .method(method)
                         .bucket(bucketName)
                         .object(objectName)
                         .expiry(expirySeconds)
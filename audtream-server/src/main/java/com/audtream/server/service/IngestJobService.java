@@ -0,0 +1,395 @@
+package com.audtream.server.service;
+
+import com.audtream.server.model.dto.TrackRequest;
+import com.audtream.server.model.entity.IngestJob;
+import com.audtream.server.model.entity.StoredObject;
+import com.audtream.server.model.entity.Track;
+import com.audtream.server.model.entity.User;
+import com.audtream.server.model.repository.IngestJobRepository;
+import com.audtream.server.model.repository.TrackRepository;
+import com.audtream.server.util.AudioProbe;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.tika.metadata.Metadata;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+public class IngestJobService {
+
+    @Autowired
+    private IngestJobRepository ingestJobRepository;
+
+    @Autowired
+    private TrackRepository trackRepository;
+
+    @Autowired
+    private TrackIngestionService trackIngestionService;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private StoredObjectService storedObjectService;
+
+    @Autowired
+    private AudioAnalysisService audioAnalysisService;
+
+    @Autowired
+    private TranscodingService transcodingService;
+
+    @Autowired
+    private WaveformService waveformService;
+
+    @Autowired
+    private CoverArtService coverArtService;
+
+    @Autowired
+    private PlaylistTrackService playlistTrackService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Zadania przeżywają restart, więc pliki w stagingu też muszą - katalog tymczasowy czyści się przy starcie systemu
+    @Value("${app.ingest.staging-dir:${user.home}/.audtream/staging}")
+    private String stagingDir;
+
+    @Value("${app.ingest.workers:4}")
+    private int workers;
+
+    @Value("${app.ingest.queue-capacity:32}")
+    private int queueCapacity;
+
+    @Value("${app.ingest.max-attempts:3}")
+    private int maxAttempts;
+
+    private Path stagingRoot;
+    private ThreadPoolExecutor executor;
+    private final Set<Long> dispatched = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() throws IOException {
+        stagingRoot = Paths.get(stagingDir);
+        Files.createDirectories(stagingRoot);
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(
+                workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "ingest-worker-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    public IngestJob submit(User user, MultipartFile audioFile, MultipartFile coverImage,
+                            TrackRequest trackRequest) throws Exception {
+        String contentType = audioFile.getContentType();
+        if (contentType == null || !contentType.startsWith("audio/")) {
+            throw new IllegalArgumentException("Invalid audio file type");
+        }
+
+        // transferTo zwykle tylko przenosi plik tymczasowy kontenera, bez kopiowania
+        Path audioPath = stagingRoot.resolve(UUID.randomUUID() + ".audio");
+        audioFile.transferTo(audioPath);
+
+        Path coverPath = null;
+        if (coverImage != null && !coverImage.isEmpty()) {
+            coverPath = stagingRoot.resolve(UUID.randomUUID() + ".cover");
+            coverImage.transferTo(coverPath);
+        }
+
+        Track track = new Track();
+        track.setTitle(trackRequest.getTitle() != null ?
+                trackRequest.getTitle() : stripExtension(audioFile.getOriginalFilename()));
+        track.setArtist(trackRequest.getArtist() != null ?
+                trackRequest.getArtist() : "Unknown Artist");
+        track.setAlbum(trackRequest.getAlbum());
+        track.setDuration(trackRequest.getDuration() != null ? trackRequest.getDuration() : 0);
+        track.setGenre(trackRequest.getGenre());
+        track.setYear(trackRequest.getYear());
+        track.setUser(user);
+        track.setFileUrl("PENDING_UPLOAD");
+        track.setMimeType(contentType);
+        track.setFileSize(audioFile.getSize());
+        track.setBitrate(0);
+        Track savedTrack = trackRepository.save(track);
+
+        IngestJob job = new IngestJob();
+        job.setTrackId(savedTrack.getId());
+        job.setUserId(user.getId());
+        job.setRequestJson(objectMapper.writeValueAsString(trackRequest));
+        job.setStagingPath(audioPath.toString());
+        job.setOriginalFilename(audioFile.getOriginalFilename());
+        job.setContentType(contentType);
+        job.setFileSize(audioFile.getSize());
+        if (coverPath != null) {
+            job.setCoverStagingPath(coverPath.toString());
+            job.setCoverContentType(coverImage.getContentType());
+            job.setCoverFileSize(coverImage.getSize());
+        }
+        IngestJob savedJob = ingestJobRepository.save(job);
+
+        dispatch(savedJob.getId());
+        return savedJob;
+    }
+
+    public IngestJob getJob(Long jobId) {
+        return ingestJobRepository.findById(jobId)
+                .orElseThrow(() -> new RuntimeException("Job not found"));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        // Zadania przerwane restartem wracają do kolejki
+        ingestJobRepository.updateStatus(IngestJob.STATUS_PROCESSING, IngestJob.STATUS_QUEUED);
+        dispatchQueued();
+    }
+
+    @Scheduled(fixedDelayString = "${app.ingest.poll-interval-ms:5000}")
+    public void dispatchQueued() {
+        for (IngestJob job : ingestJobRepository.findByStatusOrderByCreatedAtAsc(IngestJob.STATUS_QUEUED)) {
+            if (executor.getQueue().remainingCapacity() == 0) {
+                return;
+            }
+            dispatch(job.getId());
+        }
+    }
+
+    private void dispatch(Long jobId) {
+        if (!dispatched.add(jobId)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    process(jobId);
+                } finally {
+                    dispatched.remove(jobId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Kolejka pełna - zadanie zostaje QUEUED w bazie i podejmie je poller
+            dispatched.remove(jobId);
+        }
+    }
+
+    private void process(Long jobId) {
+        IngestJob job = ingestJobRepository.findById(jobId).orElse(null);
+        if (job == null || !IngestJob.STATUS_QUEUED.equals(job.getStatus())) {
+            return;
+        }
+
+        job.setStatus(IngestJob.STATUS_PROCESSING);
+        job.setAttempts(job.getAttempts() + 1);
+        job = ingestJobRepository.save(job);
+
+        String acquiredHash = null;
+        String acquiredCoverUrl = null;
+        try {
+            Track track = trackRepository.findById(job.getTrackId())
+                    .orElseThrow(() -> new RuntimeException("Track was deleted before processing"));
+            if (track.getContentHash() != null && !"PENDING_UPLOAD".equals(track.getFileUrl())) {
+                // Poprzednia próba zapisała utwór, ale nie zdążyła zamknąć zadania - utwór ma już
+                // swoje referencje, ponowne acquire dopisałoby drugą
+                complete(job, track.getId());
+                return;
+            }
+            TrackRequest trackRequest = objectMapper.readValue(job.getRequestJson(), TrackRequest.class);
+
+            Path stagedAudio = Paths.get(job.getStagingPath());
+            String contentHash = storedObjectService.hashFile(stagedAudio);
+
+            AudioAnalysisService.AudioMetadata audioMetadata;
+            String fileUrl;
+            StoredObject existing = storedObjectService.acquire(contentHash);
+            if (existing != null) {
+                // Ta sama zawartość już jest w magazynie - dopisujemy tylko wiersz utworu
+                acquiredHash = contentHash;
+                Metadata tags;
+                try (InputStream stream = Files.newInputStream(stagedAudio)) {
+                    tags = audioAnalysisService.parseTags(stream);
+                }
+                audioMetadata = audioAnalysisService.buildMetadata(tags,
+                        existing.getDuration() != null ? existing.getDuration() : 0,
+                        existing.getBitrate() != null ? existing.getBitrate() : 0,
+                        job.getOriginalFilename(), existing.getFileSize(), existing.getMimeType());
+                fileUrl = fileStorageService.getFileUrl(existing.getObjectName());
+            } else {
+                String objectName = fileStorageService.contentAddressedObjectName(contentHash, job.getContentType());
+                // Nagłówki czytamy wprost z pliku w stagingu, zanim strumień pójdzie do magazynu
+                AudioProbe.Result probe = audioAnalysisService.probeFile(stagedAudio);
+                TrackIngestionService.IngestedAudio ingested;
+                try (InputStream stream = Files.newInputStream(stagedAudio)) {
+                    ingested = trackIngestionService.ingest(stream, job.getFileSize(), job.getContentType(),
+                            job.getOriginalFilename(), objectName, probe);
+                } catch (Exception e) {
+                    storedObjectService.discardIfUnreferenced(contentHash, objectName);
+                    throw e;
+                }
+                audioMetadata = ingested.getMetadata();
+                fileUrl = ingested.getFileUrl();
+                storePeaksQuietly(objectName, ingested.getPeaks());
+                storedObjectService.register(contentHash, objectName, audioMetadata.getFileSize(),
+                        audioMetadata.getMimeType(), audioMetadata.getDuration(), audioMetadata.getBitrate());
+                acquiredHash = contentHash;
+            }
+
+            String coverUrl;
+            if (job.getCoverStagingPath() != null) {
+                coverUrl = coverArtService.storeCover(Paths.get(job.getCoverStagingPath()), job.getCoverContentType());
+            } else {
+                // Bez okładki od klienta bierzemy obrazek osadzony w tagach pliku
+                coverUrl = coverArtService.extractEmbeddedCover(stagedAudio);
+            }
+            acquiredCoverUrl = coverUrl;
+
+            track.setTitle(trackRequest.getTitle() != null ?
+                    trackRequest.getTitle() : audioMetadata.getTitle());
+            track.setArtist(trackRequest.getArtist() != null ?
+                    trackRequest.getArtist() : orDefault(audioMetadata.getArtist(), track.getArtist()));
+            track.setAlbum(trackRequest.getAlbum() != null ?
+                    trackRequest.getAlbum() : audioMetadata.getAlbum());
+            track.setDuration(trackRequest.getDuration() != null ?
+                    trackRequest.getDuration() : audioMetadata.getDuration().intValue());
+            track.setGenre(trackRequest.getGenre() != null ?
+                    trackRequest.getGenre() : audioMetadata.getGenre());
+            track.setYear(trackRequest.getYear() != null ?
+                    trackRequest.getYear() : audioMetadata.getYear());
+            track.setFileUrl(fileUrl);
+            track.setContentHash(contentHash);
+            track.setFileSize(audioMetadata.getFileSize());
+            track.setMimeType(audioMetadata.getMimeType());
+            track.setBitrate(audioMetadata.getBitrate());
+            track.setCoverUrl(coverUrl);
+            trackRepository.save(track);
+            // Referencje należą już do zapisanego utworu i zwolni je dopiero jego usunięcie
+            acquiredHash = null;
+            acquiredCoverUrl = null;
+
+            complete(job, track.getId());
+        } catch (Exception e) {
+            releaseQuietly(acquiredHash);
+            releaseCoverQuietly(acquiredCoverUrl);
+            boolean retry = job.getAttempts() < maxAttempts;
+            job.setStatus(retry ? IngestJob.STATUS_QUEUED : IngestJob.STATUS_FAILED);
+            job.setErrorMessage(truncate(e.getMessage()));
+            if (!retry) {
+                job.setCompletedAt(LocalDateTime.now());
+            }
+            ingestJobRepository.save(job);
+            if (!retry) {
+                deleteStagedFiles(job);
+                discardPendingTrackQuietly(job.getTrackId());
+            }
+        }
+    }
+
+    private void complete(IngestJob job, Long trackId) {
+        job.setStatus(IngestJob.STATUS_COMPLETED);
+        job.setErrorMessage(null);
+        job.setCompletedAt(LocalDateTime.now());
+        ingestJobRepository.save(job);
+        deleteStagedFiles(job);
+        transcodingService.submit(trackId);
+        // Dla współdzielonej zawartości szczyty już są - przeliczenie w tle tylko sprawdzi obiekt
+        waveformService.submit(trackId);
+    }
+
+    // Utwór, którego plik nigdy nie trafił do magazynu, nie może wisieć na liście jako PENDING_UPLOAD
+    private void discardPendingTrackQuietly(Long trackId) {
+        try {
+            Track track = trackRepository.findById(trackId).orElse(null);
+            if (track == null || !"PENDING_UPLOAD".equals(track.getFileUrl())) {
+                return;
+            }
+            playlistTrackService.detachTrack(track);
+            trackRepository.delete(track);
+        } catch (Exception e) {
+            // Zadanie i tak jest FAILED - wiersz utworu zostaje do ręcznego usunięcia
+        }
+    }
+
+    private void storePeaksQuietly(String objectName, byte[] peaks) {
+        if (peaks == null) {
+            return;
+        }
+        try {
+            waveformService.store(objectName, peaks);
+        } catch (Exception e) {
+            // Brak szczytów nie psuje utworu - uzupełni je przeliczenie w tle
+        }
+    }
+
+    private void releaseQuietly(String contentHash) {
+        if (contentHash == null) {
+            return;
+        }
+        try {
+            storedObjectService.release(contentHash);
+        } catch (Exception e) {
+            // Osierocona referencja najwyżej zatrzyma obiekt w magazynie
+        }
+    }
+
+    private void releaseCoverQuietly(String coverUrl) {
+        try {
+            coverArtService.releaseCover(coverUrl);
+        } catch (Exception e) {
+            // Jak wyżej - osierocona referencja zatrzyma tylko okładkę w magazynie
+        }
+    }
+
+    private void deleteStagedFiles(IngestJob job) {
+        try {
+            Files.deleteIfExists(Paths.get(job.getStagingPath()));
+            if (job.getCoverStagingPath() != null) {
+                Files.deleteIfExists(Paths.get(job.getCoverStagingPath()));
+            }
+        } catch (IOException e) {
+            // Pozostałości w katalogu staging nie wpływają na wynik zadania
+        }
+    }
+
+    private String stripExtension(String filename) {
+        if (filename == null) {
+            return "Untitled";
+        }
+        int dot = filename.lastIndexOf('.');
+        return dot > 0 ? filename.substring(0, dot) : filename;
+    }
+
+    private String orDefault(String value, String fallback) {
+        return value != null && !value.isEmpty() ? value : fallback;
+    }
+
+    private String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
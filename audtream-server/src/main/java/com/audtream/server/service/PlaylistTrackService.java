@@ -0,0 +1,181 @@
+package com.audtream.server.service;
+
+import com.audtream.server.model.entity.PlaylistTrack;
+import com.audtream.server.model.entity.Track;
+import com.audtream.server.model.repository.PlaylistRepository;
+import com.audtream.server.model.repository.PlaylistTrackRepository;
+import com.audtream.server.model.repository.TrackRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+@Service
+public class PlaylistTrackService {
+
+    @Autowired
+    private PlaylistTrackRepository playlistTrackRepository;
+
+    @Autowired
+    private PlaylistRepository playlistRepository;
+
+    @Autowired
+    private TrackRepository trackRepository;
+
+    @Autowired
+    private ExploreCacheService exploreCacheService;
+
+    @Transactional
+    public int addTracks(Long playlistId, List<Long> trackIds) {
+        // LinkedHashSet zachowuje kolejność z żądania i odsiewa duplikaty
+        Set<Long> requested = new LinkedHashSet<>(trackIds);
+        requested.removeAll(new HashSet<>(playlistTrackRepository.findTrackIds(playlistId)));
+        if (requested.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, Track> found = new HashMap<>();
+        for (Track track : trackRepository.findAllById(requested)) {
+            found.put(track.getId(), track);
+        }
+
+        Long last = playlistTrackRepository.findLastPosition(playlistId);
+        long position = last != null ? last : 0;
+        int duration = 0;
+        List<PlaylistTrack> rows = new ArrayList<>();
+        for (Long trackId : requested) {
+            Track track = found.get(trackId);
+            if (track == null) {
+                throw new RuntimeException("Track not found: " + trackId);
+            }
+            position += PlaylistTrack.GAP;
+            rows.add(new PlaylistTrack(playlistId, trackId, position));
+            duration += track.getDuration() != null ? track.getDuration() : 0;
+        }
+
+        playlistTrackRepository.saveAll(rows);
+        playlistRepository.adjustTotals(playlistId, rows.size(), duration);
+        // Zbiorczy UPDATE omija listenery encji - liczniki playlist na listach "explore" trzeba unieważnić ręcznie
+        exploreCacheService.invalidate(ExploreCacheService.Scope.PLAYLISTS);
+        return rows.size();
+    }
+
+    @Transactional
+    public int removeTracks(Long playlistId, Collection<Long> trackIds) {
+        Set<Long> ids = new HashSet<>(trackIds);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        long duration = playlistTrackRepository.sumDuration(playlistId, ids);
+        int removed = playlistTrackRepository.deleteTracks(playlistId, ids);
+        if (removed > 0) {
+            playlistRepository.adjustTotals(playlistId, -removed, (int) -duration);
+            exploreCacheService.invalidate(ExploreCacheService.Scope.PLAYLISTS);
+        }
+        return removed;
+    }
+
+    @Transactional
+    public void reorder(Long playlistId, List<Long> trackIds) {
+        List<PlaylistTrack> rows = playlistTrackRepository.findByPlaylistId(playlistId);
+        Map<Long, PlaylistTrack> byTrack = new LinkedHashMap<>();
+        for (PlaylistTrack row : rows) {
+            byTrack.put(row.getTrackId(), row);
+        }
+
+        List<PlaylistTrack> ordered = new ArrayList<>(rows.size());
+        for (Long trackId : trackIds) {
+            PlaylistTrack row = byTrack.remove(trackId);
+            if (row == null) {
+                throw new RuntimeException("Track not in playlist or listed twice: " + trackId);
+            }
+            ordered.add(row);
+        }
+        // Utwory pominięte w żądaniu zachowują swoją względną kolejność na końcu
+        ordered.addAll(byTrack.values());
+
+        // Zmieniamy tylko wiersze, których pozycja faktycznie się przesuwa
+        long position = 0;
+        for (PlaylistTrack row : ordered) {
+            position += PlaylistTrack.GAP;
+            if (row.getPosition() != position) {
+                row.setPosition(position);
+            }
+        }
+    }
+
+    @Transactional
+    public void move(Long playlistId, Long trackId, Long afterTrackId) {
+        Long current = playlistTrackRepository.findPosition(playlistId, trackId)
+                .orElseThrow(() -> new RuntimeException("Track not in playlist: " + trackId));
+        if (trackId.equals(afterTrackId)) {
+            return;
+        }
+
+        Long position = positionAfter(playlistId, afterTrackId, current);
+        if (position == null) {
+            // Między sąsiadami nie ma już wolnej pozycji - rozsuwamy całą playlistę i próbujemy ponownie
+            renumber(playlistId);
+            current = playlistTrackRepository.findPosition(playlistId, trackId).orElseThrow();
+            position = positionAfter(playlistId, afterTrackId, current);
+        }
+        if (position != null && !position.equals(current)) {
+            playlistTrackRepository.updatePosition(playlistId, trackId, position);
+        }
+    }
+
+    @Transactional
+    public void detachTrack(Track track) {
+        int duration = track.getDuration() != null ? track.getDuration() : 0;
+        List<Long> playlistIds = playlistTrackRepository.findPlaylistIds(track.getId());
+        for (Long playlistId : playlistIds) {
+            playlistRepository.adjustTotals(playlistId, -1, -duration);
+        }
+        if (!playlistIds.isEmpty()) {
+            exploreCacheService.invalidate(ExploreCacheService.Scope.PLAYLISTS);
+        }
+        playlistTrackRepository.deleteByTrackId(track.getId());
+    }
+
+    private Long positionAfter(Long playlistId, Long afterTrackId, long current) {
+        Long lower = null;
+        Long upper;
+        if (afterTrackId != null) {
+            lower = playlistTrackRepository.findPosition(playlistId, afterTrackId)
+                    .orElseThrow(() -> new RuntimeException("Track not in playlist: " + afterTrackId));
+            if (playlistTrackRepository.countAtPosition(playlistId, lower) > 1) {
+                // Remis pozycji (wiersze sprzed kolumny position) - kolejność sąsiadów nie jest jednoznaczna
+                return null;
+            }
+            upper = playlistTrackRepository.findNextPosition(playlistId, lower);
+        } else {
+            upper = playlistTrackRepository.findFirstPosition(playlistId);
+        }
+
+        if (upper != null && upper == current && (lower == null || lower < current)) {
+            // Utwór już stoi bezpośrednio za wskazanym sąsiadem
+            return current;
+        }
+        if (lower == null) {
+            return upper != null ? upper - PlaylistTrack.GAP : 0L;
+        }
+        if (upper == null) {
+            return lower + PlaylistTrack.GAP;
+        }
+        if (upper - lower < 2) {
+            return null;
+        }
+        return lower + (upper - lower) / 2;
+    }
+
+    private void renumber(Long playlistId) {
+        long position = 0;
+        for (PlaylistTrack row : playlistTrackRepository.findByPlaylistId(playlistId)) {
+            position += PlaylistTrack.GAP;
+            row.setPosition(position);
+        }
+        playlistTrackRepository.flush();
+    }
+}
@@ -0,0 +1,170 @@
+package com.audtream.server.service;
+
+import io.minio.http.Method;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Podpisane adresy na parę (obiekt, metoda). Ten sam adres wydajemy aż do upływu
+// renew-fraction jego ważności - klient może go buforować, a my nie liczymy HMAC przy każdym
+// odtworzeniu. Po tym progu wydajemy dalej stary adres i podpisujemy nowy w tle; synchronicznie
+// tylko wtedy, gdy do wygaśnięcia zostało mniej niż min-remaining
+@Service
+public class PresignedUrlService {
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Value("${app.presign.expiry-seconds:3600}")
+    private int expirySeconds;
+
+    @Value("${app.presign.renew-fraction:0.5}")
+    private double renewFraction;
+
+    @Value("${app.presign.min-remaining-seconds:300}")
+    private int minRemainingSeconds;
+
+    @Value("${app.presign.max-entries:100000}")
+    private int maxEntries;
+
+    @Value("${app.presign.workers:2}")
+    private int workers;
+
+    @Value("${app.presign.queue-capacity:1024}")
+    private int queueCapacity;
+
+    private final Map<String, PresignedUrl> entries = new ConcurrentHashMap<>();
+    private final Set<String> dispatched = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder signed = new LongAdder();
+    private final LongAdder renewals = new LongAdder();
+    private final LongAdder renewalFailures = new LongAdder();
+    private final LongAdder uncached = new LongAdder();
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCounter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(
+                workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "presign-worker-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public PresignedUrl get(String objectName) throws Exception {
+        return get(objectName, Method.GET);
+    }
+
+    public PresignedUrl get(String objectName, Method method) throws Exception {
+        String key = method + ":" + objectName;
+        long now = System.currentTimeMillis();
+        PresignedUrl entry = entries.get(key);
+
+        if (entry == null || now >= entry.expiresAt - minRemainingSeconds * 1000L) {
+            entry = sign(objectName, method);
+            if (entries.size() < maxEntries || entries.containsKey(key)) {
+                entries.put(key, entry);
+            } else {
+                // Pełna mapa - adres i tak jest poprawny, tylko nie zostanie ponownie użyty
+                uncached.increment();
+            }
+            return entry;
+        }
+
+        hits.increment();
+        if (now >= entry.renewAt) {
+            renewAsync(key, objectName, method);
+        }
+        return entry;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", entries.size());
+        stats.put("hits", hits.sum());
+        stats.put("signed", signed.sum());
+        stats.put("renewals", renewals.sum());
+        stats.put("renewalFailures", renewalFailures.sum());
+        stats.put("uncached", uncached.sum());
+        stats.put("renewQueued", executor.getQueue().size());
+        stats.put("expirySeconds", expirySeconds);
+        stats.put("renewFraction", renewFraction);
+        return stats;
+    }
+
+    // Wpisy, których nikt nie odnowił przed progiem min-remaining, i tak zostałyby podpisane od nowa
+    @Scheduled(fixedDelayString = "${app.presign.sweep-interval-ms:60000}")
+    public void sweep() {
+        long deadline = System.currentTimeMillis() + minRemainingSeconds * 1000L;
+        entries.values().removeIf(entry -> entry.expiresAt <= deadline);
+    }
+
+    private void renewAsync(String key, String objectName, Method method) {
+        if (!dispatched.add(key)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    entries.put(key, sign(objectName, method));
+                    renewals.increment();
+                } catch (Exception e) {
+                    // Zostaje stary adres - kolejne żądanie spróbuje ponownie albo podpisze synchronicznie
+                    renewalFailures.increment();
+                } finally {
+                    dispatched.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            dispatched.remove(key);
+        }
+    }
+
+    private PresignedUrl sign(String objectName, Method method) throws Exception {
+        long issuedAt = System.currentTimeMillis();
+        String url = fileStorageService.getPresignedUrl(objectName, method, expirySeconds);
+        signed.increment();
+        long lifetimeMs = expirySeconds * 1000L;
+        return new PresignedUrl(url, issuedAt + (long) (lifetimeMs * renewFraction), issuedAt + lifetimeMs);
+    }
+
+    public static class PresignedUrl {
+        private final String url;
+        private final long renewAt;
+        private final long expiresAt;
+
+        public PresignedUrl(String url, long renewAt, long expiresAt) {
+            this.url = url;
+            this.renewAt = renewAt;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getUrl() { return url; }
+
+        // Do tej chwili (ms) serwer wydaje ten sam adres - tyle klient może go trzymać
+        public long getRenewAt() { return renewAt; }
+
+        public long getExpiresAt() { return expiresAt; }
+    }
+}
@@ -0,0 +1,217 @@
+package com.audtream.server.service;
+
+import com.audtream.server.model.entity.User;
+import com.audtream.server.model.repository.UserRepository;
+import com.audtream.server.security.AuthenticatedUser;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Jedno miejsce rozwiązywania użytkownika po loginie, e-mailu lub id.
+// Trzymamy niezmienne migawki zamiast encji - odłączone encje nie nadają się do współdzielenia między wątkami.
+// Migawki mają tylko pola tożsamości; hasło sprawdzane przy logowaniu zawsze czytamy z bazy
+@Service
+public class PrincipalResolutionService {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${app.users.cache.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${app.users.cache.ttl-ms:300000}")
+    private long ttlMs;
+
+    private final Object lock = new Object();
+    private Map<String, ResolvedUser> byUsername;
+    private Map<String, ResolvedUser> byEmail;
+    private Map<Long, ResolvedUser> byId;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        byUsername = boundedMap();
+        byEmail = boundedMap();
+        byId = boundedMap();
+    }
+
+    public Optional<ResolvedUser> findByLogin(String login) {
+        if (login == null) {
+            return Optional.empty();
+        }
+        String key = normalize(login);
+        ResolvedUser cached = lookup(byUsername, key);
+        if (cached == null) {
+            cached = lookup(byEmail, key);
+        }
+        if (cached != null) {
+            hits.increment();
+            return Optional.of(cached);
+        }
+
+        misses.increment();
+        return load(() -> userRepository.findByUsername(login).or(() -> userRepository.findByEmail(login)));
+    }
+
+    public Optional<ResolvedUser> findByUsername(String username) {
+        if (username == null) {
+            return Optional.empty();
+        }
+        ResolvedUser cached = lookup(byUsername, normalize(username));
+        if (cached != null) {
+            hits.increment();
+            return Optional.of(cached);
+        }
+
+        misses.increment();
+        return load(() -> userRepository.findByUsername(username));
+    }
+
+    public Optional<ResolvedUser> findById(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        ResolvedUser cached = lookup(byId, id);
+        if (cached != null) {
+            hits.increment();
+            return Optional.of(cached);
+        }
+
+        misses.increment();
+        return load(() -> userRepository.findById(id));
+    }
+
+    public void invalidate(Long userId) {
+        synchronized (lock) {
+            ResolvedUser cached = byId.remove(userId);
+            if (cached != null) {
+                byUsername.remove(normalize(cached.getUsername()));
+                byEmail.remove(normalize(cached.getEmail()));
+            }
+        }
+        invalidations.increment();
+    }
+
+    public void invalidate(User user) {
+        synchronized (lock) {
+            ResolvedUser cached = user.getId() != null ? byId.remove(user.getId()) : null;
+            // Usuwamy też wpisy pod starymi kluczami, jeśli login albo e-mail się zmieniły
+            if (cached != null) {
+                byUsername.remove(normalize(cached.getUsername()));
+                byEmail.remove(normalize(cached.getEmail()));
+            }
+            if (user.getUsername() != null) {
+                byUsername.remove(normalize(user.getUsername()));
+            }
+            if (user.getEmail() != null) {
+                byEmail.remove(normalize(user.getEmail()));
+            }
+        }
+        invalidations.increment();
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("evictions", evictions.sum());
+        stats.put("invalidations", invalidations.sum());
+        synchronized (lock) {
+            stats.put("entries", byId.size());
+        }
+        stats.put("maxEntries", maxEntries);
+        stats.put("ttlMs", ttlMs);
+        return stats;
+    }
+
+    private <K> ResolvedUser lookup(Map<K, ResolvedUser> index, K key) {
+        synchronized (lock) {
+            ResolvedUser cached = index.get(key);
+            if (cached == null) {
+                return null;
+            }
+            if (System.currentTimeMillis() - cached.loadedAt >= ttlMs) {
+                index.remove(key);
+                evictions.increment();
+                return null;
+            }
+            return cached;
+        }
+    }
+
+    // Wpisuje do cache użytkownika przeczytanego z bazy poza tym serwisem (np. przy logowaniu)
+    public ResolvedUser remember(User user) {
+        ResolvedUser resolved = new ResolvedUser(user);
+        synchronized (lock) {
+            byId.put(resolved.getId(), resolved);
+            byUsername.put(normalize(resolved.getUsername()), resolved);
+            byEmail.put(normalize(resolved.getEmail()), resolved);
+        }
+        return resolved;
+    }
+
+    private Optional<ResolvedUser> load(Supplier<Optional<User>> loader) {
+        return loader.get().map(this::remember);
+    }
+
+    private <K> Map<K, ResolvedUser> boundedMap() {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, ResolvedUser> eldest) {
+                if (size() > maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // Kolacja MySQL porównuje loginy bez rozróżniania wielkości liter - klucze cache muszą robić to samo
+    private String normalize(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    public static final class ResolvedUser {
+        private final Long id;
+        private final String username;
+        private final String email;
+        private final String role;
+        private final int tokenVersion;
+        private final long loadedAt;
+
+        private ResolvedUser(User user) {
+            this.id = user.getId();
+            this.username = user.getUsername();
+            this.email = user.getEmail();
+            this.role = user.getRole();
+            this.tokenVersion = user.getTokenVersion() != null ? user.getTokenVersion() : 0;
+            this.loadedAt = System.currentTimeMillis();
+        }
+
+        public AuthenticatedUser toPrincipal() {
+            return new AuthenticatedUser(id, username, role, tokenVersion);
+        }
+
+        public Long getId() { return id; }
+        public String getUsername() { return username; }
+        public String getEmail() { return email; }
+        public String getRole() { return role; }
+        public int getTokenVersion() { return tokenVersion; }
+    }
+}
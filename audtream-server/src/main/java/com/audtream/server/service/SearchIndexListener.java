@@ -0,0 +1,94 @@
+package com.audtream.server.service;
+
+import com.audtream.server.model.entity.Playlist;
+import com.audtream.server.model.entity.Track;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Utrzymuje indeks wyszukiwania i drzewo podpowiedzi przyrostowo przy każdym zapisie encji;
+// @Lazy z tego samego powodu co w UserCacheInvalidationListener
+@Component
+public class SearchIndexListener {
+
+    @Autowired
+    @Lazy
+    private SearchIndexService searchIndexService;
+
+    @Autowired
+    @Lazy
+    private SuggestionService suggestionService;
+
+    @PostPersist
+    @PostUpdate
+    public void onSaved(Object entity) {
+        // Pola odczytujemy teraz - po commicie encja może być już odłączona albo zmieniona dalej
+        if (entity instanceof Track track) {
+            Long id = track.getId();
+            String title = track.getTitle();
+            String artist = track.getArtist();
+            String album = track.getAlbum();
+            String genre = track.getGenre();
+            Integer plays = track.getPlays();
+            Integer likes = track.getLikes();
+            afterCommit(() -> {
+                searchIndexService.indexTrack(id, title, artist, album, genre);
+                suggestionService.putTrack(id, title, artist, plays, likes);
+            });
+        } else if (entity instanceof Playlist playlist) {
+            Long id = playlist.getId();
+            if (Boolean.TRUE.equals(playlist.getIsPublic())) {
+                String name = playlist.getName();
+                String description = playlist.getDescription();
+                Integer plays = playlist.getPlays();
+                Integer likes = playlist.getLikes();
+                afterCommit(() -> {
+                    searchIndexService.indexPlaylist(id, name, description);
+                    suggestionService.putPlaylist(id, name, plays, likes);
+                });
+            } else {
+                afterCommit(() -> {
+                    searchIndexService.remove(SearchIndexService.DocType.PLAYLIST, id);
+                    suggestionService.removePlaylist(id);
+                });
+            }
+        }
+    }
+
+    @PostRemove
+    public void onRemoved(Object entity) {
+        if (entity instanceof Track track) {
+            Long id = track.getId();
+            afterCommit(() -> {
+                searchIndexService.remove(SearchIndexService.DocType.TRACK, id);
+                suggestionService.removeTrack(id);
+            });
+        } else if (entity instanceof Playlist playlist) {
+            Long id = playlist.getId();
+            afterCommit(() -> {
+                searchIndexService.remove(SearchIndexService.DocType.PLAYLIST, id);
+                suggestionService.removePlaylist(id);
+            });
+        }
+    }
+
+    // Zdarzenia encji przychodzą przed commitem - wycofana transakcja nie może zostawić
+    // w indeksie ani w drzewie podpowiedzi dokumentu, którego w bazie nie ma
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,494 @@
+package com.audtream.server.service;
+
+import com.audtream.server.model.repository.PlaylistRepository;
+import com.audtream.server.model.repository.TrackRepository;
+import com.audtream.server.util.SearchText;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.file.*;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+@Service
+public class SearchIndexService {
+
+    public enum DocType { TRACK, PLAYLIST }
+
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final int CATCH_UP_PAGE_SIZE = 1000;
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1000, 1, 1, 0, 0);
+
+    // Parametry BM25 i kary za dopasowania nieścisłe
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double PREFIX_WEIGHT = 0.7;
+    private static final double FUZZY_WEIGHT = 0.4;
+    private static final double FUZZY_MIN_SIMILARITY = 0.5;
+    private static final int FUZZY_MIN_LENGTH = 3;
+
+    // Wagi pól: tytuł/nazwa liczy się bardziej niż album czy opis
+    private static final float[] TRACK_FIELD_WEIGHTS = {3f, 2f, 1f, 1f};
+    private static final float[] PLAYLIST_FIELD_WEIGHTS = {3f, 1f};
+
+    @Autowired
+    private TrackRepository trackRepository;
+
+    @Autowired
+    private PlaylistRepository playlistRepository;
+
+    @Value("${app.search.snapshot-path:${java.io.tmpdir}/audtream-search.snapshot}")
+    private String snapshotPath;
+
+    @Value("${app.search.max-expansions:50}")
+    private int maxExpansions;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Doc> docs = new HashMap<>();
+    // Posortowany słownik umożliwia dopasowanie prefiksowe przez subMap
+    private final TreeMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    private final Map<String, Set<String>> gramIndex = new HashMap<>();
+    private final int[] docCount = new int[DocType.values().length];
+    private final double[] totalLength = new double[DocType.values().length];
+
+    private final AtomicLong modifications = new AtomicLong();
+    private final AtomicLong snapshotModifications = new AtomicLong(-1);
+    private final AtomicLong lastSnapshotAt = new AtomicLong();
+    private final AtomicLong lastLoadDurationMs = new AtomicLong();
+    private final LongAdder searches = new LongAdder();
+    private volatile boolean loadedFromSnapshot;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long started = System.currentTimeMillis();
+        LocalDateTime since = EARLIEST;
+
+        Long snapshotTakenAt = readSnapshot();
+        if (snapshotTakenAt != null) {
+            // Margines na zegary i transakcje zatwierdzone tuż po zrobieniu migawki
+            since = LocalDateTime.ofInstant(Instant.ofEpochMilli(snapshotTakenAt - 60_000), ZoneId.systemDefault());
+            loadedFromSnapshot = true;
+        }
+
+        catchUp(since);
+        if (snapshotTakenAt != null) {
+            dropMissing(DocType.TRACK, new HashSet<>(trackRepository.findAllIds()));
+            dropMissing(DocType.PLAYLIST, new HashSet<>(playlistRepository.findPublicIds()));
+        }
+        lastLoadDurationMs.set(System.currentTimeMillis() - started);
+    }
+
+    public void indexTrack(Long id, String title, String artist, String album, String genre) {
+        put(DocType.TRACK, id, new String[]{title, artist, album, genre});
+    }
+
+    public void indexPlaylist(Long id, String name, String description) {
+        put(DocType.PLAYLIST, id, new String[]{name, description});
+    }
+
+    public void remove(DocType type, Long id) {
+        lock.writeLock().lock();
+        try {
+            Doc removed = docs.remove(docKey(type, id));
+            if (removed != null) {
+                unlink(removed);
+                modifications.incrementAndGet();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public SearchHits search(String query, DocType type, int offset, int limit) {
+        searches.increment();
+        List<String> tokens = SearchText.tokenize(query);
+        if (tokens.isEmpty()) {
+            return new SearchHits(new ArrayList<>(), 0);
+        }
+
+        Map<Long, Double> scores = new HashMap<>();
+        Map<Long, Integer> matchedTokens = new HashMap<>();
+
+        lock.readLock().lock();
+        try {
+            int n = docCount[type.ordinal()];
+            if (n == 0) {
+                return new SearchHits(new ArrayList<>(), 0);
+            }
+            double averageLength = totalLength[type.ordinal()] / n;
+
+            for (String token : tokens) {
+                // Najlepsze dopasowanie tokenu w dokumencie - rozwinięcia prefiksu nie sumują się
+                Map<Long, Double> tokenScores = new HashMap<>();
+                for (Map.Entry<String, Double> expansion : expand(token).entrySet()) {
+                    Map<Long, Float> list = postings.get(expansion.getKey());
+                    int df = 0;
+                    for (Long key : list.keySet()) {
+                        if (typeOf(key) == type) {
+                            df++;
+                        }
+                    }
+                    if (df == 0) {
+                        continue;
+                    }
+                    double idf = Math.log(1 + (n - df + 0.5) / (df + 0.5));
+
+                    for (Map.Entry<Long, Float> posting : list.entrySet()) {
+                        Long key = posting.getKey();
+                        if (typeOf(key) != type) {
+                            continue;
+                        }
+                        double tf = posting.getValue();
+                        double length = docs.get(key).length;
+                        double norm = tf * (K1 + 1) / (tf + K1 * (1 - B + B * length / averageLength));
+                        tokenScores.merge(key, idf * norm * expansion.getValue(), Math::max);
+                    }
+                }
+                for (Map.Entry<Long, Double> entry : tokenScores.entrySet()) {
+                    scores.merge(entry.getKey(), entry.getValue(), Double::sum);
+                    matchedTokens.merge(entry.getKey(), 1, Integer::sum);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // Miękkie AND: dokumenty pokrywające wszystkie słowa zapytania wyprzedzają częściowe trafienia
+        List<Map.Entry<Long, Double>> ranked = new ArrayList<>();
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            double coverage = (double) matchedTokens.get(entry.getKey()) / tokens.size();
+            entry.setValue(entry.getValue() * coverage * coverage);
+            ranked.add(entry);
+        }
+        ranked.sort((a, b) -> {
+            int byScore = Double.compare(b.getValue(), a.getValue());
+            return byScore != 0 ? byScore : Long.compare(b.getKey(), a.getKey());
+        });
+
+        List<Long> ids = new ArrayList<>();
+        for (int i = offset; i < ranked.size() && ids.size() < limit; i++) {
+            ids.add(idOf(ranked.get(i).getKey()));
+        }
+        return new SearchHits(ids, ranked.size());
+    }
+
+    @Scheduled(fixedDelayString = "${app.search.snapshot-interval-ms:300000}")
+    public void snapshotIfChanged() {
+        if (modifications.get() != snapshotModifications.get()) {
+            writeSnapshot();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        snapshotIfChanged();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            stats.put("tracks", docCount[DocType.TRACK.ordinal()]);
+            stats.put("playlists", docCount[DocType.PLAYLIST.ordinal()]);
+            stats.put("terms", postings.size());
+            stats.put("trigrams", gramIndex.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+        stats.put("searches", searches.sum());
+        stats.put("modifications", modifications.get());
+        stats.put("loadedFromSnapshot", loadedFromSnapshot);
+        stats.put("lastLoadDurationMs", lastLoadDurationMs.get());
+        stats.put("lastSnapshotAt", lastSnapshotAt.get());
+        return stats;
+    }
+
+    private Map<String, Double> expand(String token) {
+        Map<String, Double> expansions = new LinkedHashMap<>();
+        if (postings.containsKey(token)) {
+            expansions.put(token, 1.0);
+        }
+
+        for (String term : postings.subMap(token, false, token + Character.MAX_VALUE, false).keySet()) {
+            if (expansions.size() >= maxExpansions) {
+                break;
+            }
+            expansions.put(term, PREFIX_WEIGHT);
+        }
+
+        if (expansions.isEmpty() && token.length() >= FUZZY_MIN_LENGTH) {
+            // Literówki: terminy ze słownika dzielące z zapytaniem większość trigramów (współczynnik Dice'a;
+            // słowo z dopełnieniem "$...$" ma tyle trigramów, ile liter)
+            Set<String> grams = SearchText.trigrams(token);
+            Map<String, Integer> shared = new HashMap<>();
+            for (String gram : grams) {
+                for (String term : gramIndex.getOrDefault(gram, Collections.emptySet())) {
+                    shared.merge(term, 1, Integer::sum);
+                }
+            }
+            shared.entrySet().stream()
+                    .map(entry -> Map.entry(entry.getKey(),
+                            2.0 * entry.getValue() / (grams.size() + entry.getKey().length())))
+                    .filter(entry -> entry.getValue() >= FUZZY_MIN_SIMILARITY)
+                    .sorted((a, b) -> Double.compare(b.getValue(), a.getValue()))
+                    .limit(maxExpansions)
+                    .forEach(entry -> expansions.put(entry.getKey(), FUZZY_WEIGHT * entry.getValue()));
+        }
+        return expansions;
+    }
+
+    private void put(DocType type, Long id, String[] fields) {
+        float[] weights = type == DocType.TRACK ? TRACK_FIELD_WEIGHTS : PLAYLIST_FIELD_WEIGHTS;
+        Map<String, Float> terms = new HashMap<>();
+        float length = 0;
+        for (int i = 0; i < fields.length; i++) {
+            for (String token : SearchText.tokenize(fields[i])) {
+                terms.merge(token, weights[i], Float::sum);
+                length += weights[i];
+            }
+        }
+        Doc doc = new Doc(type, id, fields, terms, length);
+
+        lock.writeLock().lock();
+        try {
+            Doc previous = docs.put(doc.key, doc);
+            if (previous != null) {
+                unlink(previous);
+            }
+            link(doc);
+            modifications.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void link(Doc doc) {
+        for (Map.Entry<String, Float> term : doc.terms.entrySet()) {
+            Map<Long, Float> list = postings.get(term.getKey());
+            if (list == null) {
+                list = new HashMap<>();
+                postings.put(term.getKey(), list);
+                for (String gram : SearchText.trigrams(term.getKey())) {
+                    gramIndex.computeIfAbsent(gram, key -> new HashSet<>()).add(term.getKey());
+                }
+            }
+            list.put(doc.key, term.getValue());
+        }
+        docCount[doc.type.ordinal()]++;
+        totalLength[doc.type.ordinal()] += doc.length;
+    }
+
+    private void unlink(Doc doc) {
+        for (String term : doc.terms.keySet()) {
+            Map<Long, Float> list = postings.get(term);
+            if (list == null) {
+                continue;
+            }
+            list.remove(doc.key);
+            if (list.isEmpty()) {
+                postings.remove(term);
+                for (String gram : SearchText.trigrams(term)) {
+                    Set<String> gramTerms = gramIndex.get(gram);
+                    if (gramTerms != null) {
+                        gramTerms.remove(term);
+                        if (gramTerms.isEmpty()) {
+                            gramIndex.remove(gram);
+                        }
+                    }
+                }
+            }
+        }
+        docCount[doc.type.ordinal()]--;
+        totalLength[doc.type.ordinal()] -= doc.length;
+    }
+
+    private void catchUp(LocalDateTime since) {
+        long afterId = 0;
+        while (true) {
+            List<TrackRepository.SearchView> page = trackRepository.findSearchViews(
+                    since, afterId, PageRequest.of(0, CATCH_UP_PAGE_SIZE));
+            for (TrackRepository.SearchView track : page) {
+                indexTrack(track.getId(), track.getTitle(), track.getArtist(), track.getAlbum(), track.getGenre());
+                afterId = track.getId();
+            }
+            if (page.size() < CATCH_UP_PAGE_SIZE) {
+                break;
+            }
+        }
+
+        afterId = 0;
+        while (true) {
+            List<PlaylistRepository.SearchView> page = playlistRepository.findSearchViews(
+                    since, afterId, PageRequest.of(0, CATCH_UP_PAGE_SIZE));
+            for (PlaylistRepository.SearchView playlist : page) {
+                indexPlaylist(playlist.getId(), playlist.getName(), playlist.getDescription());
+                afterId = playlist.getId();
+            }
+            if (page.size() < CATCH_UP_PAGE_SIZE) {
+                break;
+            }
+        }
+    }
+
+    private void dropMissing(DocType type, Set<Long> existingIds) {
+        // Usunięcia (i playlisty, które stały się prywatne) z czasu, gdy serwer nie działał
+        List<Long> stale = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Doc doc : docs.values()) {
+                if (doc.type == type && !existingIds.contains(doc.id)) {
+                    stale.add(doc.id);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        for (Long id : stale) {
+            remove(type, id);
+        }
+    }
+
+    private Long readSnapshot() {
+        Path path = Paths.get(snapshotPath);
+        if (!Files.exists(path)) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(path))))) {
+            if (in.readInt() != SNAPSHOT_VERSION) {
+                return null;
+            }
+            long takenAt = in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                DocType type = DocType.values()[in.readByte()];
+                long id = in.readLong();
+                String[] fields = new String[in.readByte()];
+                for (int f = 0; f < fields.length; f++) {
+                    fields[f] = in.readBoolean() ? in.readUTF() : null;
+                }
+                put(type, id, fields);
+            }
+            return takenAt;
+        } catch (IOException | RuntimeException e) {
+            // Uszkodzona migawka - budujemy indeks od zera z bazy
+            clear();
+            return null;
+        }
+    }
+
+    private synchronized void writeSnapshot() {
+        List<Doc> copy;
+        long version;
+        long takenAt = System.currentTimeMillis();
+        lock.readLock().lock();
+        try {
+            copy = new ArrayList<>(docs.values());
+            version = modifications.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Path path = Paths.get(snapshotPath);
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(Files.newOutputStream(temp))))) {
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeLong(takenAt);
+                out.writeInt(copy.size());
+                for (Doc doc : copy) {
+                    out.writeByte(doc.type.ordinal());
+                    out.writeLong(doc.id);
+                    out.writeByte(doc.fields.length);
+                    for (String field : doc.fields) {
+                        out.writeBoolean(field != null);
+                        if (field != null) {
+                            out.writeUTF(field);
+                        }
+                    }
+                }
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            snapshotModifications.set(version);
+            lastSnapshotAt.set(takenAt);
+        } catch (IOException e) {
+            // Następna próba przy kolejnym przebiegu; w najgorszym razie start zbuduje indeks z bazy
+        }
+    }
+
+    private void clear() {
+        lock.writeLock().lock();
+        try {
+            docs.clear();
+            postings.clear();
+            gramIndex.clear();
+            Arrays.fill(docCount, 0);
+            Arrays.fill(totalLength, 0);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static long docKey(DocType type, long id) {
+        return (id << 1) | type.ordinal();
+    }
+
+    private static DocType typeOf(long key) {
+        return DocType.values()[(int) (key & 1)];
+    }
+
+    private static long idOf(long key) {
+        return key >>> 1;
+    }
+
+    private static final class Doc {
+        private final DocType type;
+        private final long id;
+        private final long key;
+        private final String[] fields;
+        private final Map<String, Float> terms;
+        private final float length;
+
+        private Doc(DocType type, long id, String[] fields, Map<String, Float> terms, float length) {
+            this.type = type;
+            this.id = id;
+            this.key = docKey(type, id);
+            this.fields = fields;
+            this.terms = terms;
+            this.length = length;
+        }
+    }
+
+    public static class SearchHits {
+        private final List<Long> ids;
+        private final int total;
+
+        public SearchHits(List<Long> ids, int total) {
+            this.ids = ids;
+            this.total = total;
+        }
+
+        public List<Long> getIds() { return ids; }
+
+        public int getTotal() { return total; }
+    }
+}
@@ -0,0 +1,268 @@
+package com.audtream.server.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+@Service
+public class SegmentCacheService {
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Value("${app.cache.segments.dir:${java.io.tmpdir}/audtream-segments}")
+    private String cacheDir;
+
+    @Value("${app.cache.segments.max-size-bytes:2147483648}")
+    private long maxSizeBytes;
+
+    @Value("${app.cache.segments.segment-size-bytes:262144}")
+    private int segmentSize;
+
+    private Path root;
+
+    // klucz segmentu -> rozmiar w bajtach, kolejność dostępu = LRU
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long currentSize;
+
+    private final ConcurrentHashMap<String, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    // Żądania, które doczekały się cudzego pobierania segmentu - ani trafienie, ani osobny odczyt z MinIO
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder bytesServedFromCache = new LongAdder();
+    private final LongAdder bytesFetchedUpstream = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @PostConstruct
+    public void init() throws IOException {
+        root = Paths.get(cacheDir);
+        Files.createDirectories(root);
+
+        // Po restarcie odtwarzamy indeks z dysku, najstarsze segmenty jako pierwsze do usunięcia
+        try (Stream<Path> files = Files.list(root)) {
+            files.sorted(Comparator.comparingLong(this::lastModified))
+                    .forEach(path -> {
+                        String name = path.getFileName().toString();
+                        if (name.endsWith(SEGMENT_SUFFIX)) {
+                            register(name, size(path));
+                        } else if (name.endsWith(".part")) {
+                            path.toFile().delete();
+                        }
+                    });
+        }
+        evictIfNeeded();
+    }
+
+    public void copyRange(String objectName, String etag, long objectSize,
+                          long offset, long length, OutputStream out) throws IOException {
+        WritableByteChannel target = Channels.newChannel(out);
+        long end = Math.min(offset + length, objectSize);
+        long position = offset;
+
+        while (position < end) {
+            long index = position / segmentSize;
+            long segmentStart = index * segmentSize;
+            int segmentLength = (int) Math.min(segmentSize, objectSize - segmentStart);
+            int from = (int) (position - segmentStart);
+            int to = (int) Math.min(segmentLength, end - segmentStart);
+
+            String key = segmentKey(objectName, etag, index);
+            Path segment = getSegment(key, objectName, segmentStart, segmentLength);
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+                while (buffer.hasRemaining()) {
+                    target.write(buffer);
+                }
+            } catch (NoSuchFileException e) {
+                // Segment usunięty przez eviction w międzyczasie, pobierz go ponownie
+                unregister(key);
+                continue;
+            }
+
+            position = segmentStart + to;
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", total == 0 ? 0.0 : (double) hitCount / total);
+        stats.put("coalesced", coalesced.sum());
+        stats.put("bytesServedFromCache", bytesServedFromCache.sum());
+        stats.put("bytesFetchedUpstream", bytesFetchedUpstream.sum());
+        stats.put("evictions", evictions.sum());
+        synchronized (entries) {
+            stats.put("segments", entries.size());
+            stats.put("sizeBytes", currentSize);
+        }
+        stats.put("maxSizeBytes", maxSizeBytes);
+        stats.put("segmentSizeBytes", segmentSize);
+        return stats;
+    }
+
+    private Path getSegment(String key, String objectName, long segmentStart, int segmentLength) throws IOException {
+        Path path = root.resolve(key);
+        if (touch(key)) {
+            hits.increment();
+            bytesServedFromCache.add(segmentLength);
+            return path;
+        }
+
+        CompletableFuture<Path> fill = new CompletableFuture<>();
+        CompletableFuture<Path> existing = inFlight.putIfAbsent(key, fill);
+        if (existing != null) {
+            // Ktoś już pobiera ten segment - czekamy na jego wynik zamiast drugiego odczytu z MinIO.
+            // Liczymy dopiero po udanym pobraniu, żeby nieudane nie zawyżały statystyk
+            Path filled = await(existing);
+            coalesced.increment();
+            bytesServedFromCache.add(segmentLength);
+            return filled;
+        }
+
+        try {
+            if (touch(key)) {
+                hits.increment();
+                bytesServedFromCache.add(segmentLength);
+                fill.complete(path);
+                return path;
+            }
+
+            misses.increment();
+            fillSegment(path, objectName, segmentStart, segmentLength);
+            bytesFetchedUpstream.add(segmentLength);
+            register(key, segmentLength);
+            evictIfNeeded();
+            fill.complete(path);
+            return path;
+        } catch (IOException | RuntimeException e) {
+            fill.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, fill);
+        }
+    }
+
+    private void fillSegment(Path path, String objectName, long segmentStart, int segmentLength) throws IOException {
+        Path temp = Files.createTempFile(root, path.getFileName().toString(), ".part");
+        try {
+            try (InputStream in = fileStorageService.getFileRange(objectName, segmentStart, segmentLength)) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException("Failed to fetch segment of " + objectName, e);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private Path await(CompletableFuture<Path> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("Segment fill failed", e.getCause());
+        }
+    }
+
+    private boolean touch(String key) {
+        synchronized (entries) {
+            return entries.get(key) != null;
+        }
+    }
+
+    private void register(String key, long size) {
+        synchronized (entries) {
+            Long previous = entries.put(key, size);
+            currentSize += size - (previous != null ? previous : 0);
+        }
+    }
+
+    private void unregister(String key) {
+        synchronized (entries) {
+            Long previous = entries.remove(key);
+            if (previous != null) {
+                currentSize -= previous;
+            }
+        }
+    }
+
+    private void evictIfNeeded() {
+        List<String> victims = new ArrayList<>();
+        synchronized (entries) {
+            Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+            while (currentSize > maxSizeBytes && iterator.hasNext()) {
+                Map.Entry<String, Long> eldest = iterator.next();
+                currentSize -= eldest.getValue();
+                victims.add(eldest.getKey());
+                iterator.remove();
+            }
+        }
+
+        for (String key : victims) {
+            try {
+                Files.deleteIfExists(root.resolve(key));
+                evictions.increment();
+            } catch (IOException e) {
+                // Plik może być jeszcze zmapowany przez czytelnika, zostanie nadpisany przy kolejnym fill
+            }
+        }
+    }
+
+    private String segmentKey(String objectName, String etag, long index) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((objectName + "@" + etag).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 16) + "_" + index + SEGMENT_SUFFIX;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to compute segment key", e);
+        }
+    }
+
+    private long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    private long size(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+}
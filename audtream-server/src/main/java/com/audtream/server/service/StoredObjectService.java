@@ -0,0 +1,115 @@
+package com.audtream.server.service;
+
+import com.audtream.server.model.entity.StoredObject;
+import com.audtream.server.model.repository.StoredObjectRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+@Service
+public class StoredObjectService {
+
+    @Autowired
+    private StoredObjectRepository storedObjectRepository;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    public String hashFile(Path path) throws IOException {
+        try (InputStream stream = Files.newInputStream(path)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = stream.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public StoredObject acquire(String contentHash) {
+        if (storedObjectRepository.incrementRefCount(contentHash) == 0) {
+            return null;
+        }
+        return storedObjectRepository.findById(contentHash).orElse(null);
+    }
+
+    public StoredObject register(String contentHash, String objectName, long fileSize, String mimeType,
+                                 Long duration, Integer bitrate) throws Exception {
+        return register(contentHash, objectName, fileSize, mimeType, duration, bitrate, 1);
+    }
+
+    // references > 1 przejmuje obiekt, którego używano już przed wprowadzeniem liczników
+    public StoredObject register(String contentHash, String objectName, long fileSize, String mimeType,
+                                 Long duration, Integer bitrate, int references) throws Exception {
+        StoredObject storedObject = new StoredObject();
+        storedObject.setContentHash(contentHash);
+        storedObject.setObjectName(objectName);
+        storedObject.setFileSize(fileSize);
+        storedObject.setMimeType(mimeType);
+        storedObject.setDuration(duration);
+        storedObject.setBitrate(bitrate);
+        storedObject.setRefCount(references);
+
+        StoredObject saved;
+        try {
+            saved = storedObjectRepository.save(storedObject);
+        } catch (DataIntegrityViolationException e) {
+            // Ta sama zawartość została równolegle zapisana pod tym samym kluczem - dopisujemy referencję
+            if (storedObjectRepository.incrementRefCount(contentHash) > 0) {
+                return storedObjectRepository.findById(contentHash).orElse(storedObject);
+            }
+            storedObjectRepository.deleteIfUnreferenced(contentHash);
+            saved = storedObjectRepository.save(storedObject);
+        }
+
+        // Upload poprzedził wstawienie wiersza, więc release ostatniej referencji mógł w tym oknie
+        // usunąć nasz obiekt pod tym samym kluczem - wtedy wycofujemy wiersz, a zadanie ponowi upload
+        if (!fileStorageService.fileExists(objectName)) {
+            storedObjectRepository.decrementRefCount(contentHash);
+            storedObjectRepository.deleteIfUnreferenced(contentHash);
+            throw new RuntimeException("Stored object was removed concurrently: " + contentHash);
+        }
+        return saved;
+    }
+
+    // Zwolnienie odbywa się pod blokadą wiersza: acquire i register tego samego hasha czekają,
+    // aż obiekt w MinIO zniknie razem z wierszem, więc nie mogą dostać referencji do kasowanego pliku
+    // false, gdy hash nie ma wiersza - obiekt nie jest liczony i o jego usunięciu decyduje wywołujący
+    @Transactional
+    public boolean release(String contentHash) throws Exception {
+        StoredObject storedObject = storedObjectRepository.findForUpdate(contentHash).orElse(null);
+        if (storedObject == null) {
+            return false;
+        }
+
+        if (storedObject.getRefCount() > 1) {
+            storedObject.setRefCount(storedObject.getRefCount() - 1);
+            return true;
+        }
+        // Wiersz znika przed plikami - przy błędzie MinIO zostaje najwyżej osierocony obiekt, nie wiersz bez pliku
+        storedObjectRepository.delete(storedObject);
+        storedObjectRepository.flush();
+        fileStorageService.deleteFile(storedObject.getObjectName());
+        // Pliki pochodne (HLS, szczyty) są współdzielone tak jak oryginał, obok którego leżą
+        fileStorageService.deletePrefix(fileStorageService.derivedPrefix(storedObject.getObjectName()));
+        return true;
+    }
+
+    public void discardIfUnreferenced(String contentHash, String objectName) throws Exception {
+        if (!storedObjectRepository.existsById(contentHash)) {
+            fileStorageService.deleteFile(objectName);
+        }
+    }
+}
@@ -0,0 +1,437 @@
+package com.audtream.server.service;
+
+import com.audtream.server.model.repository.PlaylistRepository;
+import com.audtream.server.model.repository.TrackRepository;
+import com.audtream.server.util.SearchText;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+@Service
+public class SuggestionService {
+
+    public enum Kind { TRACK, ARTIST, PLAYLIST }
+
+    private static final int REFRESH_PAGE_SIZE = 1000;
+    // Dłuższych prefiksów nikt nie wpisuje - węzły poniżej tej głębokości tylko zajmowałyby pamięć
+    private static final int MAX_KEY_LENGTH = 32;
+    // Ile początków słów frazy indeksujemy, żeby "beatles" podpowiadało "The Beatles"
+    private static final int MAX_WORD_STARTS = 4;
+    private static final Suggestion[] NO_SUGGESTIONS = new Suggestion[0];
+
+    @Autowired
+    private TrackRepository trackRepository;
+
+    @Autowired
+    private PlaylistRepository playlistRepository;
+
+    @Value("${app.suggest.top-n:10}")
+    private int topN;
+
+    @Value("${app.suggest.like-weight:3.0}")
+    private double likeWeight;
+
+    // Odczyty przechodzą po trie bez blokady: krawędzie i listy top-N węzła są niemutowalne
+    // i podmieniane w całości, więc czytelnik zawsze widzi spójny stan węzła
+    private final Node root = new Node();
+
+    // Stan po stronie zapisu, chroniony monitorem serwisu
+    private final Map<String, Suggestion> entries = new HashMap<>();
+    private final Map<Long, TrackContribution> trackContributions = new HashMap<>();
+    private final Map<String, ArtistTotal> artistTotals = new HashMap<>();
+
+    private final LongAdder lookups = new LongAdder();
+    private final AtomicLong updates = new AtomicLong();
+    private final AtomicLong lastRefreshAt = new AtomicLong();
+    private final AtomicLong lastRefreshChanges = new AtomicLong();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.suggest.refresh-interval-ms:600000}",
+            fixedDelayString = "${app.suggest.refresh-interval-ms:600000}")
+    public void refresh() {
+        // Liczniki odtworzeń i polubień zmieniają się poza encjami (bufor liczników),
+        // więc wagi okresowo uzgadniamy z bazą - dotykamy tylko wpisów, których waga się zmieniła
+        long before = updates.get();
+        Set<Long> seenTracks = new HashSet<>();
+        long afterId = 0;
+        while (true) {
+            List<TrackRepository.SuggestView> page = trackRepository.findSuggestViews(
+                    afterId, PageRequest.of(0, REFRESH_PAGE_SIZE));
+            for (TrackRepository.SuggestView track : page) {
+                putTrack(track.getId(), track.getTitle(), track.getArtist(), track.getPlays(), track.getLikes());
+                seenTracks.add(track.getId());
+                afterId = track.getId();
+            }
+            if (page.size() < REFRESH_PAGE_SIZE) {
+                break;
+            }
+        }
+
+        Set<Long> seenPlaylists = new HashSet<>();
+        afterId = 0;
+        while (true) {
+            List<PlaylistRepository.SuggestView> page = playlistRepository.findSuggestViews(
+                    afterId, PageRequest.of(0, REFRESH_PAGE_SIZE));
+            for (PlaylistRepository.SuggestView playlist : page) {
+                putPlaylist(playlist.getId(), playlist.getName(), playlist.getPlays(), playlist.getLikes());
+                seenPlaylists.add(playlist.getId());
+                afterId = playlist.getId();
+            }
+            if (page.size() < REFRESH_PAGE_SIZE) {
+                break;
+            }
+        }
+
+        // Wpisy dodane po przejściu danej strony (nowe id albo commit spóźnionej transakcji) nie są
+        // w zbiorach "seen" - usuwamy tylko id z przeskanowanego zakresu i tylko po potwierdzeniu w bazie
+        long lastTrackId = seenTracks.isEmpty() ? 0 : Collections.max(seenTracks);
+        long lastPlaylistId = seenPlaylists.isEmpty() ? 0 : Collections.max(seenPlaylists);
+        List<Long> staleTracks = new ArrayList<>();
+        List<Long> stalePlaylists = new ArrayList<>();
+        synchronized (this) {
+            for (Long trackId : trackContributions.keySet()) {
+                if (trackId <= lastTrackId && !seenTracks.contains(trackId)) {
+                    staleTracks.add(trackId);
+                }
+            }
+            for (Suggestion entry : entries.values()) {
+                if (entry.kind == Kind.PLAYLIST && entry.id <= lastPlaylistId && !seenPlaylists.contains(entry.id)) {
+                    stalePlaylists.add(entry.id);
+                }
+            }
+        }
+        for (Long trackId : staleTracks) {
+            if (!trackRepository.existsById(trackId)) {
+                removeTrack(trackId);
+            }
+        }
+        for (Long playlistId : stalePlaylists) {
+            if (!playlistRepository.findIsPublicById(playlistId).orElse(false)) {
+                removePlaylist(playlistId);
+            }
+        }
+
+        lastRefreshAt.set(System.currentTimeMillis());
+        lastRefreshChanges.set(updates.get() - before);
+    }
+
+    public List<Suggestion> suggest(String prefix, int limit) {
+        lookups.increment();
+        String key = keyOf(SearchText.tokenize(prefix), 0);
+        if (key.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.edges.child(key.charAt(i));
+        }
+        if (node == null) {
+            return new ArrayList<>();
+        }
+
+        Suggestion[] top = node.top;
+        return new ArrayList<>(Arrays.asList(top).subList(0, Math.min(limit, top.length)));
+    }
+
+    public synchronized void putTrack(Long id, String title, String artist, Integer plays, Integer likes) {
+        double weight = weightOf(plays, likes);
+        upsert(new Suggestion(Kind.TRACK, id, title, weight));
+
+        String artistKey = keyOf(SearchText.tokenize(artist), 0);
+        TrackContribution previous = trackContributions.put(id, new TrackContribution(artistKey, weight));
+        if (previous != null && previous.artistKey.equals(artistKey)) {
+            // Ten sam wykonawca - przesuwamy tylko jego wagę o różnicę
+            adjustArtist(artistKey, artist, weight - previous.weight, 0);
+            return;
+        }
+        if (previous != null) {
+            adjustArtist(previous.artistKey, null, -previous.weight, -1);
+        }
+        adjustArtist(artistKey, artist, weight, 1);
+    }
+
+    public synchronized void removeTrack(Long id) {
+        Suggestion existing = entries.get(identity(Kind.TRACK, id));
+        if (existing != null) {
+            delete(existing);
+        }
+        TrackContribution previous = trackContributions.remove(id);
+        if (previous != null) {
+            adjustArtist(previous.artistKey, null, -previous.weight, -1);
+        }
+    }
+
+    public synchronized void putPlaylist(Long id, String name, Integer plays, Integer likes) {
+        upsert(new Suggestion(Kind.PLAYLIST, id, name, weightOf(plays, likes)));
+    }
+
+    public synchronized void removePlaylist(Long id) {
+        Suggestion existing = entries.get(identity(Kind.PLAYLIST, id));
+        if (existing != null) {
+            delete(existing);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (this) {
+            stats.put("entries", entries.size());
+            stats.put("artists", artistTotals.size());
+        }
+        stats.put("lookups", lookups.sum());
+        stats.put("updates", updates.get());
+        stats.put("lastRefreshAt", lastRefreshAt.get());
+        stats.put("lastRefreshChanges", lastRefreshChanges.get());
+        return stats;
+    }
+
+    private void adjustArtist(String artistKey, String displayName, double weight, int tracks) {
+        if (artistKey.isEmpty()) {
+            return;
+        }
+        ArtistTotal total = artistTotals.computeIfAbsent(artistKey, key -> new ArtistTotal());
+        total.weight += weight;
+        total.tracks += tracks;
+        if (displayName != null) {
+            total.displayName = displayName;
+        }
+
+        String identity = identity(Kind.ARTIST, artistKey);
+        if (total.tracks <= 0) {
+            artistTotals.remove(artistKey);
+            Suggestion existing = entries.get(identity);
+            if (existing != null) {
+                delete(existing);
+            }
+            return;
+        }
+        upsert(new Suggestion(Kind.ARTIST, null, total.displayName, Math.max(0, total.weight), artistKey));
+    }
+
+    private void upsert(Suggestion suggestion) {
+        Suggestion existing = entries.get(suggestion.identity);
+        if (existing != null && existing.weight == suggestion.weight && existing.text.equals(suggestion.text)) {
+            return;
+        }
+        if (existing != null) {
+            delete(existing);
+        }
+        if (suggestion.text == null || suggestion.text.isBlank()) {
+            return;
+        }
+
+        entries.put(suggestion.identity, suggestion);
+        for (String key : keysOf(suggestion.text)) {
+            List<Node> path = pathTo(key, true);
+            Node leaf = path.get(path.size() - 1);
+            leaf.terminals.add(suggestion);
+            recompute(path);
+        }
+        updates.incrementAndGet();
+    }
+
+    private void delete(Suggestion suggestion) {
+        entries.remove(suggestion.identity);
+        for (String key : keysOf(suggestion.text)) {
+            List<Node> path = pathTo(key, false);
+            if (path == null) {
+                continue;
+            }
+            Node leaf = path.get(path.size() - 1);
+            leaf.terminals.remove(suggestion);
+            recompute(path);
+            prune(path, key);
+        }
+        updates.incrementAndGet();
+    }
+
+    // Top-N węzła = scalenie wpisów kończących się w nim i list top-N dzieci; liczymy od liścia w górę
+    private void recompute(List<Node> path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node node = path.get(i);
+            PriorityQueue<Suggestion> best = new PriorityQueue<>(Comparator.comparingDouble(s -> s.weight));
+            Set<String> seen = new HashSet<>();
+            for (Suggestion suggestion : node.terminals) {
+                offer(best, seen, suggestion);
+            }
+            for (Node child : node.edges.children) {
+                for (Suggestion suggestion : child.top) {
+                    offer(best, seen, suggestion);
+                }
+            }
+
+            Suggestion[] top = best.toArray(NO_SUGGESTIONS);
+            Arrays.sort(top, (a, b) -> Double.compare(b.weight, a.weight));
+            node.top = top;
+        }
+    }
+
+    private void offer(PriorityQueue<Suggestion> best, Set<String> seen, Suggestion suggestion) {
+        // Ta sama fraza może dojść do węzła kilkoma kluczami (np. "la la land" i "la land")
+        if (!seen.add(suggestion.identity)) {
+            return;
+        }
+        if (best.size() < topN) {
+            best.add(suggestion);
+        } else if (best.peek().weight < suggestion.weight) {
+            best.poll();
+            best.add(suggestion);
+        }
+    }
+
+    private List<Node> pathTo(String key, boolean create) {
+        List<Node> path = new ArrayList<>(key.length() + 1);
+        Node node = root;
+        path.add(node);
+        for (int i = 0; i < key.length(); i++) {
+            Node child = node.edges.child(key.charAt(i));
+            if (child == null) {
+                if (!create) {
+                    return null;
+                }
+                child = new Node();
+                node.edges = node.edges.with(key.charAt(i), child);
+            }
+            node = child;
+            path.add(node);
+        }
+        return path;
+    }
+
+    private void prune(List<Node> path, String key) {
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node node = path.get(i);
+            if (!node.terminals.isEmpty() || node.edges.children.length > 0) {
+                return;
+            }
+            Node parent = path.get(i - 1);
+            parent.edges = parent.edges.without(key.charAt(i - 1));
+        }
+    }
+
+    private double weightOf(Integer plays, Integer likes) {
+        return (plays != null ? plays : 0) + likeWeight * (likes != null ? likes : 0);
+    }
+
+    private static Set<String> keysOf(String text) {
+        List<String> tokens = SearchText.tokenize(text);
+        Set<String> keys = new LinkedHashSet<>();
+        for (int start = 0; start < Math.min(tokens.size(), MAX_WORD_STARTS); start++) {
+            keys.add(keyOf(tokens, start));
+        }
+        return keys;
+    }
+
+    private static String keyOf(List<String> tokens, int start) {
+        String key = String.join(" ", tokens.subList(start, tokens.size()));
+        return key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH) : key;
+    }
+
+    private static String identity(Kind kind, Object id) {
+        return kind.name() + ":" + id;
+    }
+
+    private static final class Node {
+        private volatile Edges edges = Edges.EMPTY;
+        private volatile Suggestion[] top = NO_SUGGESTIONS;
+        private final List<Suggestion> terminals = new ArrayList<>(1);
+    }
+
+    // Posortowane etykiety i dzieci w równoległych tablicach - zwarte i przeszukiwane binarnie
+    private static final class Edges {
+        private static final Edges EMPTY = new Edges(new char[0], new Node[0]);
+
+        private final char[] labels;
+        private final Node[] children;
+
+        private Edges(char[] labels, Node[] children) {
+            this.labels = labels;
+            this.children = children;
+        }
+
+        private Node child(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            return index >= 0 ? children[index] : null;
+        }
+
+        private Edges with(char label, Node child) {
+            int index = -Arrays.binarySearch(labels, label) - 1;
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            newLabels[index] = label;
+            newChildren[index] = child;
+            System.arraycopy(labels, index, newLabels, index + 1, labels.length - index);
+            System.arraycopy(children, index, newChildren, index + 1, children.length - index);
+            return new Edges(newLabels, newChildren);
+        }
+
+        private Edges without(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            if (index < 0) {
+                return this;
+            }
+            char[] newLabels = new char[labels.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(labels, 0, newLabels, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(labels, index + 1, newLabels, index, labels.length - index - 1);
+            System.arraycopy(children, index + 1, newChildren, index, children.length - index - 1);
+            return new Edges(newLabels, newChildren);
+        }
+    }
+
+    private static final class TrackContribution {
+        private final String artistKey;
+        private final double weight;
+
+        private TrackContribution(String artistKey, double weight) {
+            this.artistKey = artistKey;
+            this.weight = weight;
+        }
+    }
+
+    private static final class ArtistTotal {
+        private String displayName;
+        private double weight;
+        private int tracks;
+    }
+
+    public static class Suggestion {
+        private final Kind kind;
+        private final Long id;
+        private final String text;
+        private final double weight;
+        private final String identity;
+
+        private Suggestion(Kind kind, Long id, String text, double weight) {
+            this(kind, id, text, weight, String.valueOf(id));
+        }
+
+        private Suggestion(Kind kind, Long id, String text, double weight, String key) {
+            this.kind = kind;
+            this.id = id;
+            this.text = text;
+            this.weight = weight;
+            this.identity = identity(kind, key);
+        }
+
+        public Kind getKind() { return kind; }
+
+        public Long getId() { return id; }
+
+        public String getText() { return text; }
+
+        public double getWeight() { return weight; }
+    }
+}
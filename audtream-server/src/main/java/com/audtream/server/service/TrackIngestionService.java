@@ -0,0 +1,124 @@
+package com.audtream.server.service;
+
+import com.audtream.server.util.AudioProbe;
+import com.audtream.server.util.StreamTee;
+import jakarta.annotation.PreDestroy;
+import org.apache.tika.metadata.Metadata;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+public class TrackIngestionService {
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private AudioAnalysisService audioAnalysisService;
+
+    @Autowired
+    private WaveformService waveformService;
+
+    @Value("${app.ingest.chunk-size-bytes:65536}")
+    private int chunkSize;
+
+    @Value("${app.ingest.buffered-chunks:16}")
+    private int bufferedChunks;
+
+    // Każde wgranie zajmuje trzy wątki naraz, więc pula nie może być stała -
+    // częściowo przydzielone wgrania blokowałyby się nawzajem na pełnych kolejkach
+    private final AtomicInteger threadCounter = new AtomicInteger();
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "track-ingest-" + threadCounter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public IngestedAudio ingest(InputStream source, long size, String contentType, String originalFilename,
+                                String objectName, AudioProbe.Result probe) throws Exception {
+        if (contentType == null || !contentType.startsWith("audio/")) {
+            throw new IllegalArgumentException("Invalid audio file type");
+        }
+
+        StreamTee tee = new StreamTee(source, chunkSize);
+        InputStream uploadBranch = tee.newBranch(bufferedChunks);
+        InputStream tagBranch = tee.newBranch(bufferedChunks);
+        InputStream peaksBranch = tee.newBranch(bufferedChunks);
+
+        Future<String> upload = executor.submit(() -> {
+            try (uploadBranch) {
+                return fileStorageService.uploadAudioObject(uploadBranch, size, contentType, objectName);
+            }
+        });
+        Future<Metadata> tags = executor.submit(() -> {
+            try (tagBranch) {
+                return audioAnalysisService.parseTags(tagBranch);
+            }
+        });
+        // To samo dekodowanie, które i tak trzeba by wykonać dla przebiegu, odbywa się raz - przy wgraniu
+        Future<byte[]> peaks = executor.submit(() -> {
+            try (peaksBranch) {
+                return waveformService.computePeaks(peaksBranch);
+            }
+        });
+
+        try {
+            tee.pump();
+        } catch (Exception e) {
+            upload.cancel(true);
+            tags.cancel(true);
+            peaks.cancel(true);
+            throw e;
+        }
+
+        // Sprzątanie obiektu po błędzie analizy należy do wywołującego -
+        // pod kluczem adresowanym treścią może już wisieć referencja innego utworu
+        String fileUrl = await(upload);
+        AudioAnalysisService.AudioMetadata metadata = audioAnalysisService.buildMetadata(
+                await(tags), probe, originalFilename, size, contentType);
+        return new IngestedAudio(fileUrl, metadata, await(peaks));
+    }
+
+    private <T> T await(Future<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public static class IngestedAudio {
+        private final String fileUrl;
+        private final AudioAnalysisService.AudioMetadata metadata;
+        // null, gdy ffmpeg nie zdekodował pliku - szczyty dołoży wtedy przeliczenie w tle
+        private final byte[] peaks;
+
+        public IngestedAudio(String fileUrl, AudioAnalysisService.AudioMetadata metadata, byte[] peaks) {
+            this.fileUrl = fileUrl;
+            this.metadata = metadata;
+            this.peaks = peaks;
+        }
+
+        public String getFileUrl() { return fileUrl; }
+
+        public AudioAnalysisService.AudioMetadata getMetadata() { return metadata; }
+
+        public byte[] getPeaks() { return peaks; }
+    }
+}
@@ -0,0 +1,401 @@
+package com.audtream.server.service;
+
+import com.audtream.server.model.dto.RenditionResponse;
+import com.audtream.server.model.entity.Track;
+import com.audtream.server.model.entity.TrackRendition;
+import com.audtream.server.model.repository.TrackRenditionRepository;
+import com.audtream.server.model.repository.TrackRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import net.bramp.ffmpeg.FFmpeg;
+import net.bramp.ffmpeg.FFmpegExecutor;
+import net.bramp.ffmpeg.FFprobe;
+import net.bramp.ffmpeg.builder.FFmpegBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+// Po wgraniu utworu tworzy drabinę jakości (AAC/Opus w kilku przepływnościach) spakowaną jako HLS
+// z segmentami fMP4. Pliki trafiają obok oryginału w MinIO; playlista główna zapisywana jest na końcu,
+// więc jej obecność oznacza komplet wariantów
+@Service
+public class TranscodingService {
+
+    public static final String MASTER_PLAYLIST = "master.m3u8";
+    public static final String HLS_CONTENT_TYPE = "application/vnd.apple.mpegurl";
+
+    private static final String MEDIA_PLAYLIST = "index.m3u8";
+    private static final String INIT_SEGMENT = "init.mp4";
+    private static final int SAMPLE_RATE = 48000;
+    private static final int RECOVERY_BATCH = 100;
+
+    @Autowired
+    private TrackRepository trackRepository;
+
+    @Autowired
+    private TrackRenditionRepository trackRenditionRepository;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Value("${app.transcode.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.transcode.ffmpeg-path:ffmpeg}")
+    private String ffmpegPath;
+
+    @Value("${app.transcode.ffprobe-path:ffprobe}")
+    private String ffprobePath;
+
+    // codec:kbps, np. aac:64,aac:128,opus:96
+    @Value("${app.transcode.ladder:aac:64,aac:128,aac:256,opus:64,opus:128}")
+    private String ladder;
+
+    @Value("${app.transcode.segment-seconds:6}")
+    private int segmentSeconds;
+
+    @Value("${app.transcode.work-dir:${java.io.tmpdir}/audtream-transcode}")
+    private String workDir;
+
+    @Value("${app.transcode.workers:1}")
+    private int workers;
+
+    @Value("${app.transcode.queue-capacity:64}")
+    private int queueCapacity;
+
+    private FFmpegExecutor ffmpegExecutor;
+    private List<Rung> rungs;
+    private Path workRoot;
+    private ThreadPoolExecutor executor;
+    private final Set<Long> dispatched = ConcurrentHashMap.newKeySet();
+    // Utwory, których ffmpeg nie przerobił - nie wracają do kolejki aż do restartu
+    private final Set<Long> failed = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder reused = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    @PostConstruct
+    public void init() throws IOException {
+        rungs = parseLadder(ladder);
+        workRoot = Paths.get(workDir);
+        Files.createDirectories(workRoot);
+
+        if (enabled) {
+            try {
+                ffmpegExecutor = new FFmpegExecutor(new FFmpeg(ffmpegPath), new FFprobe(ffprobePath));
+            } catch (IOException e) {
+                // Bez ffmpeg serwer działa dalej, tylko serwuje same oryginały
+                enabled = false;
+            }
+        }
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(
+                workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "transcode-worker-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                });
+    }
+
+    public void submit(Long trackId) {
+        if (!enabled || !dispatched.add(trackId)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    process(trackId);
+                } finally {
+                    dispatched.remove(trackId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Kolejka pełna - utwór podejmie okresowe przeszukanie
+            dispatched.remove(trackId);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.transcode.poll-interval-ms:60000}",
+            fixedDelayString = "${app.transcode.poll-interval-ms:60000}")
+    public void dispatchMissing() {
+        if (!enabled) {
+            return;
+        }
+        long afterId = 0;
+        while (true) {
+            List<Long> page = trackRepository.findIdsWithoutRenditions(afterId, PageRequest.of(0, RECOVERY_BATCH));
+            for (Long trackId : page) {
+                if (executor.getQueue().remainingCapacity() == 0) {
+                    return;
+                }
+                if (!failed.contains(trackId)) {
+                    submit(trackId);
+                }
+                afterId = trackId;
+            }
+            if (page.size() < RECOVERY_BATCH) {
+                return;
+            }
+        }
+    }
+
+    public String findManifestUrl(Track track) throws Exception {
+        if (!trackRenditionRepository.existsByTrackId(track.getId())) {
+            return null;
+        }
+        String objectName = fileStorageService.objectNameFromUrl(track.getFileUrl());
+        return fileStorageService.getFileUrl(fileStorageService.renditionPrefix(objectName) + MASTER_PLAYLIST);
+    }
+
+    public List<RenditionResponse> findRenditions(Long trackId) throws Exception {
+        List<RenditionResponse> renditions = new ArrayList<>();
+        for (TrackRendition rendition : trackRenditionRepository.findByTrackIdOrderByBitrateAsc(trackId)) {
+            renditions.add(new RenditionResponse(rendition.getCodec(), rendition.getBitrate(),
+                    fileStorageService.getFileUrl(rendition.getPlaylistObject())));
+        }
+        return renditions;
+    }
+
+    public void deleteRenditions(Long trackId) {
+        trackRenditionRepository.deleteByTrackId(trackId);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("ladder", ladder);
+        stats.put("queued", executor.getQueue().size());
+        stats.put("active", executor.getActiveCount());
+        stats.put("completed", completed.sum());
+        stats.put("reused", reused.sum());
+        stats.put("failures", failures.sum());
+        stats.put("skipped", failed.size());
+        return stats;
+    }
+
+    private void process(Long trackId) {
+        Track track = trackRepository.findById(trackId).orElse(null);
+        if (track == null || "PENDING_UPLOAD".equals(track.getFileUrl())) {
+            return;
+        }
+        if (track.getFileUrl().contains("?")) {
+            // Plik spoza naszego magazynu (podpisany URL) - nie ma gdzie zapisać wariantów
+            failed.add(trackId);
+            return;
+        }
+
+        Path output = null;
+        try {
+            String objectName = fileStorageService.objectNameFromUrl(track.getFileUrl());
+            String prefix = fileStorageService.renditionPrefix(objectName);
+            String masterObject = prefix + MASTER_PLAYLIST;
+
+            if (fileStorageService.fileExists(masterObject)) {
+                // Ta sama zawartość (klucz z hasha) była już przerobiona dla innego utworu
+                reused.increment();
+            } else {
+                output = Files.createTempDirectory(workRoot, "track-" + trackId + "-");
+                transcode(objectName, track.getBitrate(), output, prefix);
+                completed.increment();
+            }
+
+            String master;
+            try (InputStream stream = fileStorageService.getFile(masterObject)) {
+                master = new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            saveRenditions(trackId, prefix, master);
+        } catch (Exception e) {
+            failures.increment();
+            failed.add(trackId);
+        } finally {
+            deleteQuietly(output);
+        }
+    }
+
+    private void transcode(String objectName, Integer sourceBitrate, Path output, String prefix) throws Exception {
+        // ffmpeg czyta oryginał wprost z MinIO, bez kopii na dysku
+        String source = fileStorageService.getPresignedUrl(objectName, 3600);
+
+        List<Rung> selected = selectRungs(sourceBitrate);
+        StringBuilder master = new StringBuilder("#EXTM3U\n#EXT-X-VERSION:7\n#EXT-X-INDEPENDENT-SEGMENTS\n");
+        for (Rung rung : selected) {
+            Path dir = Files.createDirectories(output.resolve(rung.name()));
+            FFmpegBuilder builder = new FFmpegBuilder()
+                    .setInput(source)
+                    .overrideOutputFiles(true)
+                    .addOutput(dir.resolve(MEDIA_PLAYLIST).toString())
+                        .setFormat("hls")
+                        .disableVideo()
+                        .setAudioCodec(rung.encoder())
+                        .setAudioBitRate(rung.kbps * 1000L)
+                        .setAudioSampleRate(SAMPLE_RATE)
+                        .addExtraArgs("-hls_time", String.valueOf(segmentSeconds),
+                                "-hls_playlist_type", "vod",
+                                "-hls_segment_type", "fmp4",
+                                "-hls_fmp4_init_filename", INIT_SEGMENT,
+                                "-hls_segment_filename", dir.resolve("seg_%05d.m4s").toString())
+                        .done();
+            ffmpegExecutor.createJob(builder).run();
+            relativizeUris(dir.resolve(MEDIA_PLAYLIST));
+
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    fileStorageService.uploadLocalFile(file, prefix + rung.name() + "/" + file.getFileName(),
+                            contentTypeOf(file.getFileName().toString()));
+                }
+            }
+
+            master.append("#EXT-X-STREAM-INF:BANDWIDTH=").append(rung.kbps * 1000)
+                    .append(",CODECS=\"").append(rung.codecs()).append("\"\n")
+                    .append(rung.name()).append('/').append(MEDIA_PLAYLIST).append('\n');
+        }
+
+        Path masterFile = output.resolve(MASTER_PLAYLIST);
+        Files.writeString(masterFile, master.toString(), StandardCharsets.UTF_8);
+        fileStorageService.uploadLocalFile(masterFile, prefix + MASTER_PLAYLIST, HLS_CONTENT_TYPE);
+    }
+
+    private void saveRenditions(Long trackId, String prefix, String master) {
+        List<TrackRendition> renditions = new ArrayList<>();
+        String[] lines = master.split("\n");
+        for (int i = 0; i + 1 < lines.length; i++) {
+            if (!lines[i].startsWith("#EXT-X-STREAM-INF:")) {
+                continue;
+            }
+            String attributes = lines[i].substring("#EXT-X-STREAM-INF:".length());
+            TrackRendition rendition = new TrackRendition();
+            rendition.setTrackId(trackId);
+            rendition.setBitrate(Integer.parseInt(attribute(attributes, "BANDWIDTH")));
+            rendition.setCodec(attribute(attributes, "CODECS").startsWith("opus") ? "opus" : "aac");
+            rendition.setPlaylistObject(prefix + lines[i + 1].trim());
+            renditions.add(rendition);
+        }
+
+        trackRenditionRepository.deleteByTrackId(trackId);
+        trackRenditionRepository.saveAll(renditions);
+    }
+
+    private List<Rung> selectRungs(Integer sourceBitrate) {
+        // Nie podbijamy jakości ponad oryginał - najniższy wariant każdego kodeka zostaje zawsze
+        List<Rung> selected = new ArrayList<>();
+        Set<String> codecs = new HashSet<>();
+        for (Rung rung : rungs) {
+            boolean lowest = codecs.add(rung.codec);
+            if (lowest || sourceBitrate == null || sourceBitrate <= 0 || rung.kbps * 1000L <= sourceBitrate) {
+                selected.add(rung);
+            }
+        }
+        return selected;
+    }
+
+    private void relativizeUris(Path playlist) throws IOException {
+        // ffmpeg wpisuje ścieżki segmentów tak, jak je podano - w MinIO muszą być względne
+        List<String> lines = new ArrayList<>();
+        for (String line : Files.readAllLines(playlist, StandardCharsets.UTF_8)) {
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                line = Paths.get(line).getFileName().toString();
+            } else if (line.startsWith("#EXT-X-MAP:")) {
+                line = "#EXT-X-MAP:URI=\"" + INIT_SEGMENT + "\"";
+            }
+            lines.add(line);
+        }
+        Files.write(playlist, lines, StandardCharsets.UTF_8);
+    }
+
+    private String contentTypeOf(String fileName) {
+        if (fileName.endsWith(".m3u8")) {
+            return HLS_CONTENT_TYPE;
+        }
+        return "audio/mp4";
+    }
+
+    private String attribute(String attributes, String name) {
+        for (String part : attributes.split(",(?=[A-Z-]+=)")) {
+            if (part.startsWith(name + "=")) {
+                return part.substring(name.length() + 1).replace("\"", "");
+            }
+        }
+        throw new IllegalStateException("Missing " + name + " in master playlist");
+    }
+
+    private List<Rung> parseLadder(String value) {
+        List<Rung> parsed = new ArrayList<>();
+        for (String entry : value.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid transcode ladder entry: " + entry);
+            }
+            String codec = parts[0].trim().toLowerCase();
+            switch (codec) {
+                case "aac":
+                case "opus":
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported transcode codec: " + codec);
+            }
+            parsed.add(new Rung(codec, Integer.parseInt(parts[1].trim())));
+        }
+        parsed.sort(Comparator.comparingInt(rung -> rung.kbps));
+        return parsed;
+    }
+
+    private void deleteQuietly(Path dir) {
+        if (dir == null) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            // Pozostałości w katalogu roboczym nie wpływają na wynik
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static final class Rung {
+        private final String codec;
+        private final int kbps;
+
+        private Rung(String codec, int kbps) {
+            this.codec = codec;
+            this.kbps = kbps;
+        }
+
+        private String name() {
+            return codec + "_" + kbps;
+        }
+
+        private String encoder() {
+            return codec.equals("opus") ? "libopus" : "aac";
+        }
+
+        private String codecs() {
+            return codec.equals("opus") ? "opus" : "mp4a.40.2";
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.audtream.server.service;
+
+import com.audtream.server.model.dto.TrackResponse;
+import com.audtream.server.model.entity.Playlist;
+import com.audtream.server.model.repository.PlaylistRepository;
+import com.audtream.server.model.repository.TrackRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Wyniki z wygaszaniem "w przód": zdarzenie z chwili t waży w * 2^((t - landmark) / halfLife).
+// Względna kolejność nie zmienia się z upływem czasu, więc ranking nie wymaga przeliczania,
+// a element może wejść do top-K tylko przez własne zdarzenie
+@Service
+public class TrendingService {
+
+    public static final String GLOBAL = "";
+
+    // Co okres połowicznego zaniku przesuwamy punkt odniesienia: wykładnik nie rośnie bez końca,
+    // a wygasłe wpisy są usuwane z pamięci
+    private static final double RENORMALIZE_AFTER_HALF_LIVES = 1;
+    private static final double PRUNE_BELOW = 1e-3;
+
+    @Autowired
+    private TrackRepository trackRepository;
+
+    @Autowired
+    private PlaylistRepository playlistRepository;
+
+    @Value("${app.trending.half-life-hours:24}")
+    private double halfLifeHours;
+
+    @Value("${app.trending.bucket-minutes:5}")
+    private long bucketMinutes;
+
+    @Value("${app.trending.top-k:100}")
+    private int topK;
+
+    @Value("${app.trending.like-weight:3.0}")
+    private double likeWeight;
+
+    @Value("${app.trending.seed-days:7}")
+    private int seedDays;
+
+    @Value("${app.trending.seed-limit:5000}")
+    private int seedLimit;
+
+    private long halfLifeMs;
+    private long bucketMs;
+    private volatile long landmark;
+
+    private final Board tracks = new Board();
+    private final Board playlists = new Board();
+
+    @PostConstruct
+    public void init() {
+        halfLifeMs = Math.max(1, (long) (halfLifeHours * 3_600_000L));
+        bucketMs = Math.max(1, bucketMinutes * 60_000L);
+        landmark = bucketStart(System.currentTimeMillis());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        // Po restarcie ranking startuje od ostatnich dni, traktując dotychczasowe liczniki
+        // tak, jakby zostały nabite w chwili publikacji
+        LocalDateTime since = LocalDateTime.now().minusDays(seedDays);
+        for (TrackResponse track : trackRepository.findPopularSince(since, PageRequest.of(0, seedLimit))) {
+            double weight = track.getPlays() + likeWeight * track.getLikes();
+            if (weight > 0) {
+                tracks.add(track.getId(), track.getGenre(), weight, toMillis(track.getCreatedAt()));
+            }
+        }
+        for (Playlist playlist : playlistRepository.findByIsPublicTrueAndCreatedAtAfter(since,
+                PageRequest.of(0, seedLimit))) {
+            double weight = playlist.getPlays() + likeWeight * playlist.getLikes();
+            if (weight > 0) {
+                playlists.add(playlist.getId(), null, weight, toMillis(playlist.getCreatedAt()));
+            }
+        }
+    }
+
+    public void recordTrackPlay(Long trackId, String genre) {
+        tracks.add(trackId, genre, 1.0, System.currentTimeMillis());
+    }
+
+    public void recordTrackLike(Long trackId, String genre) {
+        tracks.add(trackId, genre, likeWeight, System.currentTimeMillis());
+    }
+
+    public void recordPlaylistPlay(Long playlistId) {
+        playlists.add(playlistId, null, 1.0, System.currentTimeMillis());
+    }
+
+    public void recordPlaylistLike(Long playlistId) {
+        playlists.add(playlistId, null, likeWeight, System.currentTimeMillis());
+    }
+
+    public List<Long> topTracks(String genre, int limit) {
+        return tracks.top(genre == null || genre.isEmpty() || genre.equalsIgnoreCase("all") ? GLOBAL : genre, limit);
+    }
+
+    public List<Long> topPlaylists(int limit) {
+        return playlists.top(GLOBAL, limit);
+    }
+
+    public void removeTrack(Long trackId) {
+        tracks.remove(trackId);
+    }
+
+    public void removePlaylist(Long playlistId) {
+        playlists.remove(playlistId);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("trackedTracks", tracks.scores.size());
+        stats.put("trackBoards", tracks.boards.size());
+        stats.put("trackedPlaylists", playlists.scores.size());
+        stats.put("halfLifeHours", halfLifeHours);
+        stats.put("bucketMinutes", bucketMinutes);
+        stats.put("topK", topK);
+        stats.put("landmark", landmark);
+        return stats;
+    }
+
+    @Scheduled(fixedDelayString = "${app.trending.maintenance-interval-ms:60000}")
+    public void renormalize() {
+        long now = bucketStart(System.currentTimeMillis());
+        if ((now - landmark) < RENORMALIZE_AFTER_HALF_LIVES * halfLifeMs) {
+            return;
+        }
+
+        // Przeskalowanie wszystkich wyników tym samym czynnikiem nie zmienia kolejności
+        double scale = Math.pow(2, -(double) (now - landmark) / halfLifeMs);
+        synchronized (this) {
+            tracks.rescale(scale);
+            playlists.rescale(scale);
+            landmark = now;
+        }
+    }
+
+    // Tylko pod monitorem serwisu - renormalize() przesuwa landmark razem z przeskalowaniem wyników
+    private double factor(long timeMillis) {
+        // Zdarzenia w obrębie jednego kubełka mają tę samą wagę
+        return Math.pow(2, (double) (bucketStart(timeMillis) - landmark) / halfLifeMs);
+    }
+
+    private long bucketStart(long timeMillis) {
+        return timeMillis - Math.floorMod(timeMillis, bucketMs);
+    }
+
+    private long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private final class Board {
+        private final Map<Long, Entry> scores = new ConcurrentHashMap<>();
+        private final Map<String, TreeSet<Entry>> boards = new ConcurrentHashMap<>();
+
+        private void add(Long id, String genre, double weight, long timeMillis) {
+            synchronized (TrendingService.this) {
+                // Czynnik liczony pod tym samym monitorem co renormalize(), inaczej zdarzenie
+                // trafiłoby na starą skalę i zostało zawyżone o 2^(przesunięcie / halfLife)
+                double delta = weight * factor(timeMillis);
+                Entry entry = scores.computeIfAbsent(id, key -> new Entry(key, normalize(genre)));
+                if (genre != null && !normalize(genre).equals(entry.genre)) {
+                    // Gatunek utworu zmieniony - przenosimy wpis między rankingami
+                    unlink(entry);
+                    entry.genre = normalize(genre);
+                }
+
+                unlink(entry);
+                entry.score += delta;
+                offer(GLOBAL, entry);
+                if (!entry.genre.isEmpty()) {
+                    offer(entry.genre, entry);
+                }
+            }
+        }
+
+        private void offer(String board, Entry entry) {
+            TreeSet<Entry> top = boards.computeIfAbsent(board, key -> new TreeSet<>(ENTRY_ORDER));
+            if (top.size() < topK) {
+                top.add(entry);
+                return;
+            }
+            Entry weakest = top.first();
+            if (ENTRY_ORDER.compare(entry, weakest) > 0) {
+                top.pollFirst();
+                top.add(entry);
+            }
+        }
+
+        private void unlink(Entry entry) {
+            TreeSet<Entry> global = boards.get(GLOBAL);
+            if (global != null) {
+                global.remove(entry);
+            }
+            TreeSet<Entry> genreBoard = boards.get(entry.genre);
+            if (genreBoard != null && !entry.genre.isEmpty()) {
+                genreBoard.remove(entry);
+            }
+        }
+
+        private List<Long> top(String board, int limit) {
+            synchronized (TrendingService.this) {
+                TreeSet<Entry> top = boards.get(normalize(board));
+                if (top == null) {
+                    return new ArrayList<>();
+                }
+                List<Long> ids = new ArrayList<>(Math.min(limit, top.size()));
+                Iterator<Entry> iterator = top.descendingIterator();
+                while (iterator.hasNext() && ids.size() < limit) {
+                    ids.add(iterator.next().id);
+                }
+                return ids;
+            }
+        }
+
+        private void remove(Long id) {
+            synchronized (TrendingService.this) {
+                Entry entry = scores.remove(id);
+                if (entry == null) {
+                    return;
+                }
+                // Zwolnione miejsce w top-K musi zająć najlepszy wpis spoza rankingu -
+                // przebudowa tylko tych rankingów, w których wpis faktycznie był
+                TreeSet<Entry> global = boards.get(GLOBAL);
+                if (global != null && global.remove(entry)) {
+                    refill(GLOBAL);
+                }
+                TreeSet<Entry> genreBoard = entry.genre.isEmpty() ? null : boards.get(entry.genre);
+                if (genreBoard != null && genreBoard.remove(entry)) {
+                    refill(entry.genre);
+                }
+            }
+        }
+
+        private void refill(String board) {
+            TreeSet<Entry> top = boards.get(board);
+            for (Entry entry : scores.values()) {
+                if ((board.equals(GLOBAL) || board.equals(entry.genre)) && !top.contains(entry)) {
+                    offer(board, entry);
+                }
+            }
+        }
+
+        private void rescale(double scale) {
+            for (TreeSet<Entry> top : boards.values()) {
+                top.clear();
+            }
+            Iterator<Entry> iterator = scores.values().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                entry.score *= scale;
+                if (entry.score < PRUNE_BELOW) {
+                    iterator.remove();
+                    continue;
+                }
+                offer(GLOBAL, entry);
+                if (!entry.genre.isEmpty()) {
+                    offer(entry.genre, entry);
+                }
+            }
+            boards.values().removeIf(TreeSet::isEmpty);
+        }
+
+        private String normalize(String genre) {
+            return genre == null ? GLOBAL : genre.trim().toLowerCase();
+        }
+    }
+
+    private static final Comparator<Entry> ENTRY_ORDER =
+            Comparator.comparingDouble((Entry entry) -> entry.score).thenComparing(entry -> entry.id);
+
+    private static final class Entry {
+        private final Long id;
+        private String genre;
+        private double score;
+
+        private Entry(Long id, String genre) {
+            this.id = id;
+            this.genre = genre;
+        }
+    }
+}
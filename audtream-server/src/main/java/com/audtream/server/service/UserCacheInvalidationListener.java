@@ -0,0 +1,24 @@
+package com.audtream.server.service;
+
+import com.audtream.server.model.entity.User;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+// Hibernate pobiera listener z kontekstu Springa; @Lazy przerywa cykl
+// fabryka EntityManagera -> listener -> repozytorium -> fabryka EntityManagera
+@Component
+public class UserCacheInvalidationListener {
+
+    @Autowired
+    @Lazy
+    private PrincipalResolutionService principalResolutionService;
+
+    @PostUpdate
+    @PostRemove
+    public void onUserChanged(User user) {
+        principalResolutionService.invalidate(user);
+    }
+}
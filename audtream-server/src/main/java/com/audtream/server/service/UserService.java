@@ -21,14 +21,18 @@ public class UserService implements UserDetailsService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private PrincipalResolutionService principalResolutionService;
+
     @Override
     public UserDetails loadUserByUsername(String login) throws UsernameNotFoundException {
-        User user = userRepository
-                .findByUsername(login)
+        // Hash hasła zawsze prosto z bazy - cache trzyma tylko pola tożsamości
+        User user = userRepository.findByUsername(login)
                 .or(() -> userRepository.findByEmail(login))
                 .orElseThrow(() ->
                         new UsernameNotFoundException("User not found: " + login)
                 );
+        principalResolutionService.remember(user);
 
         return new org.springframework.security.core.userdetails.User(
                 user.getUsername(),
@@ -46,6 +50,11 @@ public class UserService implements UserDetailsService {
             throw new RuntimeException("Email already exists");
         }
 
+        // Rolę administratora nadaje się ręcznie w bazie, nie przy rejestracji
+        if ("admin".equalsIgnoreCase(registerRequest.getRole().trim())) {
+            throw new RuntimeException("Role not allowed");
+        }
+
         User user = new User();
         user.setUsername(registerRequest.getUsername());
         user.setEmail(registerRequest.getEmail());
@@ -56,7 +65,7 @@ public class UserService implements UserDetailsService {
     }
 
     public UserResponse getUserByUsername(String username) {
-        User user = userRepository.findByUsername(username)
+        PrincipalResolutionService.ResolvedUser user = principalResolutionService.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         UserResponse response = new UserResponse();
@@ -0,0 +1,397 @@
+package com.audtream.server.service;
+
+import com.audtream.server.model.entity.Track;
+import com.audtream.server.model.repository.TrackRepository;
+import io.minio.errors.ErrorResponseException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Szczyty przebiegu (min/max na kubełek) w kilku poziomach powiększenia, liczone w jednym
+// strumieniowym dekodowaniu przy wgraniu. ffmpeg dekoduje do mono PCM s16le, a poziomy
+// grubsze powstają przez scalanie GROUPING kubełków poziomu niższego - bez drugiego przejścia.
+//
+// Format zapisanego bloba (big-endian):
+//   "AWPK" | wersja (1) | bity (1) | liczba poziomów (1) | zarezerwowane (1) | częstotliwość (4)
+//   dla każdego poziomu: próbki na kubełek (4) | liczba kubełków (4) | pary min,max int8
+@Service
+public class WaveformService {
+
+    public static final String PEAKS_FILE = "peaks.bin";
+    public static final String CONTENT_TYPE = "application/octet-stream";
+
+    private static final byte[] MAGIC = {'A', 'W', 'P', 'K'};
+    private static final byte VERSION = 1;
+    private static final byte BITS = 8;
+    private static final int SAMPLE_RATE = 22050;
+    private static final int FINEST_BUCKET = 256;
+    private static final int GROUPING = 4;
+    private static final int LEVELS = 4;
+    private static final int HEADER_SIZE = 12;
+    private static final int LEVEL_HEADER_SIZE = 8;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private TrackRepository trackRepository;
+
+    @Value("${app.transcode.ffmpeg-path:ffmpeg}")
+    private String ffmpegPath;
+
+    @Value("${app.waveform.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.waveform.workers:1}")
+    private int workers;
+
+    @Value("${app.waveform.queue-capacity:64}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor backfill;
+    private final Set<Long> dispatched = ConcurrentHashMap.newKeySet();
+    // Utwory, których ffmpeg nie zdekodował - kolejne żądania szczytów nie zlecają ich od nowa aż do restartu
+    private final Set<Long> failed = ConcurrentHashMap.newKeySet();
+
+    // Czytanie wyjścia ffmpeg musi iść równolegle z karmieniem jego wejścia
+    private final AtomicInteger threadCounter = new AtomicInteger();
+    private final ExecutorService readers = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "waveform-reader-" + threadCounter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LongAdder computed = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder served = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        backfill = new ThreadPoolExecutor(
+                workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "waveform-worker-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                });
+    }
+
+    // Gałąź strumienia z wgrania - zwraca null, gdy ffmpeg nie zdekodował pliku
+    public byte[] computePeaks(InputStream audio) {
+        if (!enabled) {
+            return null;
+        }
+        try {
+            Process process = start("pipe:0");
+            Future<byte[]> peaks = readers.submit(() -> readPeaks(process.getInputStream()));
+            try (OutputStream stdin = process.getOutputStream()) {
+                audio.transferTo(stdin);
+            } catch (IOException e) {
+                // ffmpeg zakończył się wcześniej (nieobsługiwany format) - wynik powie, czy coś zdekodował
+            }
+            return finish(process, peaks);
+        } catch (Exception e) {
+            failures.increment();
+            return null;
+        }
+    }
+
+    public void store(String audioObjectName, byte[] peaks) throws Exception {
+        Path file = Files.createTempFile("peaks-", ".bin");
+        try {
+            Files.write(file, peaks);
+            fileStorageService.uploadLocalFile(file, peaksObjectName(audioObjectName), CONTENT_TYPE);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    public Optional<byte[]> load(String audioObjectName) throws Exception {
+        try (InputStream stream = fileStorageService.getFile(peaksObjectName(audioObjectName))) {
+            return Optional.of(stream.readAllBytes());
+        } catch (ErrorResponseException e) {
+            if (e.errorResponse().code().equals("NoSuchKey")) {
+                return Optional.empty();
+            }
+            throw e;
+        }
+    }
+
+    // Utwory bez szczytów (wgrania wieloczęściowe, pliki sprzed tej funkcji) liczymy w tle z obiektu w MinIO
+    public void submit(Long trackId) {
+        if (!enabled || failed.contains(trackId) || !dispatched.add(trackId)) {
+            return;
+        }
+        try {
+            backfill.execute(() -> {
+                try {
+                    backfillTrack(trackId);
+                } finally {
+                    dispatched.remove(trackId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            dispatched.remove(trackId);
+        }
+    }
+
+    // Wersja szczytów do ETag-a: hash zawartości utworu, a dla plików sprzed deduplikacji skrót samego bloba
+    public String versionOf(String contentHash, byte[] blob) {
+        if (contentHash != null) {
+            return contentHash.substring(0, Math.min(32, contentHash.length()));
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(blob), 0, 16);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to compute peaks version", e);
+        }
+    }
+
+    public String peaksObjectName(String audioObjectName) {
+        return fileStorageService.derivedPrefix(audioObjectName) + PEAKS_FILE;
+    }
+
+    // Wycina z bloba poziom o najmniejszej liczbie kubełków nie mniejszej niż resolution
+    // (albo najdrobniejszy, gdy żaden nie wystarcza). Wynik: nagłówek jak w blobie z jednym poziomem
+    public Level selectLevel(byte[] blob, int resolution) {
+        ByteBuffer buffer = ByteBuffer.wrap(blob);
+        byte[] magic = new byte[MAGIC.length];
+        buffer.get(magic);
+        if (!Arrays.equals(magic, MAGIC) || buffer.get() != VERSION) {
+            throw new IllegalStateException("Unsupported peaks format");
+        }
+        byte bits = buffer.get();
+        int levels = buffer.get();
+        buffer.get();
+        int sampleRate = buffer.getInt();
+
+        Level selected = null;
+        for (int i = 0; i < levels; i++) {
+            int samplesPerBucket = buffer.getInt();
+            int buckets = buffer.getInt();
+            int offset = buffer.position();
+            int length = buckets * 2 * (bits / 8);
+            buffer.position(offset + length);
+            // Poziomy są zapisane od najdrobniejszego - bierzemy ostatni, który jeszcze spełnia żądanie
+            if (selected == null || buckets >= resolution) {
+                selected = new Level(bits, sampleRate, samplesPerBucket, buckets, blob, offset, length);
+            }
+        }
+        if (selected == null) {
+            throw new IllegalStateException("Peaks blob has no levels");
+        }
+        served.increment();
+        return selected;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("computed", computed.sum());
+        stats.put("failures", failures.sum());
+        stats.put("served", served.sum());
+        stats.put("backfillQueued", backfill.getQueue().size());
+        stats.put("skipped", failed.size());
+        return stats;
+    }
+
+    private void backfillTrack(Long trackId) {
+        Track track = trackRepository.findById(trackId).orElse(null);
+        if (track == null || "PENDING_UPLOAD".equals(track.getFileUrl())) {
+            return;
+        }
+        if (track.getFileUrl().contains("?")) {
+            // Plik spoza naszego magazynu (podpisany URL) - nie ma gdzie zapisać szczytów
+            failed.add(trackId);
+            return;
+        }
+        try {
+            String objectName = fileStorageService.objectNameFromUrl(track.getFileUrl());
+            if (fileStorageService.fileExists(peaksObjectName(objectName))) {
+                return;
+            }
+            Process process = start(fileStorageService.getPresignedUrl(objectName, 3600));
+            process.getOutputStream().close();
+            byte[] peaks = finish(process, readers.submit(() -> readPeaks(process.getInputStream())));
+            if (peaks == null) {
+                failed.add(trackId);
+                return;
+            }
+            store(objectName, peaks);
+        } catch (Exception e) {
+            failures.increment();
+            failed.add(trackId);
+        }
+    }
+
+    private Process start(String input) throws IOException {
+        return new ProcessBuilder(ffmpegPath, "-v", "error", "-i", input,
+                "-vn", "-ac", "1", "-ar", String.valueOf(SAMPLE_RATE), "-f", "s16le", "pipe:1")
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+    }
+
+    private byte[] finish(Process process, Future<byte[]> peaks) throws Exception {
+        byte[] result = peaks.get();
+        if (process.waitFor() != 0 || result == null) {
+            failures.increment();
+            return null;
+        }
+        computed.increment();
+        return result;
+    }
+
+    private byte[] readPeaks(InputStream pcm) throws IOException {
+        PeakBuilder builder = new PeakBuilder();
+        byte[] buffer = new byte[64 * 1024];
+        int carry = 0;
+        int read;
+        try (InputStream stream = pcm) {
+            while ((read = stream.read(buffer, carry, buffer.length - carry)) != -1) {
+                int available = carry + read;
+                int end = available - (available % 2);
+                for (int i = 0; i < end; i += 2) {
+                    // s16le: młodszy bajt pierwszy
+                    builder.add((short) ((buffer[i] & 0xFF) | (buffer[i + 1] << 8)));
+                }
+                carry = available - end;
+                if (carry > 0) {
+                    buffer[0] = buffer[end];
+                }
+            }
+        }
+        return builder.samples > 0 ? builder.toBlob() : null;
+    }
+
+    private static final class PeakBuilder {
+        private final ByteArrayOutputStream[] data = new ByteArrayOutputStream[LEVELS];
+        private final int[] mins = new int[LEVELS];
+        private final int[] maxs = new int[LEVELS];
+        private final int[] counts = new int[LEVELS];
+        private final int[] buckets = new int[LEVELS];
+        private long samples;
+
+        private PeakBuilder() {
+            for (int level = 0; level < LEVELS; level++) {
+                data[level] = new ByteArrayOutputStream();
+                reset(level);
+            }
+        }
+
+        private void add(short sample) {
+            samples++;
+            mins[0] = Math.min(mins[0], sample);
+            maxs[0] = Math.max(maxs[0], sample);
+            if (++counts[0] == FINEST_BUCKET) {
+                emit(0);
+            }
+        }
+
+        private void emit(int level) {
+            data[level].write(quantizeMin(mins[level]));
+            data[level].write(quantizeMax(maxs[level]));
+            buckets[level]++;
+
+            // Zamknięty kubełek zasila poziom grubszy
+            if (level + 1 < LEVELS) {
+                int parent = level + 1;
+                mins[parent] = Math.min(mins[parent], mins[level]);
+                maxs[parent] = Math.max(maxs[parent], maxs[level]);
+                if (++counts[parent] == GROUPING) {
+                    emit(parent);
+                }
+            }
+            reset(level);
+        }
+
+        private void reset(int level) {
+            mins[level] = Short.MAX_VALUE;
+            maxs[level] = Short.MIN_VALUE;
+            counts[level] = 0;
+        }
+
+        private byte[] toBlob() {
+            // Domykamy niepełne kubełki od najdrobniejszego, żeby ogon trafił też do poziomów grubszych
+            for (int level = 0; level < LEVELS; level++) {
+                if (counts[level] > 0) {
+                    emit(level);
+                }
+            }
+
+            int size = HEADER_SIZE;
+            for (int level = 0; level < LEVELS; level++) {
+                size += LEVEL_HEADER_SIZE + data[level].size();
+            }
+            ByteBuffer blob = ByteBuffer.allocate(size);
+            blob.put(MAGIC).put(VERSION).put(BITS).put((byte) LEVELS).put((byte) 0).putInt(SAMPLE_RATE);
+            int samplesPerBucket = FINEST_BUCKET;
+            for (int level = 0; level < LEVELS; level++) {
+                blob.putInt(samplesPerBucket).putInt(buckets[level]).put(data[level].toByteArray());
+                samplesPerBucket *= GROUPING;
+            }
+            return blob.array();
+        }
+
+        // Zaokrąglamy na zewnątrz, żeby ciche fragmenty nie zlewały się z zerem
+        private static int quantizeMin(int value) {
+            return value >> 8;
+        }
+
+        private static int quantizeMax(int value) {
+            return Math.min(127, (value + 255) >> 8);
+        }
+    }
+
+    public static final class Level {
+        private final byte bits;
+        private final int sampleRate;
+        private final int samplesPerBucket;
+        private final int buckets;
+        private final byte[] blob;
+        private final int offset;
+        private final int length;
+
+        private Level(byte bits, int sampleRate, int samplesPerBucket, int buckets,
+                      byte[] blob, int offset, int length) {
+            this.bits = bits;
+            this.sampleRate = sampleRate;
+            this.samplesPerBucket = samplesPerBucket;
+            this.buckets = buckets;
+            this.blob = blob;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        public int getSamplesPerBucket() { return samplesPerBucket; }
+
+        public int getBuckets() { return buckets; }
+
+        public byte[] toBytes() {
+            ByteBuffer out = ByteBuffer.allocate(HEADER_SIZE + LEVEL_HEADER_SIZE + length);
+            out.put(MAGIC).put(VERSION).put(bits).put((byte) 1).put((byte) 0).putInt(sampleRate)
+                    .putInt(samplesPerBucket).putInt(buckets).put(blob, offset, length);
+            return out.array();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        backfill.shutdown();
+        readers.shutdown();
+    }
+}
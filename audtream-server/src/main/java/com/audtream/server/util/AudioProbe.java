@@ -0,0 +1,346 @@
+package com.audtream.server.util;
+
+import java.nio.charset.StandardCharsets;
+
+// Długość, częstotliwość, kanały i rzeczywista przepływność odczytane z samych nagłówków kontenera.
+// Czytamy tylko początek i koniec pliku (odczyty z zakresu), bez dekodowania i bez kopii na dysk
+public final class AudioProbe {
+
+    // Tyle wystarcza na ID3v2 z małą okładką, nagłówek ramki i tag Xing/VBRI/LAME
+    private static final int HEAD_BYTES = 64 * 1024;
+    // Ostatnia strona OGG ma najwyżej ~64 KB
+    private static final int TAIL_BYTES = 64 * 1024 + 512;
+
+    private static final int[][] MP3_BITRATES = {
+            // MPEG1 Layer I, II, III
+            {0, 32, 64, 96, 128, 160, 192, 224, 256, 288, 320, 352, 384, 416, 448},
+            {0, 32, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320, 384},
+            {0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320},
+            // MPEG2/2.5 Layer I, II/III
+            {0, 32, 48, 56, 64, 80, 96, 112, 128, 144, 160, 176, 192, 224, 256},
+            {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160}
+    };
+    private static final int[] MP3_SAMPLE_RATES = {44100, 48000, 32000};
+    private static final int[] AAC_SAMPLE_RATES = {
+            96000, 88200, 64000, 48000, 44100, 32000, 24000, 22050, 16000, 12000, 11025, 8000, 7350};
+
+    private AudioProbe() {}
+
+    public interface RangeReader {
+        long size() throws Exception;
+
+        // Może zwrócić mniej bajtów niż length tylko na końcu pliku
+        byte[] read(long offset, int length) throws Exception;
+    }
+
+    public static Result probe(RangeReader reader) throws Exception {
+        long size = reader.size();
+        if (size <= 0) {
+            return null;
+        }
+        byte[] head = reader.read(0, (int) Math.min(HEAD_BYTES, size));
+
+        if (startsWith(head, 0, "RIFF") && startsWith(head, 8, "WAVE")) {
+            return probeWav(head, size);
+        }
+        if (startsWith(head, 0, "OggS")) {
+            return probeOgg(reader, head, size);
+        }
+
+        // FLAC i MP3 mogą zaczynać się tagiem ID3v2
+        int offset = 0;
+        if (startsWith(head, 0, "ID3") && head.length >= 10) {
+            offset = 10 + syncsafe(head, 6) + ((head[5] & 0x10) != 0 ? 10 : 0);
+            if (offset + 4 > head.length) {
+                if (offset + 4 > size) {
+                    return null;
+                }
+                // Duża okładka w tagu - doczytujemy nagłówek za nim
+                head = reader.read(offset, (int) Math.min(HEAD_BYTES, size - offset));
+                return probeAfterTag(reader, head, 0, size - offset, offset);
+            }
+        }
+        return probeAfterTag(reader, head, offset, size - offset, 0);
+    }
+
+    private static Result probeAfterTag(RangeReader reader, byte[] head, int offset, long audioSize,
+                                        long base) throws Exception {
+        if (startsWith(head, offset, "fLaC")) {
+            return probeFlac(head, offset, audioSize);
+        }
+        int sync = findSync(head, offset);
+        if (sync < 0) {
+            return null;
+        }
+        if ((head[sync + 1] & 0x06) == 0) {
+            // Warstwa 0 to ADTS (AAC), pozostałe to ramki MPEG audio
+            return probeAdts(head, sync, audioSize - (sync - offset));
+        }
+        return probeMp3(reader, head, sync, audioSize - (sync - offset), base + offset + audioSize);
+    }
+
+    private static Result probeWav(byte[] head, long size) {
+        int channels = 0;
+        int sampleRate = 0;
+        long byteRate = 0;
+        int position = 12;
+        while (position + 8 <= head.length) {
+            String id = new String(head, position, 4, StandardCharsets.US_ASCII);
+            long chunkSize = le32(head, position + 4);
+            if (id.equals("fmt ") && position + 24 <= head.length) {
+                channels = le16(head, position + 10);
+                sampleRate = (int) le32(head, position + 12);
+                byteRate = le32(head, position + 16);
+            } else if (id.equals("data")) {
+                if (byteRate <= 0) {
+                    return null;
+                }
+                // Nagrania strumieniowe zostawiają rozmiar 0 lub 0xFFFFFFFF - liczymy wtedy do końca pliku
+                long dataSize = chunkSize == 0 || chunkSize == 0xFFFFFFFFL || position + 8 + chunkSize > size
+                        ? size - position - 8 : chunkSize;
+                return new Result("wav", (double) dataSize / byteRate, sampleRate, channels, byteRate * 8);
+            }
+            long next = position + 8L + chunkSize + (chunkSize & 1);
+            if (next > head.length) {
+                return null;
+            }
+            position = (int) next;
+        }
+        return null;
+    }
+
+    private static Result probeFlac(byte[] head, int offset, long audioSize) {
+        // Pierwszy blok metadanych to zawsze STREAMINFO (34 bajty za 4-bajtowym nagłówkiem bloku)
+        int info = offset + 8;
+        if (info + 18 > head.length || (head[offset + 4] & 0x7F) != 0) {
+            return null;
+        }
+        int sampleRate = ((head[info + 10] & 0xFF) << 12) | ((head[info + 11] & 0xFF) << 4)
+                | ((head[info + 12] & 0xF0) >> 4);
+        int channels = ((head[info + 12] & 0x0E) >> 1) + 1;
+        long totalSamples = ((long) (head[info + 13] & 0x0F) << 32) | be32(head, info + 14);
+        if (sampleRate <= 0 || totalSamples <= 0) {
+            return null;
+        }
+        double duration = (double) totalSamples / sampleRate;
+        return new Result("flac", duration, sampleRate, channels, (long) (audioSize * 8 / duration));
+    }
+
+    private static Result probeMp3(RangeReader reader, byte[] head, int frame, long audioSize,
+                                   long fileEnd) throws Exception {
+        int versionBits = (head[frame + 1] >> 3) & 0x03;
+        int layerBits = (head[frame + 1] >> 1) & 0x03;
+        int bitrateIndex = (head[frame + 2] >> 4) & 0x0F;
+        int sampleRateIndex = (head[frame + 2] >> 2) & 0x03;
+        int channelMode = (head[frame + 3] >> 6) & 0x03;
+        if (versionBits == 1 || bitrateIndex == 0 || bitrateIndex == 15 || sampleRateIndex == 3) {
+            return null;
+        }
+
+        boolean mpeg1 = versionBits == 3;
+        int layer = 4 - layerBits;
+        int sampleRate = MP3_SAMPLE_RATES[sampleRateIndex] >> (mpeg1 ? 0 : versionBits == 2 ? 1 : 2);
+        int channels = channelMode == 3 ? 1 : 2;
+        int samplesPerFrame = layer == 1 ? 384 : layer == 3 && !mpeg1 ? 576 : 1152;
+        int table = mpeg1 ? layer - 1 : layer == 1 ? 3 : 4;
+        long frameBitrate = MP3_BITRATES[table][bitrateIndex] * 1000L;
+
+        // Xing/Info leży za informacją poboczną, VBRI zawsze 32 bajty za nagłówkiem
+        int sideInfo = mpeg1 ? (channels == 1 ? 17 : 32) : (channels == 1 ? 9 : 17);
+        int xing = frame + 4 + sideInfo;
+        int vbri = frame + 4 + 32;
+        long frames = -1;
+        long bytes = -1;
+        long trimmedSamples = 0;
+        if ((startsWith(head, xing, "Xing") || startsWith(head, xing, "Info")) && xing + 8 <= head.length) {
+            long flags = be32(head, xing + 4);
+            int field = xing + 8;
+            if ((flags & 1) != 0 && field + 4 <= head.length) {
+                frames = be32(head, field);
+                field += 4;
+            }
+            if ((flags & 2) != 0 && field + 4 <= head.length) {
+                bytes = be32(head, field);
+            }
+            // Tag LAME: opóźnienie enkodera i dopełnienie (po 12 bitów) skracają długość do próbki
+            int lame = xing + 120;
+            if (startsWith(head, lame, "LAME") && lame + 24 <= head.length) {
+                int delay = ((head[lame + 21] & 0xFF) << 4) | ((head[lame + 22] & 0xF0) >> 4);
+                int padding = ((head[lame + 22] & 0x0F) << 8) | (head[lame + 23] & 0xFF);
+                trimmedSamples = delay + padding;
+            }
+        } else if (startsWith(head, vbri, "VBRI") && vbri + 18 <= head.length) {
+            bytes = be32(head, vbri + 10);
+            frames = be32(head, vbri + 14);
+        }
+
+        if (frames > 0) {
+            double duration = Math.max(0, frames * samplesPerFrame - trimmedSamples) / (double) sampleRate;
+            long streamBytes = bytes > 0 ? bytes : audioSize;
+            return new Result("mp3", duration, sampleRate, channels, (long) (streamBytes * 8 / duration));
+        }
+
+        // Brak tagu VBR - plik CBR, długość z rozmiaru danych (bez ewentualnego ID3v1 na końcu)
+        long dataBytes = audioSize;
+        if (fileEnd >= 128) {
+            byte[] tail = reader.read(fileEnd - 128, 3);
+            if (startsWith(tail, 0, "TAG")) {
+                dataBytes -= 128;
+            }
+        }
+        return new Result("mp3", dataBytes * 8.0 / frameBitrate, sampleRate, channels, frameBitrate);
+    }
+
+    private static Result probeAdts(byte[] head, int frame, long audioSize) {
+        int sampleRateIndex = (head[frame + 2] >> 2) & 0x0F;
+        if (sampleRateIndex >= AAC_SAMPLE_RATES.length) {
+            return null;
+        }
+        int sampleRate = AAC_SAMPLE_RATES[sampleRateIndex];
+        int channels = ((head[frame + 2] & 0x01) << 2) | ((head[frame + 3] & 0xC0) >> 6);
+
+        // ADTS nie ma indeksu - przechodzimy po nagłówkach ramek w pobranym początku
+        // i ekstrapolujemy średnią długość ramki na cały plik
+        long frameBytes = 0;
+        long blocks = 0;
+        int position = frame;
+        while (position + 7 <= head.length && (head[position] & 0xFF) == 0xFF
+                && (head[position + 1] & 0xF6) == 0xF0) {
+            int length = ((head[position + 3] & 0x03) << 11) | ((head[position + 4] & 0xFF) << 3)
+                    | ((head[position + 5] & 0xE0) >> 5);
+            if (length < 7) {
+                break;
+            }
+            frameBytes += length;
+            blocks += (head[position + 6] & 0x03) + 1;
+            position += length;
+        }
+        if (blocks == 0) {
+            return null;
+        }
+
+        double bytesPerSecond = frameBytes / (blocks * 1024.0 / sampleRate);
+        return new Result("aac", audioSize / bytesPerSecond, sampleRate, channels, (long) (bytesPerSecond * 8));
+    }
+
+    private static Result probeOgg(RangeReader reader, byte[] head, long size) throws Exception {
+        // Pierwszy pakiet pierwszej strony identyfikuje kodek
+        if (head.length < 28) {
+            return null;
+        }
+        int segments = head[26] & 0xFF;
+        int packet = 27 + segments;
+        String codec;
+        int channels;
+        int sampleRate;
+        long granuleRate;
+        long preSkip = 0;
+        if (startsWith(head, packet + 1, "vorbis") && packet + 16 <= head.length) {
+            codec = "vorbis";
+            channels = head[packet + 11] & 0xFF;
+            sampleRate = (int) le32(head, packet + 12);
+            granuleRate = sampleRate;
+        } else if (startsWith(head, packet, "OpusHead") && packet + 16 <= head.length) {
+            codec = "opus";
+            channels = head[packet + 9] & 0xFF;
+            preSkip = le16(head, packet + 10);
+            sampleRate = (int) le32(head, packet + 12);
+            // Pozycja granuli w Opus jest zawsze w próbkach 48 kHz
+            granuleRate = 48000;
+        } else {
+            return null;
+        }
+        if (granuleRate <= 0) {
+            return null;
+        }
+
+        // Długość to granula ostatniej strony - szukamy "OggS" od końca
+        int tailLength = (int) Math.min(TAIL_BYTES, size);
+        byte[] tail = reader.read(size - tailLength, tailLength);
+        for (int position = tail.length - 27; position >= 0; position--) {
+            if (startsWith(tail, position, "OggS")) {
+                long granule = le64(tail, position + 6);
+                if (granule <= 0) {
+                    continue;
+                }
+                double duration = Math.max(0, granule - preSkip) / (double) granuleRate;
+                if (duration <= 0) {
+                    return null;
+                }
+                return new Result(codec, duration,
+                        sampleRate, channels, (long) (size * 8 / duration));
+            }
+        }
+        return null;
+    }
+
+    private static int findSync(byte[] data, int from) {
+        for (int i = from; i + 4 <= data.length; i++) {
+            if ((data[i] & 0xFF) == 0xFF && (data[i + 1] & 0xE0) == 0xE0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean startsWith(byte[] data, int offset, String text) {
+        if (offset < 0 || offset + text.length() > data.length) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (data[offset + i] != (byte) text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int syncsafe(byte[] data, int offset) {
+        return ((data[offset] & 0x7F) << 21) | ((data[offset + 1] & 0x7F) << 14)
+                | ((data[offset + 2] & 0x7F) << 7) | (data[offset + 3] & 0x7F);
+    }
+
+    private static int le16(byte[] data, int offset) {
+        return (data[offset] & 0xFF) | ((data[offset + 1] & 0xFF) << 8);
+    }
+
+    private static long le32(byte[] data, int offset) {
+        return (le16(data, offset) | ((long) le16(data, offset + 2) << 16)) & 0xFFFFFFFFL;
+    }
+
+    private static long le64(byte[] data, int offset) {
+        return le32(data, offset) | (le32(data, offset + 4) << 32);
+    }
+
+    private static long be32(byte[] data, int offset) {
+        return ((long) (data[offset] & 0xFF) << 24) | ((data[offset + 1] & 0xFF) << 16)
+                | ((data[offset + 2] & 0xFF) << 8) | (data[offset + 3] & 0xFF);
+    }
+
+    public static class Result {
+        private final String format;
+        private final double durationSeconds;
+        private final int sampleRate;
+        private final int channels;
+        private final long bitrate;
+
+        public Result(String format, double durationSeconds, int sampleRate, int channels, long bitrate) {
+            this.format = format;
+            this.durationSeconds = durationSeconds;
+            this.sampleRate = sampleRate;
+            this.channels = channels;
+            this.bitrate = bitrate;
+        }
+
+        public String getFormat() { return format; }
+
+        public double getDurationSeconds() { return durationSeconds; }
+
+        public int getSampleRate() { return sampleRate; }
+
+        public int getChannels() { return channels; }
+
+        // W bitach na sekundę
+        public long getBitrate() { return bitrate; }
+    }
+}
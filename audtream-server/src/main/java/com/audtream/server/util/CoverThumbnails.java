@@ -0,0 +1,49 @@
+package com.audtream.server.util;
+
+import com.audtream.server.model.dto.CoverThumbnailResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+// Miniatury okładek leżą pod kluczami wyliczanymi z klucza oryginału:
+// covers/ab/<hash>.jpg -> covers/ab/<hash>/150.webp, covers/ab/<hash>/150.jpg
+// Dzięki temu DTO (także z projekcji JPQL) podają adresy miniatur bez dodatkowych kolumn
+public final class CoverThumbnails {
+
+    public static final int[] SIZES = {64, 150, 300, 600};
+    public static final String[] FORMATS = {"webp", "jpg"};
+
+    // Oryginał zapisywany jest pod tym kluczem dopiero po wszystkich miniaturach,
+    // więc adres w tym układzie gwarantuje, że miniatury istnieją
+    private static final Pattern CONTENT_ADDRESSED = Pattern.compile(".*/covers/[0-9a-f]{2}/[0-9a-f]{64}\\.[a-z]+$");
+
+    private CoverThumbnails() {}
+
+    public static String objectName(String coverObjectName, int size, String format) {
+        return base(coverObjectName) + "/" + size + "." + format;
+    }
+
+    public static String contentType(String format) {
+        return format.equals("webp") ? "image/webp" : "image/jpeg";
+    }
+
+    public static List<CoverThumbnailResponse> forCoverUrl(String coverUrl) {
+        List<CoverThumbnailResponse> thumbnails = new ArrayList<>();
+        if (coverUrl == null || !CONTENT_ADDRESSED.matcher(coverUrl).matches()) {
+            return thumbnails;
+        }
+        for (int size : SIZES) {
+            for (String format : FORMATS) {
+                thumbnails.add(new CoverThumbnailResponse(size, format, objectName(coverUrl, size, format)));
+            }
+        }
+        return thumbnails;
+    }
+
+    private static String base(String name) {
+        int dot = name.lastIndexOf('.');
+        int slash = name.lastIndexOf('/');
+        return dot > slash ? name.substring(0, dot) : name;
+    }
+}
@@ -0,0 +1,145 @@
+package com.audtream.server.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class StreamTee {
+
+    private static final byte[] END = new byte[0];
+
+    private final InputStream source;
+    private final int chunkSize;
+    private final List<Branch> branches = new ArrayList<>();
+    private volatile IOException failure;
+
+    public StreamTee(InputStream source, int chunkSize) {
+        this.source = source;
+        this.chunkSize = chunkSize;
+    }
+
+    public InputStream newBranch(int bufferedChunks) {
+        Branch branch = new Branch(bufferedChunks);
+        branches.add(branch);
+        return branch;
+    }
+
+    public long pump() throws IOException {
+        long total = 0;
+        try {
+            while (true) {
+                byte[] buffer = new byte[chunkSize];
+                int read = source.readNBytes(buffer, 0, chunkSize);
+                if (read <= 0) {
+                    break;
+                }
+
+                byte[] chunk = read == chunkSize ? buffer : Arrays.copyOf(buffer, read);
+                for (Branch branch : branches) {
+                    branch.offer(chunk);
+                }
+                total += read;
+
+                if (read < chunkSize) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+            throw e;
+        } finally {
+            for (Branch branch : branches) {
+                branch.offer(END);
+            }
+        }
+        return total;
+    }
+
+    private final class Branch extends InputStream {
+        private final BlockingQueue<byte[]> queue;
+        private byte[] current;
+        private int position;
+        private boolean finished;
+        private volatile boolean closed;
+
+        private Branch(int capacity) {
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        private void offer(byte[] chunk) throws InterruptedIOException {
+            try {
+                while (!closed && !queue.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+                    // kolejka pełna - czekamy na konsumenta (backpressure)
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while feeding stream branch");
+            }
+        }
+
+        private boolean fill() throws IOException {
+            if (finished) {
+                return false;
+            }
+            if (current != null && position < current.length) {
+                return true;
+            }
+
+            try {
+                current = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while reading stream branch");
+            }
+            position = 0;
+
+            if (current == END) {
+                finished = true;
+                if (failure != null) {
+                    throw new IOException("Source stream failed", failure);
+                }
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!fill()) {
+                return -1;
+            }
+            return current[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int count = Math.min(len, current.length - position);
+            System.arraycopy(current, position, b, off, count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return current != null && !finished ? current.length - position : 0;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            queue.clear();
+        }
+    }
+}
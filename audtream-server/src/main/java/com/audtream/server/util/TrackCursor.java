@@ -0,0 +1,75 @@
+package com.audtream.server.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+// Pozycja w stronicowaniu keyset: wartość klucza sortowania + id ostatniego zwróconego utworu
+public class TrackCursor {
+
+    private final String sort;
+    private final String key;
+    private final long id;
+
+    public TrackCursor(String sort, String key, long id) {
+        this.sort = sort;
+        this.key = key;
+        this.id = id;
+    }
+
+    public static TrackCursor of(String sort, long value, long id) {
+        return new TrackCursor(sort, Long.toString(value), id);
+    }
+
+    public static TrackCursor of(String sort, LocalDateTime value, long id) {
+        return new TrackCursor(sort, value.toString(), id);
+    }
+
+    public String encode() {
+        String raw = sort + "|" + key + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static TrackCursor decode(String token, String expectedSort) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+
+        String[] parts = raw.split("\\|");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        if (!parts[0].equals(expectedSort)) {
+            throw new IllegalArgumentException("Cursor was issued for sort '" + parts[0] + "'");
+        }
+
+        TrackCursor cursor;
+        try {
+            cursor = new TrackCursor(parts[0], parts[1], Long.parseLong(parts[2]));
+            // Walidacja klucza od razu, żeby błędny kursor nie dotarł do zapytania
+            if (expectedSort.equals("newest") || expectedSort.equals("oldest")) {
+                cursor.timeKey();
+            } else {
+                cursor.longKey();
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        return cursor;
+    }
+
+    public long longKey() {
+        return Long.parseLong(key);
+    }
+
+    public LocalDateTime timeKey() {
+        return LocalDateTime.parse(key);
+    }
+
+    public long getId() {
+        return id;
+    }
+}
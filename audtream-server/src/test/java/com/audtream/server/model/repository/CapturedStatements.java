@@ -0,0 +1,26 @@
+package com.audtream.server.model.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Zapamiętuje SQL wysłany przez Hibernate - testy sprawdzają w nim np. klauzulę limitu
+public class CapturedStatements implements StatementInspector {
+
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.add(sql);
+        return sql;
+    }
+
+    static List<String> all() {
+        return List.copyOf(STATEMENTS);
+    }
+
+    static void clear() {
+        STATEMENTS.clear();
+    }
+}
@@ -0,0 +1,70 @@
+package com.audtream.server.model.repository;
+
+import com.audtream.server.model.dto.PlaylistResponse;
+import com.audtream.server.model.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Zapytania "explore" mają ograniczać wynik w SQL - baza zwraca dokładnie limit wierszy,
+// a nie całą tabelę publicznych playlist przycinaną w pamięci
+class PlaylistRepositoryTest extends RepositoryTestSupport {
+
+    private static final int LIMIT = 5;
+
+    @Autowired
+    private PlaylistRepository playlistRepository;
+
+    @BeforeEach
+    void seed() {
+        User owner = user("owner");
+        for (int i = 0; i < 12; i++) {
+            playlist(owner, "public-" + i, true, i * 10, 100 - i);
+        }
+        // Prywatne playlisty z najwyższymi licznikami nie mogą trafić do wyników
+        for (int i = 0; i < 3; i++) {
+            playlist(owner, "private-" + i, false, 1000 + i, 1000 + i);
+        }
+        flushAndReset();
+    }
+
+    @Test
+    void findTopPlaylistsLimitsInSql() {
+        List<PlaylistResponse> playlists = assertLimited(() -> playlistRepository.findTopPlaylists(PageRequest.of(0, LIMIT)));
+
+        assertThat(playlists).extracting(PlaylistResponse::getPlays).containsExactly(110, 100, 90, 80, 70);
+    }
+
+    @Test
+    void findNewestPlaylistsLimitsInSql() {
+        List<PlaylistResponse> playlists = assertLimited(() -> playlistRepository.findNewestPlaylists(PageRequest.of(0, LIMIT)));
+
+        assertThat(playlists).extracting(PlaylistResponse::getName).allMatch(name -> name.startsWith("public-"));
+    }
+
+    @Test
+    void findTrendingPlaylistsLimitsInSql() {
+        List<PlaylistResponse> playlists = assertLimited(() -> playlistRepository.findTrendingPlaylists(PageRequest.of(0, LIMIT)));
+
+        assertThat(playlists).extracting(PlaylistResponse::getLikes).containsExactly(100, 99, 98, 97, 96);
+    }
+
+    private List<PlaylistResponse> assertLimited(Supplier<List<PlaylistResponse>> query) {
+        List<PlaylistResponse> playlists = query.get();
+
+        assertThat(playlists).hasSize(LIMIT);
+        assertThat(playlists).allSatisfy(playlist -> assertThat(playlist.getUsername()).isEqualTo("owner"));
+        assertThat(preparedStatements()).isEqualTo(1);
+        assertThat(loadedEntities()).isZero();
+        // H2 zapisuje limit jako "fetch first ? rows only", MySQL jako "limit ?"
+        assertThat(capturedStatements()).singleElement().asString()
+                .containsPattern("(?i)\\b(limit|fetch first)\\b");
+        return playlists;
+    }
+}
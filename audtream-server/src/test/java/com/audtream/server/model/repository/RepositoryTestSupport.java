@@ -0,0 +1,109 @@
+package com.audtream.server.model.repository;
+
+import com.audtream.server.model.entity.Playlist;
+import com.audtream.server.model.entity.PlaylistTrack;
+import com.audtream.server.model.entity.Track;
+import com.audtream.server.model.entity.User;
+import com.audtream.server.service.ExploreCacheService;
+import com.audtream.server.service.SearchIndexService;
+import com.audtream.server.service.SuggestionService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.List;
+
+// Wspólna konfiguracja testów repozytoriów: H2 w trybie MySQL i statystyki Hibernate,
+// żeby testy mogły sprawdzić, ile zapytań wysyła dane wywołanie
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:audtream;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=YEAR,VALUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+                "com.audtream.server.model.repository.CapturedStatements"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public abstract class RepositoryTestSupport {
+
+    // Listenery encji sięgają po te serwisy przy każdym zapisie - w wycinku JPA ich nie ma
+    @MockitoBean
+    private SearchIndexService searchIndexService;
+
+    @MockitoBean
+    private SuggestionService suggestionService;
+
+    @MockitoBean
+    private ExploreCacheService exploreCacheService;
+
+    @Autowired
+    protected TestEntityManager entityManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void initStatistics() {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+    }
+
+    // Zapisuje dane testowe i czyści kontekst, żeby mierzone wywołanie nie korzystało z encji w pamięci
+    protected void flushAndReset() {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+        CapturedStatements.clear();
+    }
+
+    protected long preparedStatements() {
+        return statistics.getPrepareStatementCount();
+    }
+
+    protected List<String> capturedStatements() {
+        return CapturedStatements.all();
+    }
+
+    protected long loadedEntities() {
+        return statistics.getEntityLoadCount() + statistics.getEntityFetchCount();
+    }
+
+    protected User user(String username) {
+        return entityManager.persist(new User(username, username + "@audtream.test", "secret", "Artist"));
+    }
+
+    protected Track track(User user, String title, String genre, int plays, int likes) {
+        Track track = new Track();
+        track.setTitle(title);
+        track.setArtist(user.getUsername());
+        track.setDuration(180);
+        track.setFileUrl("tracks/" + title + ".mp3");
+        track.setGenre(genre);
+        track.setPlays(plays);
+        track.setLikes(likes);
+        track.setUser(user);
+        return entityManager.persist(track);
+    }
+
+    protected Playlist playlist(User user, String name, boolean isPublic, int plays, int likes) {
+        Playlist playlist = new Playlist();
+        playlist.setName(name);
+        playlist.setIsPublic(isPublic);
+        playlist.setPlays(plays);
+        playlist.setLikes(likes);
+        playlist.setUser(user);
+        return entityManager.persist(playlist);
+    }
+
+    protected void addToPlaylist(Playlist playlist, Track track, long position) {
+        entityManager.persist(new PlaylistTrack(playlist.getId(), track.getId(), position));
+    }
+}
@@ -0,0 +1,93 @@
+package com.audtream.server.model.repository;
+
+import com.audtream.server.model.dto.TrackResponse;
+import com.audtream.server.model.entity.Playlist;
+import com.audtream.server.model.entity.PlaylistTrack;
+import com.audtream.server.model.entity.Track;
+import com.audtream.server.model.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Projekcje listowe mają kosztować jedno zapytanie niezależnie od liczby wierszy - bez N+1 po autorze
+class TrackRepositoryTest extends RepositoryTestSupport {
+
+    @Autowired
+    private TrackRepository trackRepository;
+
+    @Test
+    void findResponsesByUserIdUsesSingleStatement() {
+        User artist = user("artist");
+        User other = user("other");
+        for (int i = 0; i < 5; i++) {
+            track(artist, "track-" + i, "rock", i, 0);
+        }
+        track(other, "foreign", "rock", 0, 0);
+        flushAndReset();
+
+        List<TrackResponse> tracks = trackRepository.findResponsesByUserId(artist.getId());
+
+        assertThat(tracks).hasSize(5);
+        assertThat(tracks).allSatisfy(track -> {
+            assertThat(track.getUserId()).isEqualTo(artist.getId());
+            assertThat(track.getUsername()).isEqualTo("artist");
+        });
+        assertThat(preparedStatements()).isEqualTo(1);
+        assertThat(loadedEntities()).isZero();
+    }
+
+    @Test
+    void findResponsesByPlaylistIdUsesSingleStatementInPositionOrder() {
+        User artist = user("artist");
+        Track first = track(artist, "first", "jazz", 0, 0);
+        Track second = track(artist, "second", "jazz", 0, 0);
+        Track third = track(artist, "third", "jazz", 0, 0);
+        Playlist playlist = playlist(artist, "mix", true, 0, 0);
+        addToPlaylist(playlist, third, 3 * PlaylistTrack.GAP);
+        addToPlaylist(playlist, first, PlaylistTrack.GAP);
+        addToPlaylist(playlist, second, 2 * PlaylistTrack.GAP);
+        flushAndReset();
+
+        List<TrackResponse> tracks = trackRepository.findResponsesByPlaylistId(playlist.getId());
+
+        assertThat(tracks).extracting(TrackResponse::getTitle).containsExactly("first", "second", "third");
+        assertThat(tracks).allSatisfy(track -> assertThat(track.getUsername()).isEqualTo("artist"));
+        assertThat(preparedStatements()).isEqualTo(1);
+        assertThat(loadedEntities()).isZero();
+    }
+
+    @Test
+    void exploreQueriesUseSingleStatementEach() {
+        User artist = user("artist");
+        User other = user("other");
+        for (int i = 0; i < 8; i++) {
+            track(i % 2 == 0 ? artist : other, "track-" + i, "pop", i * 10, i);
+        }
+        flushAndReset();
+
+        List<TrackResponse> top = trackRepository.findTopTracks(PageRequest.of(0, 3));
+        assertThat(top).extracting(TrackResponse::getPlays).containsExactly(70, 60, 50);
+        assertThat(preparedStatements()).isEqualTo(1);
+
+        flushAndReset();
+        LocalDateTime since = LocalDateTime.now().minusDays(7);
+        assertThat(trackRepository.findNewestTracks(since, PageRequest.of(0, 3))).hasSize(3);
+        assertThat(preparedStatements()).isEqualTo(1);
+
+        flushAndReset();
+        List<TrackResponse> popular = trackRepository.findPopularSince(since, PageRequest.of(0, 4));
+        assertThat(popular).extracting(TrackResponse::getPlays).containsExactly(70, 60, 50, 40);
+        assertThat(preparedStatements()).isEqualTo(1);
+
+        flushAndReset();
+        List<Long> ids = top.stream().map(TrackResponse::getId).toList();
+        assertThat(trackRepository.findResponsesByIdIn(ids)).hasSize(3);
+        assertThat(preparedStatements()).isEqualTo(1);
+        assertThat(loadedEntities()).isZero();
+    }
+}
@@ -0,0 +1,136 @@
+package com.audtream.server.service;
+
+import com.audtream.server.model.dto.TrackResponse;
+import com.audtream.server.model.entity.Playlist;
+import com.audtream.server.model.entity.PlaylistTrack;
+import com.audtream.server.model.entity.Track;
+import com.audtream.server.model.entity.User;
+import com.audtream.server.model.repository.PlaylistTrackRepository;
+import com.audtream.server.model.repository.RepositoryTestSupport;
+import com.audtream.server.model.repository.TrackRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Przesunięcia na pozycjach z przerwami: zwykle zmienia się jeden wiersz,
+// a rozsunięcie całej playlisty następuje dopiero, gdy między sąsiadami brak miejsca
+@Import(PlaylistTrackService.class)
+class PlaylistTrackServiceTest extends RepositoryTestSupport {
+
+    @Autowired
+    private PlaylistTrackService playlistTrackService;
+
+    @Autowired
+    private PlaylistTrackRepository playlistTrackRepository;
+
+    @Autowired
+    private TrackRepository trackRepository;
+
+    private User owner;
+    private Playlist playlist;
+    private Track a;
+    private Track b;
+    private Track c;
+
+    @BeforeEach
+    void seed() {
+        owner = user("owner");
+        playlist = playlist(owner, "list", true, 0, 0);
+        a = track(owner, "a", null, 0, 0);
+        b = track(owner, "b", null, 0, 0);
+        c = track(owner, "c", null, 0, 0);
+    }
+
+    @Test
+    void moveBetweenNeighboursTakesTheMidpoint() {
+        place(PlaylistTrack.GAP, 2 * PlaylistTrack.GAP, 3 * PlaylistTrack.GAP);
+
+        playlistTrackService.move(playlist.getId(), c.getId(), a.getId());
+
+        assertThat(order()).containsExactly("a", "c", "b");
+        assertThat(position(c)).isEqualTo(PlaylistTrack.GAP + PlaylistTrack.GAP / 2);
+        assertThat(position(a)).isEqualTo(PlaylistTrack.GAP);
+        assertThat(position(b)).isEqualTo(2 * PlaylistTrack.GAP);
+    }
+
+    @Test
+    void moveToFrontGoesOneGapBeforeFirst() {
+        place(PlaylistTrack.GAP, 2 * PlaylistTrack.GAP, 3 * PlaylistTrack.GAP);
+
+        playlistTrackService.move(playlist.getId(), c.getId(), null);
+
+        assertThat(order()).containsExactly("c", "a", "b");
+        assertThat(position(c)).isEqualTo(0L);
+    }
+
+    @Test
+    void moveToEndGoesOneGapAfterLast() {
+        place(PlaylistTrack.GAP, 2 * PlaylistTrack.GAP, 3 * PlaylistTrack.GAP);
+
+        playlistTrackService.move(playlist.getId(), a.getId(), c.getId());
+
+        assertThat(order()).containsExactly("b", "c", "a");
+        assertThat(position(a)).isEqualTo(4 * PlaylistTrack.GAP);
+    }
+
+    @Test
+    void moveInPlaceChangesNothing() {
+        place(PlaylistTrack.GAP, 2 * PlaylistTrack.GAP, 3 * PlaylistTrack.GAP);
+
+        playlistTrackService.move(playlist.getId(), b.getId(), a.getId());
+
+        assertThat(position(b)).isEqualTo(2 * PlaylistTrack.GAP);
+    }
+
+    @Test
+    void exhaustedGapRenumbersPlaylist() {
+        place(1, 2, 3);
+
+        playlistTrackService.move(playlist.getId(), c.getId(), a.getId());
+
+        assertThat(order()).containsExactly("a", "c", "b");
+        assertThat(position(a)).isEqualTo(PlaylistTrack.GAP);
+        assertThat(position(b)).isEqualTo(2 * PlaylistTrack.GAP);
+    }
+
+    @Test
+    void tiedLegacyPositionsAreRenumberedBeforeMove() {
+        place(0, 0, 0);
+
+        playlistTrackService.move(playlist.getId(), c.getId(), a.getId());
+
+        assertThat(order()).containsExactly("a", "c", "b");
+    }
+
+    @Test
+    void reorderKeepsOmittedTracksAtTheEnd() {
+        place(PlaylistTrack.GAP, 2 * PlaylistTrack.GAP, 3 * PlaylistTrack.GAP);
+
+        playlistTrackService.reorder(playlist.getId(), List.of(c.getId()));
+        entityManager.flush();
+
+        assertThat(order()).containsExactly("c", "a", "b");
+    }
+
+    private void place(long aPosition, long bPosition, long cPosition) {
+        addToPlaylist(playlist, a, aPosition);
+        addToPlaylist(playlist, b, bPosition);
+        addToPlaylist(playlist, c, cPosition);
+        flushAndReset();
+    }
+
+    private List<String> order() {
+        return trackRepository.findResponsesByPlaylistId(playlist.getId()).stream()
+                .map(TrackResponse::getTitle)
+                .toList();
+    }
+
+    private Long position(Track track) {
+        return playlistTrackRepository.findPosition(playlist.getId(), track.getId()).orElseThrow();
+    }
+}
@@ -0,0 +1,111 @@
+package com.audtream.server.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Ranking bez bazy: dokumenty trafiają do indeksu tak jak z listenera encji
+class SearchIndexServiceTest {
+
+    private SearchIndexService index;
+
+    @BeforeEach
+    void setUp() {
+        index = new SearchIndexService();
+        ReflectionTestUtils.setField(index, "maxExpansions", 50);
+    }
+
+    @Test
+    void titleMatchOutranksArtistMatch() {
+        index.indexTrack(1L, "Something Else", "Yesterday Band", null, "rock");
+        index.indexTrack(2L, "Yesterday", "The Beatles", "Help!", "rock");
+        index.indexTrack(3L, "Unrelated", "Nobody", null, "jazz");
+
+        assertEquals(List.of(2L, 1L), tracks("yesterday"));
+    }
+
+    @Test
+    void documentsMatchingEveryWordComeFirst() {
+        index.indexTrack(1L, "Black Dog", "Led Zeppelin", null, "rock");
+        index.indexTrack(2L, "Back in Black", "AC/DC", null, "rock");
+        index.indexTrack(3L, "Back to Black", "Amy Winehouse", null, "soul");
+
+        List<Long> ids = tracks("back black winehouse");
+
+        assertEquals(List.of(3L), ids.subList(0, 1));
+        assertEquals(3, ids.size());
+    }
+
+    @Test
+    void exactTermOutranksPrefixExpansion() {
+        index.indexTrack(1L, "Beatles Medley", "Various", null, null);
+        index.indexTrack(2L, "Beat It", "Michael Jackson", null, null);
+
+        assertEquals(List.of(2L, 1L), tracks("beat"));
+        assertEquals(List.of(1L), tracks("beatl"));
+    }
+
+    @Test
+    void typosFallBackToTrigramMatches() {
+        index.indexTrack(1L, "Hallelujah", "Leonard Cohen", null, null);
+        index.indexTrack(2L, "Suzanne", "Leonard Cohen", null, null);
+
+        assertEquals(List.of(1L), tracks("halleluja"));
+        assertEquals(List.of(1L), tracks("hallelijah"));
+        // Krótkie tokeny nie przechodzą w tryb rozmyty
+        assertTrue(tracks("zz").isEmpty());
+    }
+
+    @Test
+    void searchIgnoresCaseAndDiacritics() {
+        index.indexTrack(1L, "Łąki łan", "Kapela", null, null);
+
+        assertEquals(List.of(1L), tracks("LAKI"));
+    }
+
+    @Test
+    void typesAreSearchedSeparately() {
+        index.indexTrack(1L, "Summer Hits", "DJ", null, null);
+        index.indexPlaylist(1L, "Summer Hits", "Best of the season");
+
+        assertEquals(List.of(1L), tracks("summer"));
+        assertEquals(List.of(1L), index.search("season", SearchIndexService.DocType.PLAYLIST, 0, 10).getIds());
+        assertTrue(tracks("season").isEmpty());
+    }
+
+    @Test
+    void reindexReplacesOldTermsAndRemoveDropsDocument() {
+        index.indexTrack(1L, "Old Title", "Artist", null, null);
+        index.indexTrack(1L, "New Title", "Artist", null, null);
+
+        assertTrue(tracks("old").isEmpty());
+        assertEquals(List.of(1L), tracks("new"));
+
+        index.remove(SearchIndexService.DocType.TRACK, 1L);
+
+        assertTrue(tracks("new").isEmpty());
+        assertTrue(tracks("artist").isEmpty());
+    }
+
+    @Test
+    void pagesThroughRankedHits() {
+        for (long id = 1; id <= 25; id++) {
+            index.indexTrack(id, "Song " + id, "Artist", null, null);
+        }
+
+        SearchIndexService.SearchHits page = index.search("song", SearchIndexService.DocType.TRACK, 20, 10);
+
+        assertEquals(25, page.getTotal());
+        assertEquals(5, page.getIds().size());
+        // Przy równych wynikach kolejność rozstrzyga id malejąco
+        assertEquals(List.of(5L, 4L, 3L, 2L, 1L), page.getIds());
+    }
+
+    private List<Long> tracks(String query) {
+        return index.search(query, SearchIndexService.DocType.TRACK, 0, 10).getIds();
+    }
+}
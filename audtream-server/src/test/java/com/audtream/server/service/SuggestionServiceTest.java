@@ -0,0 +1,179 @@
+package com.audtream.server.service;
+
+import com.audtream.server.model.repository.PlaylistRepository;
+import com.audtream.server.model.repository.TrackRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SuggestionServiceTest {
+
+    private SuggestionService suggestions;
+
+    @BeforeEach
+    void setUp() {
+        suggestions = new SuggestionService();
+        ReflectionTestUtils.setField(suggestions, "topN", 3);
+        ReflectionTestUtils.setField(suggestions, "likeWeight", 3.0);
+    }
+
+    @Test
+    void prefixReturnsHeaviestEntriesFirst() {
+        suggestions.putTrack(1L, "Hello", "Adele", 100, 0);
+        suggestions.putTrack(2L, "Help!", "The Beatles", 50, 20);
+        suggestions.putTrack(3L, "Hells Bells", "AC/DC", 10, 0);
+        suggestions.putTrack(4L, "Goodbye", "Adele", 500, 0);
+
+        assertEquals(List.of("Help!", "Hello", "Hells Bells"), texts("hel", SuggestionService.Kind.TRACK));
+        assertEquals(List.of("Help!"), texts("help", SuggestionService.Kind.TRACK));
+        assertEquals(List.of("Hello", "Hells Bells"), texts("hell", SuggestionService.Kind.TRACK));
+    }
+
+    @Test
+    void nodesKeepOnlyTopN() {
+        for (long id = 1; id <= 6; id++) {
+            suggestions.putPlaylist(id, "Mix " + id, (int) id, 0);
+        }
+
+        List<SuggestionService.Suggestion> top = suggestions.suggest("mix", 10);
+
+        assertEquals(3, top.size());
+        assertEquals(List.of("Mix 6", "Mix 5", "Mix 4"), top.stream().map(SuggestionService.Suggestion::getText).toList());
+        assertEquals(2, suggestions.suggest("mix", 2).size());
+    }
+
+    @Test
+    void laterWordsOfPhraseArePrefixesToo() {
+        suggestions.putTrack(1L, "Something", "The Beatles", 10, 0);
+
+        assertEquals(List.of("The Beatles"), texts("beat", SuggestionService.Kind.ARTIST));
+        assertEquals(List.of("The Beatles"), texts("the b", SuggestionService.Kind.ARTIST));
+    }
+
+    @Test
+    void phraseReachingNodeByTwoKeysIsListedOnce() {
+        suggestions.putTrack(1L, "La La Land", "Cast", 10, 0);
+
+        assertEquals(1, suggestions.suggest("la", 10).size());
+    }
+
+    @Test
+    void prefixIgnoresCaseAndDiacritics() {
+        suggestions.putTrack(1L, "Źródło", "Zespół", 1, 0);
+
+        assertEquals(List.of("Źródło"), texts("ZRO", SuggestionService.Kind.TRACK));
+    }
+
+    @Test
+    void artistWeightIsSumOfTrackWeights() {
+        suggestions.putTrack(1L, "One", "Metallica", 10, 1);
+        suggestions.putTrack(2L, "Fuel", "Metallica", 20, 0);
+
+        assertEquals(33.0, artist("metallica").getWeight(), 1e-9);
+
+        suggestions.putTrack(2L, "Fuel", "Metallica", 30, 0);
+        assertEquals(43.0, artist("metallica").getWeight(), 1e-9);
+    }
+
+    @Test
+    void changingArtistMovesTheContribution() {
+        suggestions.putTrack(1L, "Song", "Old Name", 10, 0);
+        suggestions.putTrack(2L, "Other", "Old Name", 5, 0);
+
+        suggestions.putTrack(1L, "Song", "New Name", 10, 0);
+
+        assertEquals(5.0, artist("old").getWeight(), 1e-9);
+        assertEquals(10.0, artist("new").getWeight(), 1e-9);
+    }
+
+    @Test
+    void removingLastTrackRemovesArtistAndPrunesTrie() {
+        suggestions.putTrack(1L, "Paranoid", "Black Sabbath", 10, 0);
+        suggestions.putTrack(2L, "Iron Man", "Black Sabbath", 10, 0);
+
+        suggestions.removeTrack(1L);
+        assertTrue(suggestions.suggest("paran", 10).isEmpty());
+        assertNotNull(artist("black"));
+
+        suggestions.removeTrack(2L);
+        assertTrue(suggestions.suggest("black", 10).isEmpty());
+        assertTrue(suggestions.suggest("i", 10).isEmpty());
+    }
+
+    @Test
+    void playlistUpdateReplacesOldText() {
+        suggestions.putPlaylist(1L, "Road Trip", 1, 0);
+        suggestions.putPlaylist(1L, "Gym Session", 1, 0);
+
+        assertTrue(suggestions.suggest("road", 10).isEmpty());
+        assertEquals(List.of("Gym Session"), texts("gym", SuggestionService.Kind.PLAYLIST));
+
+        suggestions.removePlaylist(1L);
+        assertTrue(suggestions.suggest("gym", 10).isEmpty());
+    }
+
+    @Test
+    void refreshRemovesOnlyScannedIdsThatAreGoneFromDatabase() {
+        TrackRepository trackRepository = mock(TrackRepository.class);
+        PlaylistRepository playlistRepository = mock(PlaylistRepository.class);
+        ReflectionTestUtils.setField(suggestions, "trackRepository", trackRepository);
+        ReflectionTestUtils.setField(suggestions, "playlistRepository", playlistRepository);
+
+        suggestions.putTrack(1L, "Alpha", "Band", 1, 0);
+        suggestions.putTrack(2L, "Bravo", "Band", 1, 0);
+        // Zatwierdzony już po przejściu swojej strony - nie ma go w skanie, ale jest w bazie
+        suggestions.putTrack(4L, "Delta", "Band", 1, 0);
+        // Dodany po zakończeniu skanu
+        suggestions.putTrack(9L, "Echo", "Band", 1, 0);
+        when(trackRepository.findSuggestViews(eq(0L), any()))
+                .thenReturn(List.of(view(1L, "Alpha"), view(6L, "Foxtrot")));
+        when(trackRepository.existsById(2L)).thenReturn(false);
+        when(trackRepository.existsById(4L)).thenReturn(true);
+
+        suggestions.refresh();
+
+        assertTrue(suggestions.suggest("bravo", 10).isEmpty());
+        assertEquals(List.of("Delta"), texts("delta", SuggestionService.Kind.TRACK));
+        assertEquals(List.of("Echo"), texts("echo", SuggestionService.Kind.TRACK));
+        assertEquals(List.of("Foxtrot"), texts("fox", SuggestionService.Kind.TRACK));
+        verify(trackRepository, never()).existsById(9L);
+    }
+
+    private static TrackRepository.SuggestView view(Long id, String title) {
+        return new TrackRepository.SuggestView() {
+            @Override
+            public Long getId() { return id; }
+
+            @Override
+            public String getTitle() { return title; }
+
+            @Override
+            public String getArtist() { return "Band"; }
+
+            @Override
+            public Integer getPlays() { return 1; }
+
+            @Override
+            public Integer getLikes() { return 0; }
+        };
+    }
+
+    private List<String> texts(String prefix, SuggestionService.Kind kind) {
+        return suggestions.suggest(prefix, 10).stream()
+                .filter(suggestion -> suggestion.getKind() == kind)
+                .map(SuggestionService.Suggestion::getText)
+                .toList();
+    }
+
+    private SuggestionService.Suggestion artist(String prefix) {
+        return suggestions.suggest(prefix, 10).stream()
+                .filter(suggestion -> suggestion.getKind() == SuggestionService.Kind.ARTIST)
+                .findFirst()
+                .orElse(null);
+    }
+}
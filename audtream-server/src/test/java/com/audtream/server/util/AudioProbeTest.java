@@ -0,0 +1,341 @@
+package com.audtream.server.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Pliki budujemy z samych nagłówków - reszta treści to zera, których sonda i tak nie czyta
+class AudioProbeTest {
+
+    private static final double EPSILON = 1e-6;
+
+    @Test
+    void wavDurationFromDataChunk() throws Exception {
+        byte[] header = wavHeader(2, 44100, 16, 176400 * 2);
+        AudioProbe.Result result = AudioProbe.probe(new SparseFile(header.length + 176400 * 2).put(0, header));
+
+        assertEquals("wav", result.getFormat());
+        assertEquals(2.0, result.getDurationSeconds(), EPSILON);
+        assertEquals(44100, result.getSampleRate());
+        assertEquals(2, result.getChannels());
+        assertEquals(1411200, result.getBitrate());
+    }
+
+    @Test
+    void wavWithStreamingDataSizeCountsToEndOfFile() throws Exception {
+        byte[] header = wavHeader(1, 8000, 8, 0xFFFFFFFFL);
+        AudioProbe.Result result = AudioProbe.probe(new SparseFile(header.length + 8000 * 3).put(0, header));
+
+        assertEquals(3.0, result.getDurationSeconds(), EPSILON);
+        assertEquals(1, result.getChannels());
+    }
+
+    @Test
+    void flacDurationFromStreamInfo() throws Exception {
+        byte[] header = flacHeader(48000, 2, 48000L * 7);
+        long size = 1_000_000;
+        AudioProbe.Result result = AudioProbe.probe(new SparseFile(size).put(0, header));
+
+        assertEquals("flac", result.getFormat());
+        assertEquals(7.0, result.getDurationSeconds(), EPSILON);
+        assertEquals(48000, result.getSampleRate());
+        assertEquals(2, result.getChannels());
+        assertEquals(size * 8 / 7, result.getBitrate());
+    }
+
+    @Test
+    void flacAfterId3Tag() throws Exception {
+        byte[] tag = id3Header(200);
+        SparseFile file = new SparseFile(500_000).put(0, tag).put(tag.length + 200, flacHeader(44100, 1, 44100L * 3));
+        AudioProbe.Result result = AudioProbe.probe(file);
+
+        assertEquals("flac", result.getFormat());
+        assertEquals(3.0, result.getDurationSeconds(), EPSILON);
+        assertEquals(1, result.getChannels());
+    }
+
+    @Test
+    void mp3CbrDurationFromFileSize() throws Exception {
+        // 128 kbit/s przez 10 s
+        AudioProbe.Result result = AudioProbe.probe(new SparseFile(160_000).put(0, mp3Frame()));
+
+        assertEquals("mp3", result.getFormat());
+        assertEquals(10.0, result.getDurationSeconds(), EPSILON);
+        assertEquals(44100, result.getSampleRate());
+        assertEquals(2, result.getChannels());
+        assertEquals(128000, result.getBitrate());
+    }
+
+    @Test
+    void mp3CbrSkipsId3v1Tag() throws Exception {
+        byte[] id3v1 = new byte[128];
+        ascii(id3v1, 0, "TAG");
+        SparseFile file = new SparseFile(160_000 + 128).put(0, mp3Frame()).put(160_000, id3v1);
+
+        assertEquals(10.0, AudioProbe.probe(file).getDurationSeconds(), EPSILON);
+    }
+
+    @Test
+    void mp3XingWithLameTrimsEncoderDelayAndPadding() throws Exception {
+        byte[] frame = mp3Frame();
+        int xing = 4 + 32;
+        ascii(frame, xing, "Xing");
+        be32(frame, xing + 4, 3);
+        be32(frame, xing + 8, 1000);
+        be32(frame, xing + 12, 400_000);
+        int lame = xing + 120;
+        ascii(frame, lame, "LAME");
+        // 576 próbek opóźnienia i 1152 dopełnienia, po 12 bitów
+        frame[lame + 21] = (byte) (576 >> 4);
+        frame[lame + 22] = (byte) (((576 & 0x0F) << 4) | (1152 >> 8));
+        frame[lame + 23] = (byte) (1152 & 0xFF);
+        AudioProbe.Result result = AudioProbe.probe(new SparseFile(400_417).put(0, frame));
+
+        double duration = (1000 * 1152 - 1728) / 44100.0;
+        assertEquals(duration, result.getDurationSeconds(), EPSILON);
+        assertEquals((long) (400_000 * 8 / duration), result.getBitrate());
+    }
+
+    @Test
+    void mp3XingWithoutLameUsesFrameCount() throws Exception {
+        byte[] frame = mp3Frame();
+        ascii(frame, 36, "Info");
+        be32(frame, 40, 1);
+        be32(frame, 44, 441);
+        AudioProbe.Result result = AudioProbe.probe(new SparseFile(300_000).put(0, frame));
+
+        assertEquals(441 * 1152 / 44100.0, result.getDurationSeconds(), EPSILON);
+    }
+
+    @Test
+    void mp3Vbri() throws Exception {
+        byte[] frame = mp3Frame();
+        int vbri = 4 + 32;
+        ascii(frame, vbri, "VBRI");
+        be32(frame, vbri + 10, 200_000);
+        be32(frame, vbri + 14, 500);
+        AudioProbe.Result result = AudioProbe.probe(new SparseFile(250_000).put(0, frame));
+
+        double duration = 500 * 1152 / 44100.0;
+        assertEquals(duration, result.getDurationSeconds(), EPSILON);
+        assertEquals((long) (200_000 * 8 / duration), result.getBitrate());
+    }
+
+    @Test
+    void id3TagLargerThanHeadIsSkippedWithSecondRead() throws Exception {
+        int tagSize = 100_000;
+        long audioOffset = 10 + tagSize;
+        SparseFile file = new SparseFile(audioOffset + 160_000)
+                .put(0, id3Header(tagSize))
+                .put(audioOffset, mp3Frame());
+        AudioProbe.Result result = AudioProbe.probe(file);
+
+        assertEquals("mp3", result.getFormat());
+        assertEquals(10.0, result.getDurationSeconds(), EPSILON);
+        assertTrue(file.readOffsets.containsKey(audioOffset));
+    }
+
+    @Test
+    void id3TagRunningPastEndOfFileIsRejected() throws Exception {
+        assertNull(AudioProbe.probe(new SparseFile(1000).put(0, id3Header(100_000))));
+    }
+
+    @Test
+    void oggVorbisDurationFromLastGranule() throws Exception {
+        byte[] identification = new byte[30];
+        identification[0] = 1;
+        ascii(identification, 1, "vorbis");
+        identification[11] = 2;
+        le32(identification, 12, 44100);
+        long size = 2_000_000;
+        SparseFile file = new SparseFile(size)
+                .put(0, oggPage(0, identification))
+                .put(size - 4096, oggPage(44100L * 4, new byte[10]))
+                .put(size - 100, oggPage(44100L * 5, new byte[40]));
+        AudioProbe.Result result = AudioProbe.probe(file);
+
+        assertEquals("vorbis", result.getFormat());
+        assertEquals(5.0, result.getDurationSeconds(), EPSILON);
+        assertEquals(44100, result.getSampleRate());
+        assertEquals(2, result.getChannels());
+    }
+
+    @Test
+    void oggOpusSubtractsPreSkip() throws Exception {
+        byte[] head = new byte[19];
+        ascii(head, 0, "OpusHead");
+        head[8] = 1;
+        head[9] = 2;
+        head[10] = (byte) (312 & 0xFF);
+        head[11] = (byte) (312 >> 8);
+        le32(head, 12, 44100);
+        long size = 500_000;
+        SparseFile file = new SparseFile(size)
+                .put(0, oggPage(0, head))
+                .put(size - 60, oggPage(48000L * 4 + 312, new byte[20]));
+        AudioProbe.Result result = AudioProbe.probe(file);
+
+        assertEquals("opus", result.getFormat());
+        assertEquals(4.0, result.getDurationSeconds(), EPSILON);
+        // Częstotliwość wejściowa z nagłówka, granula zawsze w 48 kHz
+        assertEquals(44100, result.getSampleRate());
+    }
+
+    @Test
+    void adtsExtrapolatesAverageFrameLength() throws Exception {
+        int frameLength = 372;
+        int frames = 200;
+        byte[] data = new byte[frameLength * frames];
+        for (int i = 0; i < frames; i++) {
+            adtsHeader(data, i * frameLength, frameLength);
+        }
+        AudioProbe.Result result = AudioProbe.probe(new SparseFile(data.length).put(0, data));
+
+        assertEquals("aac", result.getFormat());
+        assertEquals(frames * 1024 / 44100.0, result.getDurationSeconds(), EPSILON);
+        assertEquals(44100, result.getSampleRate());
+        assertEquals(2, result.getChannels());
+        assertEquals((long) (frameLength * 44100 / 1024.0 * 8), result.getBitrate());
+    }
+
+    @Test
+    void unknownContentIsRejected() throws Exception {
+        assertNull(AudioProbe.probe(new SparseFile(4096)));
+        assertNull(AudioProbe.probe(new SparseFile(0)));
+    }
+
+    private static byte[] wavHeader(int channels, int sampleRate, int bitsPerSample, long dataSize) {
+        byte[] header = new byte[44];
+        int blockAlign = channels * bitsPerSample / 8;
+        ascii(header, 0, "RIFF");
+        le32(header, 4, 36 + dataSize);
+        ascii(header, 8, "WAVE");
+        ascii(header, 12, "fmt ");
+        le32(header, 16, 16);
+        header[20] = 1;
+        header[22] = (byte) channels;
+        le32(header, 24, sampleRate);
+        le32(header, 28, (long) sampleRate * blockAlign);
+        header[32] = (byte) blockAlign;
+        header[34] = (byte) bitsPerSample;
+        ascii(header, 36, "data");
+        le32(header, 40, dataSize);
+        return header;
+    }
+
+    private static byte[] flacHeader(int sampleRate, int channels, long totalSamples) {
+        byte[] header = new byte[8 + 34];
+        ascii(header, 0, "fLaC");
+        header[4] = (byte) 0x80;
+        header[7] = 34;
+        int info = 8;
+        header[info + 10] = (byte) (sampleRate >> 12);
+        header[info + 11] = (byte) (sampleRate >> 4);
+        // 16 bitów na próbkę zapisane jako 15 na 5 bitach: najstarszy bit (0) tutaj, cztery młodsze w kolejnym bajcie
+        header[info + 12] = (byte) (((sampleRate & 0x0F) << 4) | ((channels - 1) << 1));
+        header[info + 13] = (byte) ((15 << 4) | (int) ((totalSamples >> 32) & 0x0F));
+        be32(header, info + 14, totalSamples & 0xFFFFFFFFL);
+        return header;
+    }
+
+    // MPEG1 Layer III, 128 kbit/s, 44,1 kHz, joint stereo; miejsce na tagi Xing/VBRI/LAME
+    private static byte[] mp3Frame() {
+        byte[] frame = new byte[417];
+        frame[0] = (byte) 0xFF;
+        frame[1] = (byte) 0xFB;
+        frame[2] = (byte) 0x90;
+        frame[3] = (byte) 0x40;
+        return frame;
+    }
+
+    private static byte[] id3Header(int size) {
+        byte[] header = new byte[10];
+        ascii(header, 0, "ID3");
+        header[3] = 4;
+        header[6] = (byte) ((size >> 21) & 0x7F);
+        header[7] = (byte) ((size >> 14) & 0x7F);
+        header[8] = (byte) ((size >> 7) & 0x7F);
+        header[9] = (byte) (size & 0x7F);
+        return header;
+    }
+
+    private static byte[] oggPage(long granule, byte[] packet) {
+        byte[] page = new byte[28 + packet.length];
+        ascii(page, 0, "OggS");
+        le32(page, 6, granule & 0xFFFFFFFFL);
+        le32(page, 10, granule >>> 32);
+        page[26] = 1;
+        page[27] = (byte) packet.length;
+        System.arraycopy(packet, 0, page, 28, packet.length);
+        return page;
+    }
+
+    // AAC LC, 44,1 kHz (indeks 4), stereo, bez CRC, jeden blok na ramkę
+    private static void adtsHeader(byte[] data, int offset, int length) {
+        data[offset] = (byte) 0xFF;
+        data[offset + 1] = (byte) 0xF1;
+        data[offset + 2] = (byte) ((1 << 6) | (4 << 2));
+        data[offset + 3] = (byte) ((2 << 6) | ((length >> 11) & 0x03));
+        data[offset + 4] = (byte) (length >> 3);
+        data[offset + 5] = (byte) (((length & 0x07) << 5) | 0x1F);
+        data[offset + 6] = (byte) 0xFC;
+    }
+
+    private static void ascii(byte[] data, int offset, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(bytes, 0, data, offset, bytes.length);
+    }
+
+    private static void le32(byte[] data, int offset, long value) {
+        for (int i = 0; i < 4; i++) {
+            data[offset + i] = (byte) (value >> (8 * i));
+        }
+    }
+
+    private static void be32(byte[] data, int offset, long value) {
+        for (int i = 0; i < 4; i++) {
+            data[offset + i] = (byte) (value >> (8 * (3 - i)));
+        }
+    }
+
+    // Plik o zadanym rozmiarze z treścią tylko w wybranych miejscach - reszta czytana jako zera
+    private static class SparseFile implements AudioProbe.RangeReader {
+        private final long size;
+        private final TreeMap<Long, byte[]> segments = new TreeMap<>();
+        private final Map<Long, Integer> readOffsets = new TreeMap<>();
+
+        SparseFile(long size) {
+            this.size = size;
+        }
+
+        SparseFile put(long offset, byte[] data) {
+            segments.put(offset, data);
+            return this;
+        }
+
+        @Override
+        public long size() {
+            return size;
+        }
+
+        @Override
+        public byte[] read(long offset, int length) {
+            readOffsets.put(offset, length);
+            byte[] result = new byte[(int) Math.max(0, Math.min(length, size - offset))];
+            for (Map.Entry<Long, byte[]> segment : segments.entrySet()) {
+                byte[] data = segment.getValue();
+                for (int i = 0; i < data.length; i++) {
+                    long position = segment.getKey() + i - offset;
+                    if (position >= 0 && position < result.length) {
+                        result[(int) position] = data[i];
+                    }
+                }
+            }
+            return result;
+        }
+    }
+}
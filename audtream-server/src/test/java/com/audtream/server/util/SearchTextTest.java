@@ -0,0 +1,30 @@
+package com.audtream.server.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchTextTest {
+
+    @Test
+    void normalizeFoldsCaseAndDiacritics() {
+        assertEquals("laka zolc", SearchText.normalize("Łąka ŻÓŁĆ"));
+        assertEquals("beyonce", SearchText.normalize("Beyoncé"));
+        assertEquals("", SearchText.normalize(null));
+    }
+
+    @Test
+    void tokenizeSplitsOnPunctuationAndWhitespace() {
+        assertIterableEquals(List.of("ac", "dc", "back", "in", "black", "1980"),
+                SearchText.tokenize("  AC/DC - Back in Black (1980)! "));
+        assertTrue(SearchText.tokenize(" -- ").isEmpty());
+    }
+
+    @Test
+    void trigramsArePaddedAtWordEdges() {
+        assertIterableEquals(List.of("$ab", "abc", "bc$"), SearchText.trigrams("abc"));
+        assertIterableEquals(List.of("$a$"), SearchText.trigrams("a"));
+    }
+}
@@ -0,0 +1,90 @@
+package com.audtream.server.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamTeeTest {
+
+    @Test
+    void everyBranchReceivesTheWholeStream() throws Exception {
+        byte[] data = new byte[100_000];
+        new Random(1).nextBytes(data);
+        StreamTee tee = new StreamTee(new ByteArrayInputStream(data), 4096);
+        InputStream first = tee.newBranch(2);
+        InputStream second = tee.newBranch(2);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<byte[]> firstResult = executor.submit(first::readAllBytes);
+            Future<byte[]> secondResult = executor.submit(second::readAllBytes);
+
+            // Bufory po dwa fragmenty - pump kończy się tylko dzięki temu, że obie gałęzie są czytane
+            assertEquals(data.length, tee.pump());
+            assertArrayEquals(data, firstResult.get(5, TimeUnit.SECONDS));
+            assertArrayEquals(data, secondResult.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void emptySourceEndsBranchesImmediately() throws Exception {
+        StreamTee tee = new StreamTee(new ByteArrayInputStream(new byte[0]), 1024);
+        InputStream branch = tee.newBranch(1);
+
+        assertEquals(0, tee.pump());
+        assertEquals(-1, branch.read());
+    }
+
+    @Test
+    void closedBranchDoesNotBlockTheOthers() throws Exception {
+        byte[] data = new byte[64 * 1024];
+        StreamTee tee = new StreamTee(new ByteArrayInputStream(data), 1024);
+        InputStream abandoned = tee.newBranch(1);
+        InputStream reader = tee.newBranch(1);
+        abandoned.close();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<byte[]> result = executor.submit(reader::readAllBytes);
+
+            assertEquals(data.length, tee.pump());
+            assertEquals(data.length, result.get(5, TimeUnit.SECONDS).length);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void sourceFailureReachesBranches() throws Exception {
+        InputStream failing = new InputStream() {
+            private int remaining = 3000;
+
+            @Override
+            public int read() throws IOException {
+                if (remaining-- <= 0) {
+                    throw new IOException("disk gone");
+                }
+                return 1;
+            }
+        };
+        StreamTee tee = new StreamTee(failing, 1024);
+        InputStream branch = tee.newBranch(8);
+
+        IOException pumpError = assertThrows(IOException.class, tee::pump);
+        assertEquals("disk gone", pumpError.getMessage());
+
+        IOException branchError = assertThrows(IOException.class, branch::readAllBytes);
+        assertSame(pumpError, branchError.getCause());
+    }
+}
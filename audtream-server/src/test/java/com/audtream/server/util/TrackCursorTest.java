@@ -0,0 +1,63 @@
+package com.audtream.server.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrackCursorTest {
+
+    @Test
+    void numericCursorRoundTrips() {
+        String token = TrackCursor.of("popular", 1234L, 42L).encode();
+
+        TrackCursor cursor = TrackCursor.decode(token, "popular");
+
+        assertEquals(1234L, cursor.longKey());
+        assertEquals(42L, cursor.getId());
+    }
+
+    @Test
+    void timeCursorRoundTrips() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123_000_000);
+        String token = TrackCursor.of("newest", createdAt, 7L).encode();
+
+        TrackCursor cursor = TrackCursor.decode(token, "newest");
+
+        assertEquals(createdAt, cursor.timeKey());
+        assertEquals(7L, cursor.getId());
+    }
+
+    @Test
+    void tokenIsUrlSafe() {
+        String token = TrackCursor.of("oldest", LocalDateTime.of(2024, 1, 1, 0, 0), Long.MAX_VALUE).encode();
+
+        assertTrue(token.matches("[A-Za-z0-9_-]+"), token);
+    }
+
+    @Test
+    void cursorFromAnotherSortIsRejected() {
+        String token = TrackCursor.of("popular", 10L, 1L).encode();
+
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> TrackCursor.decode(token, "liked"));
+        assertTrue(error.getMessage().contains("popular"));
+    }
+
+    @Test
+    void malformedTokensAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> TrackCursor.decode("%%%", "popular"));
+        assertThrows(IllegalArgumentException.class, () -> TrackCursor.decode(raw("popular|10"), "popular"));
+        assertThrows(IllegalArgumentException.class, () -> TrackCursor.decode(raw("popular|10|x"), "popular"));
+        assertThrows(IllegalArgumentException.class, () -> TrackCursor.decode(raw("popular|ten|1"), "popular"));
+        // Klucz liczbowy w kursorze sortowania po dacie
+        assertThrows(IllegalArgumentException.class, () -> TrackCursor.decode(raw("newest|10|1"), "newest"));
+    }
+
+    private static String raw(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}